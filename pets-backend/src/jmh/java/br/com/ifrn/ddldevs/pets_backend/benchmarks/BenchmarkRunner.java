@@ -0,0 +1,81 @@
+package br.com.ifrn.ddldevs.pets_backend.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH suites and either records their scores as the baseline (benchmarks.mode=record)
+// or compares them with it (benchmarks.mode=compare), failing when a benchmark got slower than
+// the baseline by more than benchmarks.threshold. All suites report average time, so lower is better.
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("benchmarks.mode", "compare");
+        double threshold = Double.parseDouble(System.getProperty("benchmarks.threshold", "0.10"));
+        File baselineFile = new File(System.getProperty("benchmarks.baseline", "src/jmh/baseline.json"));
+        File resultFile = new File(System.getProperty("benchmarks.result", "target/jmh-result.json"));
+
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+            .include(BenchmarkRunner.class.getPackageName() + "\\." + System.getProperty("benchmarks.include", ".*"))
+            .build()).run();
+
+        Map<String, Double> scores = new TreeMap<>();
+        for (RunResult result : results) {
+            scores.put(key(result), result.getPrimaryResult().getScore());
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        resultFile.getParentFile().mkdirs();
+        objectMapper.writeValue(resultFile, scores);
+
+        if (mode.equals("record")) {
+            objectMapper.writeValue(baselineFile, scores);
+            System.out.println("Baseline recorded in " + baselineFile);
+            return;
+        }
+
+        if (!baselineFile.exists()) {
+            System.err.println("No baseline at " + baselineFile + ", run with -Dbenchmarks.mode=record first");
+            System.exit(2);
+        }
+
+        Map<String, Double> baseline = objectMapper.readValue(baselineFile, new TypeReference<>() {});
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            Double reference = baseline.get(score.getKey());
+            if (reference == null) {
+                System.out.printf("%-70s %12.3f  (new)%n", score.getKey(), score.getValue());
+                continue;
+            }
+            double change = (score.getValue() - reference) / reference;
+            System.out.printf("%-70s %12.3f  %+7.1f%%%n", score.getKey(), score.getValue(), change * 100);
+            if (change > threshold) {
+                regressions.add(score.getKey());
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.err.printf("Regressions beyond %.0f%%: %s%n", threshold * 100, regressions);
+            System.exit(1);
+        }
+    }
+
+    private static String key(RunResult result) {
+        var params = result.getParams();
+        String values = params.getParamsKeys().stream()
+            .map(name -> name + "=" + params.getParam(name))
+            .collect(Collectors.joining(",", "[", "]"));
+        String benchmark = params.getBenchmark().substring(BenchmarkRunner.class.getPackageName().length() + 1);
+        return params.getParamsKeys().isEmpty() ? benchmark : benchmark + values;
+    }
+}
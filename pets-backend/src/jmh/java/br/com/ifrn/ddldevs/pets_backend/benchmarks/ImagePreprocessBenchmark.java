@@ -0,0 +1,83 @@
+package br.com.ifrn.ddldevs.pets_backend.benchmarks;
+
+import br.com.ifrn.ddldevs.pets_backend.image.ImagePreprocessor;
+import br.com.ifrn.ddldevs.pets_backend.image.ImagePreprocessor.ProcessedImage;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ImagePreprocessBenchmark {
+
+    // a 1080p screenshot and a 12 MP phone photo
+    @Param({"1920x1080", "4032x3024"})
+    String source;
+
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(512, 0.85f);
+
+    private BufferedImage decoded;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] sides = source.split("x");
+        int width = Integer.parseInt(sides[0]);
+        int height = Integer.parseInt(sides[1]);
+
+        // smooth gradients with sensor-like noise, so the JPEG compresses like a photo
+        Random random = new Random(42);
+        decoded = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(16);
+                int r = x * 200 / width + noise;
+                int g = y * 200 / height + noise;
+                int b = (x + y) * 100 / (width + height) + noise;
+                decoded.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+        }
+
+        file = Files.createTempFile("pets-benchmark-", ".jpg");
+        ImageIO.write(decoded, "jpeg", file.toFile());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // decode with subsampling, orient, resize and re-encode: what the analysis pipeline runs
+    @Benchmark
+    public Optional<ProcessedImage> process() throws IOException {
+        return preprocessor.process(file);
+    }
+
+    // the resize step alone, from a fully decoded picture
+    @Benchmark
+    public BufferedImage downsize() {
+        return preprocessor.downsize(decoded);
+    }
+}
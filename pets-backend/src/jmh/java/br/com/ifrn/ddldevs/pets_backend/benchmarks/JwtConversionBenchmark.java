@@ -0,0 +1,80 @@
+package br.com.ifrn.ddldevs.pets_backend.benchmarks;
+
+import br.com.ifrn.ddldevs.pets_backend.security.JWTAuthConverter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtConversionBenchmark {
+
+    private static final String CLIENT_ID = "pets-backend";
+
+    private final JWTAuthConverter converter =
+        new JWTAuthConverter(new SimpleMeterRegistry(), CLIENT_ID, false, 0);
+
+    private final JWTAuthConverter cachingConverter =
+        new JWTAuthConverter(new SimpleMeterRegistry(), CLIENT_ID, true, 1000);
+
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        // claim layout of an access token issued by the pets-backend Keycloak realm
+        Instant issuedAt = Instant.now();
+        jwt = Jwt.withTokenValue("token")
+            .header("alg", "RS256")
+            .header("typ", "JWT")
+            .header("kid", "5f1f0b3c")
+            .issuer("http://localhost:8080/realms/pets-backend")
+            .subject(UUID.randomUUID().toString())
+            .audience(List.of("account"))
+            .issuedAt(issuedAt)
+            .expiresAt(issuedAt.plusSeconds(300))
+            .claim("typ", "Bearer")
+            .claim("azp", CLIENT_ID)
+            .claim("sid", UUID.randomUUID().toString())
+            .claim("scope", "openid profile email")
+            .claim("email_verified", true)
+            .claim("preferred_username", "alex")
+            .claim("given_name", "Alex")
+            .claim("family_name", "Doe")
+            .claim("email", "alex@email.com")
+            .claim("realm_access", Map.of("roles",
+                List.of("default-roles-pets-backend", "offline_access", "uma_authorization")))
+            .claim("resource_access", Map.of(
+                CLIENT_ID, Map.of("roles", List.of("client")),
+                "account", Map.of("roles", List.of("manage-account", "manage-account-links", "view-profile"))))
+            .build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convertCached() {
+        return cachingConverter.convert(jwt);
+    }
+}
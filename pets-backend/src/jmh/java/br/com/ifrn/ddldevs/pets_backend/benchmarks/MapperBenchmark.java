@@ -0,0 +1,93 @@
+package br.com.ifrn.ddldevs.pets_backend.benchmarks;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.mapper.PetAnalysisMapper;
+import br.com.ifrn.ddldevs.pets_backend.mapper.PetMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"20", "500"})
+    int size;
+
+    private final PetMapper petMapper = Mappers.getMapper(PetMapper.class);
+
+    private final PetAnalysisMapper petAnalysisMapper = Mappers.getMapper(PetAnalysisMapper.class);
+
+    private List<Pet> pets;
+
+    private List<PetAnalysis> analyses;
+
+    @Setup
+    public void setUp() {
+        pets = new ArrayList<>(size);
+        analyses = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Pet pet = new Pet();
+            pet.setId(i);
+            pet.setCreatedAt(LocalDateTime.now());
+            pet.setUpdatedAt(LocalDateTime.now());
+            pet.setName("Apolo " + i);
+            pet.setGender(Gender.MALE);
+            pet.setBirthdate(LocalDate.of(2020, 1, 15));
+            pet.setWeight(BigDecimal.valueOf(10.5));
+            pet.setBreed("Labrador");
+            pet.setSpecies(Species.DOG);
+            pet.setHeight(30);
+            pet.setPhotoUrl("https://bucket.s3.amazonaws.com/pets/" + i + ".jpg");
+            pets.add(pet);
+
+            PetAnalysis analysis = new PetAnalysis();
+            analysis.setId(i);
+            analysis.setCreatedAt(LocalDateTime.now());
+            analysis.setUpdatedAt(LocalDateTime.now());
+            analysis.setPet(pet);
+            analysis.setPicture("https://bucket.s3.amazonaws.com/analyses/" + i + ".jpg");
+            analysis.setResult("happy");
+            analysis.setAccuracy(0.93);
+            analysis.setAnalysisType(AnalysisType.EMOTIONAL);
+            analysis.setAnalysisStatus(AnalysisStatus.COMPLETED);
+            analyses.add(analysis);
+        }
+    }
+
+    @Benchmark
+    public List<PetResponseDTO> petsToDTOList() {
+        return petMapper.toDTOList(pets);
+    }
+
+    @Benchmark
+    public List<PetAnalysisResponseDTO> analysesToResponseList() {
+        return petAnalysisMapper.toResponseList(analyses);
+    }
+}
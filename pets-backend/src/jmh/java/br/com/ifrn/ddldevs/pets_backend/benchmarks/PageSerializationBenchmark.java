@@ -0,0 +1,58 @@
+package br.com.ifrn.ddldevs.pets_backend.benchmarks;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    int size;
+
+    // same modules and features Spring MVC registers for the controllers
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Page<PetAnalysisResponseDTO> page;
+
+    @Setup
+    public void setUp() {
+        List<PetAnalysisResponseDTO> content = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            content.add(new PetAnalysisResponseDTO(i, LocalDateTime.now(), LocalDateTime.now(),
+                "https://bucket.s3.amazonaws.com/analyses/" + i + ".jpg", "happy", 0.93,
+                AnalysisType.EMOTIONAL, AnalysisStatus.COMPLETED));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, size), 1000);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.ifrn.ddldevs.pets_backend.benchmarks;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.specifications.AnalysisSpec;
+import br.com.ifrn.ddldevs.pets_backend.specifications.PetSpec;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+// Composes the filters the way the services do and turns them into a Criteria predicate, which
+// is the part Spring Data runs on every request before Hibernate renders the SQL. The H2
+// database only backs the EntityManagerFactory; no query is executed.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+
+    private final Long userId = 42L;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private EntityManager entityManager;
+
+    private CriteriaBuilder criteriaBuilder;
+
+    @Setup
+    public void setUp() {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(new DriverManagerDataSource("jdbc:h2:mem:specification-benchmark"));
+        factory.setPackagesToScan(Pet.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "none"));
+        factory.afterPropertiesSet();
+
+        entityManagerFactory = factory.getObject();
+        entityManager = entityManagerFactory.createEntityManager();
+        criteriaBuilder = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public Predicate petsOfUserWithoutFilters() {
+        return toPredicate(Pet.class,
+            PetSpec.petsOfUser(userId, null, null, null, null, SearchMode.CONTAINS));
+    }
+
+    @Benchmark
+    public Predicate petsOfUserWithAllFilters() {
+        return toPredicate(Pet.class,
+            PetSpec.petsOfUser(userId, "apo", Species.DOG, "labr", Gender.MALE, SearchMode.PREFIX));
+    }
+
+    // the contains search escapes the user input before building the LIKE pattern
+    @Benchmark
+    public Predicate analysisHistoryWithTextFilter() {
+        return toPredicate(PetAnalysis.class, Specification.where(AnalysisSpec.hasPetId(7L))
+            .and(AnalysisSpec.hasResultContaining("50%_feliz"))
+            .and(AnalysisSpec.hasAnalysisStatus(AnalysisStatus.COMPLETED)));
+    }
+
+    // a fresh query and root per call, as Spring Data builds them for each findAll
+    private <T> Predicate toPredicate(Class<T> type, Specification<T> spec) {
+        CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+        Root<T> root = query.from(type);
+        return spec.toPredicate(root, query, criteriaBuilder);
+    }
+}
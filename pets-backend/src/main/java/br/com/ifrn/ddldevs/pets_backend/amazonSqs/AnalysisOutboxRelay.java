@@ -0,0 +1,198 @@
+package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
+
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.AnalysisOutbox;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
+import br.com.ifrn.ddldevs.pets_backend.repository.AnalysisOutboxRepository;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.operations.SendBatchOperationFailedException;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Drains analysis_outbox into SQS with SendMessageBatch. Rows are claimed with
+// SELECT ... FOR UPDATE SKIP LOCKED, so several instances can relay at the same time.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "analysis.outbox.relay.enabled", havingValue = "true",
+    matchIfMissing = true)
+public class AnalysisOutboxRelay {
+
+    // SendMessageBatch accepts at most 10 entries per call
+    static final int SQS_BATCH_LIMIT = 10;
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    private final AnalysisOutboxRepository outboxRepository;
+
+    private final PetAnalysisRepository petAnalysisRepository;
+
+    private final AnalysisUpdates analysisUpdates;
+
+    private final SqsTemplate sqsTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String queueUrl;
+
+    private final boolean fifo;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final Counter sentCounter;
+
+    private final Counter failedCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer sendTimer;
+
+    public AnalysisOutboxRelay(
+        AnalysisOutboxRepository outboxRepository,
+        PetAnalysisRepository petAnalysisRepository,
+        AnalysisUpdates analysisUpdates,
+        SqsTemplate sqsTemplate,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${AWS_SQS_ANALYSIS_QUEUE_URL:https://sqs.us-east-2.amazonaws.com/209479262001/pets-analysis-fifo.fifo}") String queueUrl,
+        @Value("${analysis.outbox.relay.batch-size:100}") int batchSize,
+        @Value("${analysis.outbox.relay.max-attempts:10}") int maxAttempts
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.petAnalysisRepository = petAnalysisRepository;
+        this.analysisUpdates = analysisUpdates;
+        this.sqsTemplate = sqsTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queueUrl = queueUrl;
+        this.fifo = queueUrl.endsWith(".fifo");
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+
+        this.sentCounter = Counter.builder("pets.outbox.messages")
+            .tag("result", "sent")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("pets.outbox.messages")
+            .tag("result", "failed")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("pets.outbox.batch.size")
+            .register(meterRegistry);
+        this.sendTimer = Timer.builder("pets.outbox.send")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.outbox.relay.interval-ms:500}")
+    public void relay() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == batchSize);
+    }
+
+    int relayBatch() {
+        List<AnalysisOutbox> rows = outboxRepository.lockNextBatch(
+            OutboxStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize)
+        );
+
+        for (int from = 0; from < rows.size(); from += SQS_BATCH_LIMIT) {
+            send(rows.subList(from, Math.min(from + SQS_BATCH_LIMIT, rows.size())));
+        }
+        return rows.size();
+    }
+
+    private void send(List<AnalysisOutbox> chunk) {
+        Map<UUID, AnalysisOutbox> rowsByMessageId = new HashMap<>();
+        List<Message<String>> messages = new ArrayList<>(chunk.size());
+        for (AnalysisOutbox row : chunk) {
+            Message<String> message = toMessage(row);
+            rowsByMessageId.put(message.getHeaders().getId(), row);
+            messages.add(message);
+        }
+        batchSizeSummary.record(messages.size());
+
+        SendResult.Batch<String> result;
+        Timer.Sample sample = Timer.start();
+        try {
+            result = sqsTemplate.sendMany(queueUrl, messages);
+        } catch (SendBatchOperationFailedException e) {
+            result = e.getSendBatchResult(String.class);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao enviar lote de {} mensagens do outbox", chunk.size(), e);
+            chunk.forEach(row -> registerFailure(row, e.getMessage()));
+            return;
+        } finally {
+            sample.stop(sendTimer);
+        }
+
+        List<AnalysisOutbox> sent = new ArrayList<>(result.successful().size());
+        for (SendResult<String> success : result.successful()) {
+            sent.add(rowsByMessageId.get(success.message().getHeaders().getId()));
+        }
+        if (!sent.isEmpty()) {
+            outboxRepository.deleteAllInBatch(sent);
+            sentCounter.increment(sent.size());
+        }
+
+        for (SendResult.Failed<String> failure : result.failed()) {
+            registerFailure(rowsByMessageId.get(failure.message().getHeaders().getId()),
+                failure.errorMessage());
+        }
+    }
+
+    private Message<String> toMessage(AnalysisOutbox row) {
+        MessageBuilder<String> builder = MessageBuilder.withPayload(row.getPayload());
+        if (fifo) {
+            // one group per pet keeps a pet's analyses in order while other pets run in
+            // parallel; a stable dedup id makes relay retries idempotent on the SQS side
+            builder.setHeader(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER,
+                row.getGroupId());
+            builder.setHeader(
+                SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER,
+                row.getDeduplicationId());
+        }
+        return builder.build();
+    }
+
+    private void registerFailure(AnalysisOutbox row, String error) {
+        failedCounter.increment();
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        row.setLastError(error == null ? null : error.substring(0, Math.min(error.length(), 512)));
+
+        if (attempts >= maxAttempts) {
+            row.setStatus(OutboxStatus.FAILED);
+            petAnalysisRepository.updateAnalysisStatus(row.getAnalysisId(), AnalysisStatus.FAILURE);
+            // pushed once the relay transaction commits
+            petAnalysisRepository.findStatusEvent(row.getAnalysisId())
+                .ifPresent(analysisUpdates::publish);
+            return;
+        }
+
+        long backoffSeconds = Math.min(1L << Math.min(attempts, 20), MAX_BACKOFF.toSeconds());
+        row.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+    }
+}
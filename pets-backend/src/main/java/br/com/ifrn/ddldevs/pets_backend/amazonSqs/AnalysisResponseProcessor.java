@@ -0,0 +1,151 @@
+package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
+
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+// Applies a batch of ML responses in one transaction: a single IN query loads the analyses
+// with their pets, and the changes are flushed as batched UPDATEs (hibernate.jdbc.batch_size).
+// Owners connected to the analysis stream are told once the transaction commits.
+@Slf4j
+@Component
+public class AnalysisResponseProcessor {
+
+    private final PetAnalysisRepository petAnalysisRepository;
+
+    private final AnalysisUpdates analysisUpdates;
+
+    private final DistributionSummary batchSize;
+
+    private final Timer batchTimer;
+
+    private final Counter completed;
+
+    private final Counter failed;
+
+    private final Counter unknown;
+
+    private final Counter malformed;
+
+    public AnalysisResponseProcessor(
+        PetAnalysisRepository petAnalysisRepository,
+        AnalysisUpdates analysisUpdates,
+        MeterRegistry meterRegistry
+    ) {
+        this.petAnalysisRepository = petAnalysisRepository;
+        this.analysisUpdates = analysisUpdates;
+        this.batchSize = DistributionSummary.builder("pets.analysis.responses.batch.size")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("pets.analysis.responses.batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.completed = Counter.builder("pets.analysis.responses")
+            .tag("outcome", "completed")
+            .register(meterRegistry);
+        this.failed = Counter.builder("pets.analysis.responses")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+        this.unknown = Counter.builder("pets.analysis.responses")
+            .tag("outcome", "unknown")
+            .register(meterRegistry);
+        this.malformed = Counter.builder("pets.analysis.responses")
+            .tag("outcome", "malformed")
+            .register(meterRegistry);
+    }
+
+    @Transactional
+    public void process(List<AnalysisResponseMessage> messages) {
+        batchSize.record(messages.size());
+        batchTimer.record(() -> apply(messages));
+    }
+
+    private void apply(List<AnalysisResponseMessage> received) {
+        List<AnalysisResponseMessage> messages = received.stream()
+            .filter(this::isWellFormed)
+            .toList();
+
+        List<Long> ids = messages.stream()
+            .map(AnalysisResponseMessage::getAnalysisId)
+            .distinct()
+            .toList();
+
+        Map<Long, PetAnalysis> analyses = petAnalysisRepository.findAllWithPetByIdIn(ids)
+            .stream()
+            .collect(Collectors.toMap(PetAnalysis::getId, Function.identity()));
+
+        for (AnalysisResponseMessage message : messages) {
+            PetAnalysis petAnalysis = analyses.get(message.getAnalysisId());
+            if (petAnalysis == null) {
+                // acking it is safer than redelivering the whole batch forever
+                log.warn("Análise {} não encontrada, resposta descartada", message.getAnalysisId());
+                unknown.increment();
+                continue;
+            }
+            applyResponse(petAnalysis, message);
+            analysisUpdates.publish(statusEvent(petAnalysis));
+        }
+
+        // flush here so the batched UPDATEs are part of the timed section
+        petAnalysisRepository.flush();
+    }
+
+    // a poison message is dropped on its own; throwing would roll back and redeliver the
+    // whole batch until the redrive limit
+    private boolean isWellFormed(AnalysisResponseMessage message) {
+        if (message != null && message.getAnalysisId() != null && message.getStatus() != null
+            && (!isSuccess(message) || message.getAnalysisType() != null)) {
+            return true;
+        }
+        log.warn("Resposta de análise malformada descartada: análise {}, status {}",
+            message == null ? null : message.getAnalysisId(),
+            message == null ? null : message.getStatus());
+        malformed.increment();
+        return false;
+    }
+
+    private static boolean isSuccess(AnalysisResponseMessage message) {
+        return message.getStatus().startsWith("2");
+    }
+
+    private void applyResponse(PetAnalysis petAnalysis, AnalysisResponseMessage message) {
+        petAnalysis.setResult(message.getResult());
+
+        if (isSuccess(message)) {
+            petAnalysis.setAnalysisStatus(AnalysisStatus.COMPLETED);
+            petAnalysis.setAccuracy(message.getAccuracy());
+
+            if (message.getAnalysisType().endsWith("BREED")) {
+                petAnalysis.getPet().setBreed(message.getResult());
+            }
+            completed.increment();
+        } else {
+            petAnalysis.setAnalysisStatus(AnalysisStatus.FAILURE);
+            failed.increment();
+        }
+    }
+
+    // the owner id comes from the pet's user proxy, no extra query
+    private static AnalysisStatusEventDTO statusEvent(PetAnalysis petAnalysis) {
+        return new AnalysisStatusEventDTO(
+            petAnalysis.getPet().getUser().getId(),
+            petAnalysis.getId(),
+            petAnalysis.getPet().getId(),
+            petAnalysis.getAnalysisStatus(),
+            petAnalysis.getResult(),
+            petAnalysis.getAccuracy()
+        );
+    }
+}
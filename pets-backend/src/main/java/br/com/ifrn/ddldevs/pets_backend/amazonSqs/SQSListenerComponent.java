@@ -1,50 +1,26 @@
 package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
 
-import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
-import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
-import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
-import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
-import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
-import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import io.awspring.cloud.sqs.annotation.SqsListener;
 
-import org.springframework.beans.factory.annotation.Value;
+import java.util.List;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SQSListenerComponent {
 
-    private final PetAnalysisRepository petAnalysisRepository;
+    private final AnalysisResponseProcessor responseProcessor;
 
-    private final PetRepository petRepository;
-
-    public SQSListenerComponent(
-            PetAnalysisRepository petAnalysisRepository,
-            PetRepository petRepository
-    ) {
-        this.petAnalysisRepository = petAnalysisRepository;
-        this.petRepository = petRepository;
+    public SQSListenerComponent(AnalysisResponseProcessor responseProcessor) {
+        this.responseProcessor = responseProcessor;
     }
 
-    @SqsListener("${AWS_SQS_ANALYSIS_RESPONSE_NAME:pets-responses-fifo.fifo}")
-    public void receiveMessage(AnalysisResponseMessage message) {
-        PetAnalysis petAnalysis = petAnalysisRepository.findById(message.getAnalysisId())
-                .orElseThrow(() -> new ResourceNotFoundException("Análise não econtrada"));
-        if (message.getStatus().startsWith("2")){
-            petAnalysis.setResult(message.getResult());
-            petAnalysis.setAnalysisStatus(AnalysisStatus.COMPLETED);
-            petAnalysis.setAccuracy(message.getAccuracy());
-
-            if(message.getAnalysisType().endsWith("BREED")){
-                Pet pet = petRepository.findById(petAnalysis.getPet().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Pet não econtrado"));
-                    pet.setBreed(petAnalysis.getResult());
-                petRepository.save(pet);
-            }
-        }else{
-            petAnalysis.setResult(message.getResult());
-            petAnalysis.setAnalysisStatus(AnalysisStatus.FAILURE);
-        }
-        petAnalysisRepository.save(petAnalysis);
+    // batch listener: the whole poll is applied in one transaction and acknowledged together
+    @SqsListener(
+        value = "${AWS_SQS_ANALYSIS_RESPONSE_NAME:pets-responses-fifo.fifo}",
+        maxMessagesPerPoll = "${analysis.responses.max-messages-per-poll:10}",
+        pollTimeoutSeconds = "${analysis.responses.poll-timeout-seconds:10}"
+    )
+    public void receiveMessages(List<AnalysisResponseMessage> messages) {
+        responseProcessor.process(messages);
     }
 }
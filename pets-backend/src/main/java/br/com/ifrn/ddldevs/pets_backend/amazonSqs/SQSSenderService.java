@@ -1,35 +1,94 @@
 package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
 
+import br.com.ifrn.ddldevs.pets_backend.domain.AnalysisOutbox;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
 import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
+import br.com.ifrn.ddldevs.pets_backend.repository.AnalysisOutboxRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.awspring.cloud.sqs.operations.SqsTemplate;
-import org.springframework.beans.factory.annotation.Value;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+// Messages are not sent here: they are written to the analysis_outbox table in the caller's
+// transaction and AnalysisOutboxRelay ships them to SQS in batches after commit.
 @Service
 public class SQSSenderService {
-    private final SqsTemplate sqsTemplate;
+    private final AnalysisOutboxRepository outboxRepository;
 
-    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
 
-    private final String queueUrl;
+    private final ObjectMapper objectMapper;
 
-    public SQSSenderService(
-            SqsTemplate sqsTemplate,
-            @Value("${AWS_SQS_ANALYSIS_QUEUE_URL:https://sqs.us-east-2.amazonaws.com/209479262001/pets-analysis-fifo.fifo}") String queueUrl
-    ) {
-        this.sqsTemplate = sqsTemplate;
+    public SQSSenderService(AnalysisOutboxRepository outboxRepository,
+        JdbcTemplate jdbcTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = new ObjectMapper();
-        this.queueUrl = queueUrl;
     }
 
-    public void sendMessage(AnalysisMessage message) {
-        try{
-            String body = objectMapper.writeValueAsString(message);
+    // written now but only relayed after releaseMessage, e.g. once the picture is in S3
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void holdMessage(AnalysisMessage message, String groupId) {
+        outboxRepository.save(toOutbox(message, groupId, OutboxStatus.WAITING));
+    }
+
+    // one JDBC batch for a whole submission instead of an insert per message
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void holdMessages(List<AnalysisMessage> messages, String groupId) {
+        List<AnalysisOutbox> rows = messages.stream()
+            .map(message -> toOutbox(message, groupId, OutboxStatus.WAITING))
+            .toList();
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO analysis_outbox
+                    (analysis_id, group_id, deduplication_id, payload, status, attempts,
+                     next_attempt_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, rows, rows.size(), (ps, row) -> {
+                ps.setLong(1, row.getAnalysisId());
+                ps.setString(2, row.getGroupId());
+                ps.setString(3, row.getDeduplicationId());
+                ps.setString(4, row.getPayload());
+                ps.setString(5, row.getStatus().name());
+                ps.setInt(6, row.getAttempts());
+                ps.setTimestamp(7, Timestamp.valueOf(row.getNextAttemptAt()));
+            });
+    }
+
+    public void releaseMessage(Long analysisId) {
+        outboxRepository.updateStatusByAnalysisId(
+            analysisId, OutboxStatus.WAITING, OutboxStatus.PENDING
+        );
+    }
+
+    // released together, they reach the relay in the same poll and go out in SQS batches
+    public void releaseMessages(List<Long> analysisIds) {
+        outboxRepository.updateStatusByAnalysisIds(
+            analysisIds, OutboxStatus.WAITING, OutboxStatus.PENDING
+        );
+    }
+
+    public void discardMessage(Long analysisId) {
+        outboxRepository.deleteByAnalysisId(analysisId);
+    }
 
-            sqsTemplate.send(this.queueUrl, body);
-        }catch (JsonProcessingException e) {
+    private AnalysisOutbox toOutbox(AnalysisMessage message, String groupId,
+        OutboxStatus status) {
+        try {
+            return AnalysisOutbox.builder()
+                .analysisId(message.getAnalysisId())
+                .groupId(groupId)
+                .deduplicationId("analysis-" + message.getAnalysisId())
+                .payload(objectMapper.writeValueAsString(message))
+                .status(status)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        } catch (JsonProcessingException e) {
             throw new BusinessException("Erro ao enviar mensagem: " + e.getMessage());
         }
     }
@@ -0,0 +1,94 @@
+package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
+
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.AnalysisOutbox;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
+import br.com.ifrn.ddldevs.pets_backend.repository.AnalysisOutboxRepository;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// A WAITING row is released by the pipeline job preparing its picture, and that job only
+// lives in the memory of the instance that took the request. After a crash or redeploy
+// nothing releases it, so rows waiting longer than the limit are marked FAILED together
+// with their analyses. Rows are claimed with SKIP LOCKED, like the relay does.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "analysis.outbox.sweep.enabled", havingValue = "true",
+    matchIfMissing = true)
+public class WaitingOutboxSweeper {
+
+    private final AnalysisOutboxRepository outboxRepository;
+
+    private final PetAnalysisRepository petAnalysisRepository;
+
+    private final AnalysisUpdates analysisUpdates;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration maxWait;
+
+    private final int batchSize;
+
+    private final Counter sweptCounter;
+
+    public WaitingOutboxSweeper(
+        AnalysisOutboxRepository outboxRepository,
+        PetAnalysisRepository petAnalysisRepository,
+        AnalysisUpdates analysisUpdates,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${analysis.outbox.sweep.max-wait:30m}") Duration maxWait,
+        @Value("${analysis.outbox.sweep.batch-size:100}") int batchSize
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.petAnalysisRepository = petAnalysisRepository;
+        this.analysisUpdates = analysisUpdates;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxWait = maxWait;
+        this.batchSize = batchSize;
+
+        this.sweptCounter = Counter.builder("pets.outbox.messages")
+            .tag("result", "abandoned")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.outbox.sweep.interval-ms:60000}")
+    public void sweep() {
+        Integer swept;
+        do {
+            swept = transactionTemplate.execute(status -> sweepBatch());
+        } while (swept != null && swept == batchSize);
+    }
+
+    // nextAttemptAt of a WAITING row is the time it was written
+    int sweepBatch() {
+        List<AnalysisOutbox> rows = outboxRepository.lockNextBatch(
+            OutboxStatus.WAITING, LocalDateTime.now().minus(maxWait), PageRequest.of(0, batchSize)
+        );
+
+        for (AnalysisOutbox row : rows) {
+            log.warn("Análise {} aguardava upload desde {}, marcada como falha",
+                row.getAnalysisId(), row.getNextAttemptAt());
+            row.setStatus(OutboxStatus.FAILED);
+            row.setLastError("Upload da imagem não foi concluído");
+            petAnalysisRepository.updateAnalysisStatus(row.getAnalysisId(), AnalysisStatus.FAILURE);
+            petAnalysisRepository.findStatusEvent(row.getAnalysisId())
+                .ifPresent(analysisUpdates::publish);
+        }
+        sweptCounter.increment(rows.size());
+        return rows.size();
+    }
+}
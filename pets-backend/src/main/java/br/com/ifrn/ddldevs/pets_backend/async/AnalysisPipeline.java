@@ -0,0 +1,351 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import br.com.ifrn.ddldevs.pets_backend.amazonSqs.SQSSenderService;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
+import br.com.ifrn.ddldevs.pets_backend.image.ImageDedupIndex;
+import br.com.ifrn.ddldevs.pets_backend.image.ImagePreprocessor;
+import br.com.ifrn.ddldevs.pets_backend.image.ImagePreprocessor.ProcessedImage;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import br.com.ifrn.ddldevs.pets_backend.service.UploadImageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+// Background half of an analysis submission: the request thread stages the picture and
+// persists an IN_ANALYSIS row plus its held outbox message, then this pipeline shrinks the
+// picture to the model input, uploads it and releases the message to the outbox relay, on
+// the bounded executor.
+@Slf4j
+@Component
+public class AnalysisPipeline {
+
+    public record StagedImage(Path file, String key, String url, long size, String contentType,
+        String contentHash) {
+    }
+
+    public record AnalysisJob(Long analysisId, StagedImage image) {
+    }
+
+    private final BoundedExecutor executor;
+
+    private final UploadImageService uploadImageService;
+
+    private final SQSSenderService senderService;
+
+    private final PetAnalysisRepository petAnalysisRepository;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ImagePreprocessor imagePreprocessor;
+
+    private final ImageDedupIndex imageDedupIndex;
+
+    private final AnalysisUpdates analysisUpdates;
+
+    private final Path stagingDir;
+
+    private final boolean keepOriginal;
+
+    private final String originalPrefix;
+
+    private final Timer queueTimer;
+
+    private final Timer preprocessTimer;
+
+    private final Timer uploadTimer;
+
+    private final Timer enqueueTimer;
+
+    private final Counter passthrough;
+
+    public AnalysisPipeline(
+        @Qualifier("analysisExecutor") BoundedExecutor executor,
+        UploadImageService uploadImageService,
+        SQSSenderService senderService,
+        PetAnalysisRepository petAnalysisRepository,
+        MeterRegistry meterRegistry,
+        ImagePreprocessor imagePreprocessor,
+        ImageDedupIndex imageDedupIndex,
+        AnalysisUpdates analysisUpdates,
+        @Value("${analysis.pipeline.staging-dir:${java.io.tmpdir}/pets-analysis-staging}") String stagingDir,
+        @Value("${analysis.image.keep-original:false}") boolean keepOriginal,
+        @Value("${analysis.image.original-prefix:originals/}") String originalPrefix
+    ) throws IOException {
+        this.executor = executor;
+        this.uploadImageService = uploadImageService;
+        this.senderService = senderService;
+        this.petAnalysisRepository = petAnalysisRepository;
+        this.meterRegistry = meterRegistry;
+        this.imagePreprocessor = imagePreprocessor;
+        this.imageDedupIndex = imageDedupIndex;
+        this.analysisUpdates = analysisUpdates;
+        this.stagingDir = Files.createDirectories(Path.of(stagingDir));
+        this.keepOriginal = keepOriginal;
+        this.originalPrefix = originalPrefix;
+
+        this.queueTimer = stageTimer("queue");
+        this.preprocessTimer = stageTimer("preprocess");
+        this.uploadTimer = stageTimer("upload");
+        this.enqueueTimer = stageTimer("enqueue");
+        this.passthrough = meterRegistry.counter("pets.analysis.image.passthrough");
+    }
+
+    public boolean tryReserve() {
+        return executor.tryAcquire();
+    }
+
+    // one permit per picture of a batch submission, all or none
+    public boolean tryReserve(int count) {
+        return executor.tryAcquire(count);
+    }
+
+    // copies the multipart out of the request scope and hashes it in the same pass; the
+    // object key is derived from the hash, so resubmitting a picture targets the same object
+    public StagedImage stage(MultipartFile picture) {
+        Path file = stagingDir.resolve(UUID.randomUUID().toString());
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(picture.getInputStream(), digest)) {
+            Files.copy(in, file);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new BusinessException("Erro ao receber imagem: " + e.getMessage());
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        String key = uploadImageService.contentKey(contentHash);
+        return new StagedImage(file, key, uploadImageService.urlFor(key), picture.getSize(),
+            picture.getContentType(), contentHash);
+    }
+
+    // gives back a reservation that will never be submitted
+    public void abandon(StagedImage image) {
+        deleteQuietly(image);
+        executor.release();
+    }
+
+    // drops a staged file that is already stored; the reservation is kept for the job
+    public void discard(StagedImage image) {
+        deleteQuietly(image);
+    }
+
+    // the worker must only start once the row is visible to other transactions
+    public void submitAfterCommit(AnalysisJob job) {
+        submitAllAfterCommit(List.of(job));
+    }
+
+    // the pictures of one submission upload concurrently, and their messages are released
+    // together once the last upload is done
+    public void submitAllAfterCommit(List<AnalysisJob> jobs) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(jobs);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(jobs);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    jobs.forEach(job -> abandon(job.image()));
+                }
+            }
+        });
+    }
+
+    private void submit(List<AnalysisJob> jobs) {
+        Release release = new Release(jobs.size());
+        long queuedAt = System.nanoTime();
+        for (AnalysisJob job : jobs) {
+            executor.execute(() -> {
+                queueTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                run(job, release);
+            });
+        }
+    }
+
+    void run(AnalysisJob job) {
+        run(job, new Release(1));
+    }
+
+    private void run(AnalysisJob job, Release release) {
+        StagedImage image = job.image();
+        boolean uploaded = false;
+        try {
+            uploaded = image == null || prepare(job.analysisId(), image);
+        } finally {
+            // a job that threw still arrives, or the rest of its submission is never released
+            List<Long> ready = release.arrive(uploaded ? job.analysisId() : null);
+            try {
+                if (ready != null) {
+                    enqueue(ready);
+                }
+                if (uploaded && image != null && keepOriginal) {
+                    archiveOriginal(job.analysisId(), image);
+                }
+            } finally {
+                deleteQuietly(image);
+            }
+        }
+    }
+
+    private boolean prepare(Long analysisId, StagedImage image) {
+        String stage = "preprocess";
+        try {
+            Optional<ProcessedImage> processed = preprocessTimer.record(() -> preprocess(image));
+            stage = "upload";
+            uploadTimer.record(() -> upload(image, processed));
+            imageDedupIndex.recordStored(image.contentHash(), image.url());
+            return true;
+        } catch (RuntimeException e) {
+            fail(analysisId, stage, e);
+            return false;
+        }
+    }
+
+    private void enqueue(List<Long> analysisIds) {
+        if (analysisIds.isEmpty()) {
+            return;
+        }
+        try {
+            if (analysisIds.size() == 1) {
+                enqueueTimer.record(() -> senderService.releaseMessage(analysisIds.get(0)));
+            } else {
+                enqueueTimer.record(() -> senderService.releaseMessages(analysisIds));
+            }
+        } catch (RuntimeException e) {
+            analysisIds.forEach(analysisId -> fail(analysisId, "enqueue", e));
+        }
+    }
+
+    // never throws, so one analysis cannot hold back the release of its submission; the
+    // message is dropped last, and if the status write fails the still WAITING row is left
+    // to WaitingOutboxSweeper
+    private void fail(Long analysisId, String stage, RuntimeException e) {
+        log.error("Falha no estágio {} da análise {}", stage, analysisId, e);
+        meterRegistry.counter("pets.analysis.pipeline.failures", "stage", stage).increment();
+        try {
+            petAnalysisRepository.updateAnalysisStatus(analysisId, AnalysisStatus.FAILURE);
+            petAnalysisRepository.findStatusEvent(analysisId).ifPresent(analysisUpdates::publish);
+            senderService.discardMessage(analysisId);
+        } catch (RuntimeException statusError) {
+            log.error("Não foi possível registrar a falha da análise {}", analysisId,
+                statusError);
+        }
+    }
+
+    private Optional<ProcessedImage> preprocess(StagedImage image) {
+        try {
+            return imagePreprocessor.process(image.file());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // the worker reads whatever sits under the key, so a picture that could not be decoded
+    // goes up untouched rather than failing the analysis
+    private void upload(StagedImage image, Optional<ProcessedImage> processed) {
+        if (processed.isEmpty()) {
+            passthrough.increment();
+            uploadFile(image.key(), image);
+            return;
+        }
+        byte[] bytes = processed.get().bytes();
+        uploadImageService.uploadStream(image.key(), new ByteArrayInputStream(bytes), bytes.length,
+            ProcessedImage.CONTENT_TYPE);
+    }
+
+    // off the critical path: the message is already released; a lifecycle rule on the prefix
+    // moves these to a cold storage class
+    private void archiveOriginal(Long analysisId, StagedImage image) {
+        try {
+            uploadFile(originalPrefix + image.key(), image);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível arquivar a imagem original da análise {}", analysisId, e);
+            meterRegistry.counter("pets.analysis.pipeline.failures", "stage", "archive").increment();
+        }
+    }
+
+    private void uploadFile(String key, StagedImage image) {
+        try (InputStream in = Files.newInputStream(image.file())) {
+            uploadImageService.uploadStream(key, in, image.size(), image.contentType());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // collects the uploaded jobs of one submission; the last one to arrive gets them all
+    private static final class Release {
+
+        private final AtomicInteger pending;
+
+        private final Queue<Long> uploaded = new ConcurrentLinkedQueue<>();
+
+        Release(int jobs) {
+            this.pending = new AtomicInteger(jobs);
+        }
+
+        List<Long> arrive(Long analysisId) {
+            if (analysisId != null) {
+                uploaded.add(analysisId);
+            }
+            return pending.decrementAndGet() == 0 ? List.copyOf(uploaded) : null;
+        }
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("pets.analysis.pipeline")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(StagedImage image) {
+        if (image != null) {
+            deleteQuietly(image.file());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o arquivo temporário {}", file, e);
+        }
+    }
+}
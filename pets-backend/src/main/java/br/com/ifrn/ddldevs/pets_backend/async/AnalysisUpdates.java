@@ -0,0 +1,197 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.notification.PgNotificationBus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Long-lived server-sent-event streams, one set per user, announcing analyses that reached a
+// final status. A change is pushed to this instance's streams after commit and announced on
+// Postgres NOTIFY for the streams other instances hold; without LISTEN/NOTIFY (e.g. H2) only
+// local streams are reached. Clients read the current state once after connecting and then
+// only listen.
+@Slf4j
+@Component
+public class AnalysisUpdates implements PgNotificationBus.Listener {
+
+    static final String CHANNEL = "analysis_status";
+
+    static final String EVENT_NAME = "analysis";
+
+    static final String RESYNC_EVENT_NAME = "resync";
+
+    // tells this instance's own notifications apart, they were already pushed locally
+    record Notification(String origin, AnalysisStatusEventDTO analysis) {
+    }
+
+    private final String origin = UUID.randomUUID().toString();
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private final Optional<PgNotificationBus> notificationBus;
+
+    private final ObjectMapper objectMapper;
+
+    private final long timeoutMs;
+
+    private final int maxStreamsPerUser;
+
+    private final Counter pushed;
+
+    public AnalysisUpdates(
+        ObjectProvider<PgNotificationBus> notificationBus,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${analysis.stream.timeout-ms:1800000}") long timeoutMs,
+        @Value("${analysis.stream.max-per-user:5}") int maxStreamsPerUser
+    ) {
+        this.notificationBus = Optional.ofNullable(notificationBus.getIfAvailable());
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+
+        this.pushed = meterRegistry.counter("pets.analysis.stream.pushed");
+        Gauge.builder("pets.analysis.stream.subscribers", this, AnalysisUpdates::subscriberCount)
+            .register(meterRegistry);
+        this.notificationBus.ifPresent(bus -> bus.subscribe(CHANNEL, this));
+    }
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> evicted = new ArrayList<>();
+        // inside compute, so a concurrent remove cannot drop the list this stream goes into
+        emitters.compute(userId, (id, streams) -> {
+            List<SseEmitter> list = streams == null ? new CopyOnWriteArrayList<>() : streams;
+            list.add(emitter);
+            // a client that keeps reconnecting without closing must not pile up streams
+            while (list.size() > maxStreamsPerUser) {
+                evicted.add(list.remove(0));
+            }
+            return list;
+        });
+        // outside compute: completion callbacks remove the stream under the same key
+        evicted.forEach(SseEmitter::complete);
+
+        Runnable remove = () -> remove(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    // inside a transaction nothing is pushed unless it commits; pg_notify is transactional too
+    public void publish(AnalysisStatusEventDTO analysis) {
+        if (analysis.analysisStatus() == AnalysisStatus.IN_ANALYSIS) {
+            return;
+        }
+
+        notificationBus.ifPresent(bus -> {
+            try {
+                bus.publish(CHANNEL,
+                    objectMapper.writeValueAsString(new Notification(origin, analysis)));
+            } catch (JsonProcessingException e) {
+                log.warn("Não foi possível anunciar a análise {}", analysis.id(), e);
+            }
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        push(analysis);
+                    }
+                });
+        } else {
+            push(analysis);
+        }
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        Notification notification;
+        try {
+            notification = objectMapper.readValue(payload, Notification.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Notificação de análise inválida: {}", payload, e);
+            return;
+        }
+        if (!origin.equals(notification.origin())) {
+            push(notification.analysis());
+        }
+    }
+
+    // changes announced while the listener was reconnecting are lost: clients re-read
+    @Override
+    public void onResync() {
+        emitters.forEach((userId, streams) ->
+            streams.forEach(emitter -> send(userId, emitter,
+                SseEmitter.event().name(RESYNC_EVENT_NAME).data("{}", MediaType.APPLICATION_JSON))));
+    }
+
+    // proxies close idle connections; a failed ping also drops streams of gone clients
+    @Scheduled(fixedDelayString = "${analysis.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, streams) ->
+            streams.forEach(emitter -> send(userId, emitter, SseEmitter.event().comment("ping"))));
+    }
+
+    public int subscriberCount() {
+        return emitters.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void push(AnalysisStatusEventDTO analysis) {
+        List<SseEmitter> streams = emitters.get(analysis.userId());
+        if (streams == null) {
+            return;
+        }
+        for (SseEmitter emitter : streams) {
+            if (send(analysis.userId(), emitter, SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(analysis.id() + ":" + analysis.analysisStatus())
+                .data(analysis, MediaType.APPLICATION_JSON))) {
+                pushed.increment();
+            }
+        }
+    }
+
+    private boolean send(Long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Cliente do usuário {} desconectou do stream de análises", userId, e);
+            remove(userId, emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
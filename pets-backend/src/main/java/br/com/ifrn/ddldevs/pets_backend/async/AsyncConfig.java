@@ -0,0 +1,28 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Bean(destroyMethod = "close")
+    public BoundedExecutor analysisExecutor(
+        MeterRegistry meterRegistry,
+        @Value("${analysis.pipeline.max-in-flight:64}") int maxInFlight
+    ) {
+        return new BoundedExecutor("analysis", maxInFlight, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "close")
+    public BoundedExecutor recommendationExecutor(
+        MeterRegistry meterRegistry,
+        @Value("${recommendation.pipeline.max-in-flight:32}") int maxInFlight
+    ) {
+        return new BoundedExecutor("recommendation", maxInFlight, meterRegistry);
+    }
+}
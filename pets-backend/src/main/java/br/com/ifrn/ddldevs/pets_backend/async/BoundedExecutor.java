@@ -0,0 +1,97 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// virtual-thread executor with a hard cap on in-flight tasks; callers reserve a permit
+// up front so they can reject work (503) before doing anything expensive
+public class BoundedExecutor implements AutoCloseable {
+
+    private final String name;
+
+    private final int capacity;
+
+    private final Semaphore permits;
+
+    private final ExecutorService delegate;
+
+    private final Counter rejected;
+
+    public BoundedExecutor(String name, int capacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.delegate = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(name + "-", 0).factory()
+        );
+
+        this.rejected = Counter.builder("pets.executor.rejected")
+            .tag("executor", name)
+            .register(meterRegistry);
+        Gauge.builder("pets.executor.in_flight", this, BoundedExecutor::inFlight)
+            .tag("executor", name)
+            .register(meterRegistry);
+        Gauge.builder("pets.executor.capacity", this, BoundedExecutor::getCapacity)
+            .tag("executor", name)
+            .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    // all or nothing, so a batch is never left half admitted
+    public boolean tryAcquire(int count) {
+        boolean acquired = permits.tryAcquire(count);
+        if (!acquired) {
+            rejected.increment(count);
+        }
+        return acquired;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    // runs a task whose permit was already acquired; the permit is released when it finishes
+    public void execute(Runnable task) {
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int inFlight() {
+        return capacity - permits.availablePermits();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        delegate.shutdown();
+        if (!delegate.awaitTermination(30, TimeUnit.SECONDS)) {
+            delegate.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
+import br.com.ifrn.ddldevs.pets_backend.mapper.RecommendationMapper;
+import br.com.ifrn.ddldevs.pets_backend.microservice.RecommendationRequestsService;
+import br.com.ifrn.ddldevs.pets_backend.repository.RecommendationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Generates PENDING recommendations off the request thread. The microservice call runs
+// outside any transaction, so a slow LLM answer holds neither a Tomcat thread nor a
+// database connection; only the final UPDATE touches the database. Jobs only live in memory,
+// so recommendations still PENDING long after every job would have finished, e.g. after a
+// restart, are failed by a scheduled pass.
+@Slf4j
+@Component
+public class RecommendationPipeline {
+
+    private final BoundedExecutor executor;
+
+    private final RecommendationRepository recommendationRepository;
+
+    private final RecommendationRequestsService recommendationRequestsService;
+
+    private final RecommendationMapper recommendationMapper;
+
+    private final RecommendationUpdates recommendationUpdates;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer queueTimer;
+
+    private final Timer generateTimer;
+
+    private final Counter abandoned;
+
+    private final Duration maxPending;
+
+    private final int sweepBatchSize;
+
+    public RecommendationPipeline(
+        @Qualifier("recommendationExecutor") BoundedExecutor executor,
+        RecommendationRepository recommendationRepository,
+        RecommendationRequestsService recommendationRequestsService,
+        RecommendationMapper recommendationMapper,
+        RecommendationUpdates recommendationUpdates,
+        MeterRegistry meterRegistry,
+        @Value("${recommendation.pipeline.max-pending:10m}") Duration maxPending,
+        @Value("${recommendation.pipeline.sweep-batch-size:100}") int sweepBatchSize
+    ) {
+        this.executor = executor;
+        this.recommendationRepository = recommendationRepository;
+        this.recommendationRequestsService = recommendationRequestsService;
+        this.recommendationMapper = recommendationMapper;
+        this.recommendationUpdates = recommendationUpdates;
+        this.meterRegistry = meterRegistry;
+
+        this.queueTimer = stageTimer("queue");
+        this.generateTimer = stageTimer("generate");
+        this.abandoned = meterRegistry.counter("pets.recommendation.pipeline.abandoned");
+        this.maxPending = maxPending;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public boolean tryReserve() {
+        return executor.tryAcquire();
+    }
+
+    public void abandon() {
+        executor.release();
+    }
+
+    // the worker must only start once the PENDING row is visible to other transactions
+    public void submitAfterCommit(Long recommendationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(recommendationId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(recommendationId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    abandon();
+                }
+            }
+        });
+    }
+
+    private void submit(Long recommendationId) {
+        long queuedAt = System.nanoTime();
+        executor.execute(() -> {
+            queueTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            run(recommendationId);
+        });
+    }
+
+    void run(Long recommendationId) {
+        Optional<Recommendation> found = recommendationRepository.findWithPetById(recommendationId);
+        if (found.isEmpty()) {
+            // deleted while queued
+            return;
+        }
+        Recommendation recommendation = found.get();
+
+        try {
+            String text = generateTimer.recordCallable(
+                () -> recommendationRequestsService.generateRecommendation(recommendation));
+            finish(recommendation, RecommendationStatus.COMPLETED, text);
+        } catch (Exception e) {
+            log.warn("Falha ao gerar recomendação {}", recommendationId, e);
+            meterRegistry.counter("pets.recommendation.pipeline.failures").increment();
+            finish(recommendation, RecommendationStatus.FAILURE, null);
+        }
+    }
+
+    // finishing only touches PENDING rows, so a job that is still running on another
+    // instance and finishes first wins
+    @Scheduled(fixedDelayString = "${recommendation.pipeline.sweep-interval-ms:60000}")
+    public void failStalePending() {
+        List<Long> ids;
+        do {
+            ids = recommendationRepository.findPendingIdsCreatedBefore(
+                LocalDateTime.now().minus(maxPending), PageRequest.of(0, sweepBatchSize));
+            for (Long id : ids) {
+                recommendationRepository.findWithPetById(id).ifPresent(recommendation -> {
+                    log.warn("Recomendação {} pendente desde {}, marcada como falha", id,
+                        recommendation.getCreatedAt());
+                    if (finish(recommendation, RecommendationStatus.FAILURE, null)) {
+                        abandoned.increment();
+                    }
+                });
+            }
+        } while (ids.size() == sweepBatchSize);
+    }
+
+    private boolean finish(Recommendation recommendation, RecommendationStatus status,
+        String text) {
+        if (recommendationRepository.finishRecommendation(recommendation.getId(), status, text) == 0) {
+            return false;
+        }
+        recommendation.setStatus(status);
+        recommendation.setRecommendation(text);
+        recommendationUpdates.publish(recommendationMapper.toRecommendationResponseDTO(recommendation));
+        return true;
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("pets.recommendation.pipeline")
+            .tag("stage", stage)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
+import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-sent-event subscriptions for recommendations still being generated. Emitters live
+// only in this instance, so clients connected elsewhere fall back to polling GET /{id}.
+@Slf4j
+@Component
+public class RecommendationUpdates {
+
+    static final String EVENT_NAME = "recommendation";
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    private final long timeoutMs;
+
+    public RecommendationUpdates(
+        @Value("${recommendation.stream.timeout-ms:60000}") long timeoutMs
+    ) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public SseEmitter subscribe(Long recommendationId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitters.computeIfAbsent(recommendationId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+
+        Runnable remove = () -> emitters.computeIfPresent(recommendationId, (id, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+
+    // pushes the final state to every subscriber and closes their streams
+    public void publish(RecommendationResponseDTO recommendation) {
+        if (recommendation.status() == RecommendationStatus.PENDING) {
+            return;
+        }
+
+        List<SseEmitter> subscribers = emitters.remove(recommendation.id());
+        if (subscribers == null) {
+            return;
+        }
+
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .data(recommendation, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Cliente desconectou antes da recomendação {}", recommendation.id(), e);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    public int subscriberCount(Long recommendationId) {
+        List<SseEmitter> subscribers = emitters.get(recommendationId);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+}
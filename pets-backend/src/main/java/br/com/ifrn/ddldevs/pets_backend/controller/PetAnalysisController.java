@@ -2,8 +2,13 @@ package br.com.ifrn.ddldevs.pets_backend.controller;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.dto.CursorPageDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisBatchItemDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisBatchRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisUploadDTO;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
 import br.com.ifrn.ddldevs.pets_backend.security.AuthUserDetails;
 import br.com.ifrn.ddldevs.pets_backend.service.PetAnalysisService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,10 +23,13 @@ import org.springframework.cglib.core.Local;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/pet-analysis")
@@ -33,23 +41,76 @@ public class PetAnalysisController {
     private PetAnalysisService petAnalysisService;
 
     @PostMapping(value = "/", consumes = "multipart/form-data")
-    @Operation(summary = "Create new Pet Analysis")
+    @Operation(summary = "Create new Pet Analysis",
+        description = "The analysis is accepted with status IN_ANALYSIS; picture upload and "
+            + "queueing happen in background")
     public ResponseEntity<PetAnalysisResponseDTO> createPetAnalysis(
         @Valid @ModelAttribute PetAnalysisRequestDTO petAnalysisRequestDTO,
         @AuthenticationPrincipal AuthUserDetails userDetails
     ) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
             petAnalysisService.createPetAnalysis(
                 petAnalysisRequestDTO, userDetails.getKeycloakId()
             )
         );
     }
 
+    @PostMapping(value = "/batch", consumes = "multipart/form-data")
+    @Operation(summary = "Create one Pet Analysis per picture for the same pet",
+        description = "Answers with the id and status of each picture, in request order; "
+            + "pictures already analysed for the pet come back with reused = true")
+    public ResponseEntity<List<PetAnalysisBatchItemDTO>> createPetAnalyses(
+        @Valid @ModelAttribute PetAnalysisBatchRequestDTO petAnalysisBatchRequestDTO,
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            petAnalysisService.createPetAnalyses(
+                petAnalysisBatchRequestDTO, userDetails.getKeycloakId()
+            )
+        );
+    }
+
+    @PostMapping("/confirm")
+    @Operation(summary = "Create new Pet Analysis from an uploaded picture",
+        description = "The picture was uploaded through a URL from POST /uploads/; only its "
+            + "key is sent here")
+    public ResponseEntity<PetAnalysisResponseDTO> confirmPetAnalysis(
+        @Valid @RequestBody PetAnalysisUploadDTO petAnalysisUploadDTO,
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(
+            petAnalysisService.confirmPetAnalysis(
+                petAnalysisUploadDTO, userDetails.getKeycloakId()
+            )
+        );
+    }
+
     @GetMapping("/")
     @Operation(summary = "List Pet Analyses")
     @PreAuthorize("hasAuthority('ROLE_admin')")
-    public ResponseEntity<List<PetAnalysisResponseDTO>> listPetAnalyses() {
-        return ResponseEntity.status(HttpStatus.OK).body(petAnalysisService.listPetAnalyses());
+    public ResponseEntity<Page<PetAnalysisResponseDTO>> listPetAnalyses(Pageable pageable) {
+        return ResponseEntity.status(HttpStatus.OK)
+            .body(petAnalysisService.listPetAnalyses(pageable));
+    }
+
+    @Operation(summary = "Export Pet Analyses")
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ROLE_admin')")
+    public ResponseEntity<StreamingResponseBody> exportPetAnalyses(
+        @RequestParam(defaultValue = "NDJSON") ExportFormat format
+    ) {
+        return format.attachment("pet-analyses", petAnalysisService.exportPetAnalyses(format));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream status changes of the logged user's Pet Analyses",
+        description = "Sends an 'analysis' event when an analysis is COMPLETED or FAILURE and a "
+            + "'resync' event when some may have been missed. Subscribe first, then read the "
+            + "current state once, instead of polling.")
+    public SseEmitter streamPetAnalyses(
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return petAnalysisService.streamPetAnalyses(userDetails.getKeycloakId());
     }
 
     @GetMapping("/{id}")
@@ -90,4 +151,23 @@ public class PetAnalysisController {
                     startDate, endDate, type, status, result, pageable)
         );
     }
+
+    @GetMapping("/pet/{id}/cursor")
+    @Operation(summary = "Get Pet Analyses by pet id, newest first, using a cursor instead of page numbers")
+    public ResponseEntity<CursorPageDTO<PetAnalysisResponseDTO>> getPetAnalysisByPetIdCursor(
+        @PathVariable Long id,
+        @AuthenticationPrincipal AuthUserDetails userDetails,
+        @RequestParam(required = false) LocalDate startDate,
+        @RequestParam(required = false) LocalDate endDate,
+        @RequestParam(required = false) AnalysisType type,
+        @RequestParam(required = false) AnalysisStatus status,
+        @RequestParam(required = false) String result,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.status(HttpStatus.OK).body(
+            petAnalysisService.getAllByPetIdAfter(id, userDetails.getKeycloakId(),
+                    startDate, endDate, type, status, result, cursor, size)
+        );
+    }
 }
\ No newline at end of file
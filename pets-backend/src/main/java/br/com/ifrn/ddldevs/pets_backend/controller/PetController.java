@@ -3,13 +3,16 @@ package br.com.ifrn.ddldevs.pets_backend.controller;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetUpdateRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadConfirmDTO;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
 import br.com.ifrn.ddldevs.pets_backend.security.AuthUserDetails;
 import br.com.ifrn.ddldevs.pets_backend.service.PetService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,8 +23,11 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/pets")
@@ -44,8 +50,17 @@ public class PetController {
     @Operation(summary = "List pets")
     @GetMapping("/")
     @PreAuthorize("hasAuthority('ROLE_admin')")
-    public ResponseEntity<List<PetResponseDTO>> listPets() {
-        return ResponseEntity.ok(petService.listPets());
+    public ResponseEntity<Page<PetResponseDTO>> listPets(Pageable pageable) {
+        return ResponseEntity.ok(petService.listPets(pageable));
+    }
+
+    @Operation(summary = "Export pets")
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ROLE_admin')")
+    public ResponseEntity<StreamingResponseBody> exportPets(
+        @RequestParam(defaultValue = "NDJSON") ExportFormat format
+    ) {
+        return format.attachment("pets", petService.exportPets(format));
     }
 
     @Operation(summary = "Update a pet")
@@ -59,6 +74,17 @@ public class PetController {
             .body(petService.updatePet(id, petRequestDTO, userDetails.getKeycloakId()));
     }
 
+    @Operation(summary = "Set a pet's photo from an uploaded picture")
+    @PutMapping("/{id}/photo")
+    public ResponseEntity<PetResponseDTO> updatePetPhoto(
+        @PathVariable Long id,
+        @Valid @RequestBody UploadConfirmDTO body,
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return ResponseEntity.ok(
+            petService.updatePetPhoto(id, body.uploadKey(), userDetails.getKeycloakId()));
+    }
+
     @Operation(summary = "Get pet by id")
     @GetMapping("/{id}")
     public ResponseEntity<PetResponseDTO> getPet(
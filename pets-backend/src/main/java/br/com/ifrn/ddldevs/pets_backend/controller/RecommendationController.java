@@ -1,8 +1,10 @@
 package br.com.ifrn.ddldevs.pets_backend.controller;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
+import br.com.ifrn.ddldevs.pets_backend.dto.CursorPageDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
 import br.com.ifrn.ddldevs.pets_backend.security.AuthUserDetails;
 import br.com.ifrn.ddldevs.pets_backend.service.RecommendationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,15 +12,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 
 import java.time.LocalDate;
-import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/recommendations")
@@ -34,7 +38,7 @@ public class RecommendationController {
         @Valid @RequestBody RecommendationRequestDTO recommendationRequestDTO,
         @AuthenticationPrincipal AuthUserDetails userDetails
     ) {
-        return ResponseEntity.status(HttpStatus.CREATED)
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
             .body(
                 recommendationService.createRecommendation(
                     recommendationRequestDTO,
@@ -46,8 +50,17 @@ public class RecommendationController {
     @GetMapping("/")
     @Operation(summary = "List recommendations")
     @PreAuthorize("hasAuthority('ROLE_admin')")
-    public List<RecommendationResponseDTO> listRecommendations() {
-        return recommendationService.listRecommendations();
+    public Page<RecommendationResponseDTO> listRecommendations(Pageable pageable) {
+        return recommendationService.listRecommendations(pageable);
+    }
+
+    @Operation(summary = "Export recommendations")
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ROLE_admin')")
+    public ResponseEntity<StreamingResponseBody> exportRecommendations(
+        @RequestParam(defaultValue = "NDJSON") ExportFormat format
+    ) {
+        return format.attachment("recommendations", recommendationService.exportRecommendations(format));
     }
 
     @GetMapping("/{id}")
@@ -59,6 +72,15 @@ public class RecommendationController {
         return recommendationService.getRecommendation(id, userDetails.getKeycloakId());
     }
 
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream the recommendation once it is generated")
+    public SseEmitter streamRecommendation(
+        @PathVariable Long id,
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return recommendationService.streamRecommendation(id, userDetails.getKeycloakId());
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete recommendation by id")
     public ResponseEntity<Void> deleteRecommendation(
@@ -83,4 +105,21 @@ public class RecommendationController {
             recommendationService.getAllByPetId(id, userDetails.getKeycloakId(), pageable, category, startDate, endDate)
         );
     }
+
+    @GetMapping("pet/{id}/cursor")
+    @Operation(summary = "Get recommendations by pet id, newest first, using a cursor instead of page numbers")
+    public ResponseEntity<CursorPageDTO<RecommendationResponseDTO>> getRecommendationsByPetIdCursor(
+                @PathVariable Long id,
+                @AuthenticationPrincipal AuthUserDetails userDetails,
+                @RequestParam(required = false) String cursor,
+                @RequestParam(defaultValue = "20") int size,
+                @RequestParam(required = false) String category,
+                @RequestParam(required = false)LocalDate startDate,
+                @RequestParam(required = false)LocalDate endDate
+            ) {
+        return ResponseEntity.status(HttpStatus.OK).body(
+            recommendationService.getAllByPetIdAfter(id, userDetails.getKeycloakId(), cursor, size, category,
+                startDate, endDate)
+        );
+    }
 }
\ No newline at end of file
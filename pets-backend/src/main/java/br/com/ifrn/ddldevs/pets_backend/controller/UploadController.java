@@ -0,0 +1,38 @@
+package br.com.ifrn.ddldevs.pets_backend.controller;
+
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadTicketDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadTicketRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.security.AuthUserDetails;
+import br.com.ifrn.ddldevs.pets_backend.service.DirectUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/uploads")
+@Tag(name = "Uploads", description = "API for direct picture uploads to storage")
+public class UploadController {
+
+    @Autowired
+    private DirectUploadService directUploadService;
+
+    @Operation(summary = "Get a pre-signed URL to upload a picture",
+        description = "PUT the picture to uploadUrl with the returned Content-Type and "
+            + "Content-Length, then confirm it with uploadKey")
+    @PostMapping("/")
+    public ResponseEntity<UploadTicketDTO> createUpload(
+        @Valid @RequestBody UploadTicketRequestDTO body,
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(directUploadService.issue(body, userDetails.getKeycloakId()));
+    }
+}
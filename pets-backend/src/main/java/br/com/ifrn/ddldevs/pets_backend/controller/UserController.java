@@ -1,24 +1,28 @@
 package br.com.ifrn.ddldevs.pets_backend.controller;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadConfirmDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.User.UserRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.User.UserResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.User.UserUpdateRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
 import br.com.ifrn.ddldevs.pets_backend.security.AuthUserDetails;
 import br.com.ifrn.ddldevs.pets_backend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/users")
@@ -31,8 +35,17 @@ public class UserController {
     @Operation(summary = "List users")
     @GetMapping("/")
     @PreAuthorize("hasAuthority('ROLE_admin')")
-    public ResponseEntity<List<UserResponseDTO>> getUsers() {
-        return ResponseEntity.ok(userService.listUsers());
+    public ResponseEntity<Page<UserResponseDTO>> getUsers(Pageable pageable) {
+        return ResponseEntity.ok(userService.listUsers(pageable));
+    }
+
+    @Operation(summary = "Export users")
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ROLE_admin')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+        @RequestParam(defaultValue = "NDJSON") ExportFormat format
+    ) {
+        return format.attachment("users", userService.exportUsers(format));
     }
 
     @Operation(summary = "Get logged user data")
@@ -66,6 +79,17 @@ public class UserController {
         return ResponseEntity.ok(userService.updateUser(id, body, userDetails.getKeycloakId()));
     }
 
+    @Operation(summary = "Set a user's photo from an uploaded picture")
+    @PutMapping("/{id}/photo")
+    public ResponseEntity<UserResponseDTO> updateUserPhoto(
+        @PathVariable Long id,
+        @Valid @RequestBody UploadConfirmDTO body,
+        @AuthenticationPrincipal AuthUserDetails userDetails
+    ) {
+        return ResponseEntity.ok(
+            userService.updateUserPhoto(id, body.uploadKey(), userDetails.getKeycloakId()));
+    }
+
     @Operation(summary = "Delete a user")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteUser(
@@ -84,17 +108,20 @@ public class UserController {
             @RequestParam(required = false) Species species,
             @RequestParam(required = false) String breed,
             @RequestParam(required = false) Gender gender,
+            @RequestParam(defaultValue = "CONTAINS") SearchMode match,
             Pageable pageable
     ) {
         return ResponseEntity.ok(userService.getPetsOfCurrentUser(
-                userDetails.getKeycloakId(), name, species, breed, gender, pageable));
+                userDetails.getKeycloakId(), name, species, breed, gender, match, pageable));
     }
 
     @Operation(summary = "Get all pets of a user")
     @GetMapping("/pets")
-    public ResponseEntity<List<PetResponseDTO>> getPets(
+    public ResponseEntity<StreamingResponseBody> getPets(
         @AuthenticationPrincipal AuthUserDetails userDetails
     ) {
-        return ResponseEntity.ok(userService.getPets(userDetails.getKeycloakId()));
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(userService.getPets(userDetails.getKeycloakId()));
     }
 }
@@ -0,0 +1,49 @@
+package br.com.ifrn.ddldevs.pets_backend.domain;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+@Entity
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+@Table(name = "analysis_outbox")
+public class AnalysisOutbox extends BaseEntity {
+
+    @Column(nullable = false)
+    private Long analysisId;
+
+    @Column(nullable = false, length = 128)
+    private String groupId;
+
+    @Column(nullable = false, length = 128)
+    private String deduplicationId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 512)
+    private String lastError;
+}
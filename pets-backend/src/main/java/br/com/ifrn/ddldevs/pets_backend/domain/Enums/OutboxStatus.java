@@ -0,0 +1,13 @@
+package br.com.ifrn.ddldevs.pets_backend.domain.Enums;
+
+public enum OutboxStatus {
+    WAITING("Aguardando upload"),
+    PENDING("Pendente"),
+    FAILED("Falhou");
+
+    private String description;
+
+    private OutboxStatus(String description) { this.description = description; }
+
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,13 @@
+package br.com.ifrn.ddldevs.pets_backend.domain.Enums;
+
+public enum RecommendationStatus {
+    PENDING("Em Geração"),
+    FAILURE("Geração Falhou"),
+    COMPLETED("Concluído");
+
+    private String description;
+
+    private RecommendationStatus(String description) { this.description = description; }
+
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,12 @@
+package br.com.ifrn.ddldevs.pets_backend.domain.Enums;
+
+public enum SearchMode {
+    CONTAINS("Contém"),
+    PREFIX("Começa com");
+
+    private String description;
+
+    private SearchMode(String description) { this.description = description; }
+
+    public String getDescription() { return description; }
+}
@@ -43,5 +43,9 @@ public class PetAnalysis extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
     private AnalysisStatus analysisStatus = AnalysisStatus.IN_ANALYSIS;
+
+    // SHA-256 of the submitted picture, used to spot resubmissions
+    @Column(length = 64)
+    private String contentHash;
 }
 
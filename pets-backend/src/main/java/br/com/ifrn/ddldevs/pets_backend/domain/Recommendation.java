@@ -1,6 +1,7 @@
 package br.com.ifrn.ddldevs.pets_backend.domain;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -10,6 +11,7 @@ import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -24,13 +26,18 @@ import lombok.experimental.SuperBuilder;
 @Table(name = "recommendations")
 public class Recommendation extends BaseEntity {
 
+    // null while the recommendation is being generated
     @Lob
-    @Column(nullable = false)
     private String recommendation;
 
     @Enumerated(EnumType.STRING)
     private RecommendationCategories categoryRecommendation;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private RecommendationStatus status = RecommendationStatus.PENDING;
+
     @ManyToOne
     @JoinColumn(name = "pet_id", nullable = false)
     private Pet pet;
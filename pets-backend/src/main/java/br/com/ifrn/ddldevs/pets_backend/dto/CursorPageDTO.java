@@ -0,0 +1,24 @@
+package br.com.ifrn.ddldevs.pets_backend.dto;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.BaseEntity;
+import br.com.ifrn.ddldevs.pets_backend.specifications.KeysetCursor;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageDTO<T>(
+    @Schema(description = "Items of this page, newest first") List<T> content,
+    @Schema(description = "Number of items requested per page", example = "20") int size,
+    @Schema(description = "Whether there are older items after this page", example = "true") boolean hasNext,
+    @Schema(description = "Opaque token to request the next page, null on the last page", example = "MjAyNC0xMi0wNVQxNDozMDowMHw0Mg") String nextCursor
+) {
+
+    // rows must be fetched with size + 1 as limit; the extra row only tells whether a next page exists
+    public static <E extends BaseEntity, T> CursorPageDTO<T> of(List<E> rows, int size,
+        Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? KeysetCursor.of(page.get(page.size() - 1)).encode() : null;
+        return new CursorPageDTO<>(page.stream().map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
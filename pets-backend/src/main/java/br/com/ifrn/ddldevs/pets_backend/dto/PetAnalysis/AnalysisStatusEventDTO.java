@@ -0,0 +1,16 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+// pushed to the owner's analysis stream when an analysis reaches a final status
+public record AnalysisStatusEventDTO(
+    @Schema(description = "Id of the owner of the pet", example = "1") Long userId,
+    @Schema(description = "Id of the Analysis", example = "1") Long id,
+    @Schema(description = "Id of the Pet", example = "1") Long petId,
+    @Schema(description = "Status of the Analysis", example = "COMPLETED") AnalysisStatus analysisStatus,
+    @Schema(description = "Result of the Analysis", example = "Feliz") String result,
+    @Schema(description = "Accuracy of the Analysis", example = "83.24") Double accuracy
+) {
+
+}
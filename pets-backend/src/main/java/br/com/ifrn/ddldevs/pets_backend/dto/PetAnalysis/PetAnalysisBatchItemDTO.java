@@ -0,0 +1,13 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record PetAnalysisBatchItemDTO(
+    @Schema(description = "Position of the picture in the request", example = "0") int index,
+    @Schema(description = "Id of the Analysis", example = "1") Long id,
+    @Schema(description = "Status of the Analysis", example = "IN_ANALYSIS") AnalysisStatus status,
+    @Schema(description = "Whether an earlier analysis of the same picture was returned") boolean reused
+) {
+
+}
@@ -0,0 +1,37 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.web.multipart.MultipartFile;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Schema(description = "Represents a request for several Pet Analyses of the same pet")
+public class PetAnalysisBatchRequestDTO {
+
+    @Schema(description = "Id of the Pet", example = "1")
+    @NotNull
+    @Valid
+    private Long petId;
+
+    @Valid
+    @NotEmpty
+    @Schema(description = "Pictures to analyse, one analysis each")
+    private List<MultipartFile> pictures;
+
+    @Valid
+    @NotNull
+    @Schema(description = "Type of the Analyses", example = "EMOTIONAL")
+    private AnalysisType analysisType;
+
+}
@@ -0,0 +1,15 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+@Schema(description = "Pet Analysis for a picture already uploaded through a pre-signed URL")
+public record PetAnalysisUploadDTO(
+    @NotNull @Schema(description = "Id of the Pet", example = "1") Long petId,
+    @NotBlank @Schema(description = "Key returned with the upload URL") String uploadKey,
+    @NotNull @Schema(description = "Type of the Analysis", example = "EMOTIONAL") AnalysisType analysisType
+) {
+
+}
@@ -1,6 +1,7 @@
 package br.com.ifrn.ddldevs.pets_backend.dto.Recommendation;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.LocalDateTime;
 
@@ -9,7 +10,8 @@ public record RecommendationResponseDTO(
     @Schema(description = "Date and time of the Recommendation creation", example = "2024-12-05T14:30:00Z") LocalDateTime createdAt,
     @Schema(description = "Date and time the Recommendation was last updated", example = "2024-12-05T14:30:00Z") LocalDateTime updatedAt,
     @Schema(description = "Details of the recommendation", example = "Feed your pet twice daily") String recommendation,
-    @Schema(description = "Category of the recommendation", example = "Health") RecommendationCategories categoryRecommendation
+    @Schema(description = "Category of the recommendation", example = "Health") RecommendationCategories categoryRecommendation,
+    @Schema(description = "Generation status of the recommendation", example = "COMPLETED") RecommendationStatus status
 ) {
 
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.Upload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+
+public record UploadConfirmDTO(
+    @NotBlank @Schema(description = "Key returned with the upload URL") String uploadKey
+) {
+
+}
@@ -0,0 +1,14 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.Upload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+
+public record UploadTicketDTO(
+    @Schema(description = "Key to send back when confirming the upload") String uploadKey,
+    @Schema(description = "Pre-signed URL the picture must be PUT to") String uploadUrl,
+    @Schema(description = "Content-Type header the PUT must carry", example = "image/jpeg") String contentType,
+    @Schema(description = "Content-Length the PUT must carry", example = "204800") long size,
+    @Schema(description = "When the URL stops accepting the upload") Instant expiresAt
+) {
+
+}
@@ -0,0 +1,13 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.Upload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record UploadTicketRequestDTO(
+    @NotBlank @Schema(description = "Content type of the picture", example = "image/jpeg") String contentType,
+    @NotNull @Positive @Schema(description = "Size of the picture in bytes", example = "204800") Long size
+) {
+
+}
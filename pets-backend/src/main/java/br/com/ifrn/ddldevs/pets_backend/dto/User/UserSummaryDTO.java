@@ -0,0 +1,6 @@
+package br.com.ifrn.ddldevs.pets_backend.dto.User;
+
+// the few user columns request handling needs, cached per keycloak id
+public record UserSummaryDTO(Long id, String keycloakId, String username) {
+
+}
@@ -0,0 +1,31 @@
+package br.com.ifrn.ddldevs.pets_backend.exception;
+
+public class RecommendationClientException extends RuntimeException {
+
+    // HTTP status of the microservice answer; null when there was no answer
+    private final Integer statusCode;
+
+    public RecommendationClientException(String message) {
+        super(message);
+        this.statusCode = null;
+    }
+
+    public RecommendationClientException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public RecommendationClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = null;
+    }
+
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+
+    // a 4xx is caused by the request, not by the microservice being unhealthy
+    public boolean isClientError() {
+        return statusCode != null && statusCode / 100 == 4;
+    }
+}
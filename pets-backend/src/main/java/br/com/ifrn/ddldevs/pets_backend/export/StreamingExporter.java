@@ -0,0 +1,152 @@
+package br.com.ifrn.ddldevs.pets_backend.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Writes repository streams to the response row by row, so memory stays constant however
+// many rows there are. The body runs after the controller returned, on another thread, so
+// each export opens its own read-only transaction: the database cursor behind the stream
+// only lives inside one.
+@Component
+public class StreamingExporter {
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int flushEvery;
+
+    public StreamingExporter(
+        ObjectMapper objectMapper,
+        PlatformTransactionManager transactionManager,
+        @Value("${export.flush-every:500}") int flushEvery
+    ) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.flushEvery = flushEvery;
+    }
+
+    // a single JSON array, the same document a List<T> response body would produce
+    public <T> StreamingResponseBody jsonArray(Supplier<Stream<T>> rows) {
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get();
+                JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.writeStartArray();
+                writeRows(stream, generator::writeObject, generator);
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public <T extends Record> StreamingResponseBody export(ExportFormat format, Class<T> type,
+        Supplier<Stream<T>> rows) {
+        return switch (format) {
+            case NDJSON -> ndjson(rows);
+            case CSV -> csv(type, rows);
+        };
+    }
+
+    // one JSON document per line, so clients can parse while the export is still running
+    public <T> StreamingResponseBody ndjson(Supplier<Stream<T>> rows) {
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<T> stream = rows.get();
+                JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Jackson puts a space between root values by default; the newline separates them
+                generator.setRootValueSeparator(null);
+                writeRows(stream, row -> {
+                    generator.writeObject(row);
+                    generator.writeRaw('\n');
+                }, generator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // header from the record components, then one line per row in the same order
+    public <T extends Record> StreamingResponseBody csv(Class<T> type, Supplier<Stream<T>> rows) {
+        RecordComponent[] columns = type.getRecordComponents();
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            // not closed: closing would close the response stream under the container
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            try (Stream<T> stream = rows.get()) {
+                for (int i = 0; i < columns.length; i++) {
+                    writeCsvField(writer, i, columns[i].getName());
+                }
+                writer.write("\r\n");
+                writeRows(stream, row -> {
+                    for (int i = 0; i < columns.length; i++) {
+                        Object value = read(columns[i], row);
+                        writeCsvField(writer, i, value == null ? "" : value.toString());
+                    }
+                    writer.write("\r\n");
+                }, writer);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> void writeRows(Stream<T> stream, RowWriter<T> rowWriter, Flushable target)
+        throws IOException {
+        Iterator<T> iterator = stream.iterator();
+        for (int written = 1; iterator.hasNext(); written++) {
+            rowWriter.write(iterator.next());
+            if (written % flushEvery == 0) {
+                target.flush();
+            }
+        }
+    }
+
+    private static void writeCsvField(Writer writer, int index, String value) throws IOException {
+        if (index > 0) {
+            writer.write(',');
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+            && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static Object read(RecordComponent column, Object row) {
+        try {
+            return column.getAccessor().invoke(row);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(
+                "Não foi possível ler a coluna " + column.getName() + " da exportação", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter<T> {
+
+        void write(T row) throws IOException;
+    }
+}
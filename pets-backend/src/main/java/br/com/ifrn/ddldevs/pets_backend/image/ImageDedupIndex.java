@@ -0,0 +1,112 @@
+package br.com.ifrn.ddldevs.pets_backend.image;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Finds earlier work for a picture by its content hash: an analysis of the same pet, picture
+// and type still inside the window is answered as is, and a picture already in S3 is not
+// uploaded again. Both are optimizations, so database errors on the object index degrade
+// to a miss; its statements run in their own transaction, since on Postgres a failed
+// statement would otherwise abort the caller's transaction as well.
+@Slf4j
+@Component
+public class ImageDedupIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final PetAnalysisRepository petAnalysisRepository;
+
+    private final TransactionTemplate ownTransaction;
+
+    private final Duration window;
+
+    private final Counter analysisHits;
+
+    private final Counter objectHits;
+
+    private final Counter misses;
+
+    public ImageDedupIndex(
+        JdbcTemplate jdbcTemplate,
+        PetAnalysisRepository petAnalysisRepository,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        @Value("${analysis.dedup.window:24h}") Duration window
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.petAnalysisRepository = petAnalysisRepository;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.window = window;
+
+        this.analysisHits = Counter.builder("pets.analysis.dedup")
+            .tag("result", "analysis")
+            .register(meterRegistry);
+        this.objectHits = Counter.builder("pets.analysis.dedup")
+            .tag("result", "object")
+            .register(meterRegistry);
+        this.misses = Counter.builder("pets.analysis.dedup")
+            .tag("result", "miss")
+            .register(meterRegistry);
+    }
+
+    // completed analyses are reused for their result, in-flight ones so a retry after a
+    // timeout does not start a second job
+    public Optional<PetAnalysis> findReusableAnalysis(Long petId, String contentHash,
+        AnalysisType analysisType) {
+        List<PetAnalysis> previous = petAnalysisRepository.findReusable(petId, contentHash,
+            analysisType, LocalDateTime.now().minus(window), PageRequest.of(0, 1));
+        if (previous.isEmpty()) {
+            return Optional.empty();
+        }
+        analysisHits.increment();
+        return Optional.of(previous.get(0));
+    }
+
+    public Optional<String> findStoredUrl(String contentHash) {
+        try {
+            List<String> urls = ownTransaction.execute(status -> jdbcTemplate.queryForList(
+                "SELECT url FROM image_objects WHERE content_hash = ?", String.class, contentHash));
+            if (urls != null && !urls.isEmpty()) {
+                objectHits.increment();
+                return Optional.of(urls.get(0));
+            }
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Falha ao consultar índice de imagens", e);
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    // only called once the object is in the bucket, so a hit never points at a missing key
+    public void recordStored(String contentHash, String url) {
+        try {
+            ownTransaction.executeWithoutResult(status -> jdbcTemplate.update("""
+                INSERT INTO image_objects (content_hash, url)
+                SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM image_objects WHERE content_hash = ?)
+                """, contentHash, url, contentHash));
+        } catch (DuplicateKeyException e) {
+            // a concurrent upload of the same picture recorded it first
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Falha ao registrar imagem {} no índice", contentHash, e);
+        }
+    }
+}
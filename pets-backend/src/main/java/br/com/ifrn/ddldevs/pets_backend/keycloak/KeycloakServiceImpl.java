@@ -9,8 +9,9 @@ import br.com.ifrn.ddldevs.pets_backend.dto.keycloak.RefreshTokenRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.exception.KeycloakException;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
 import jakarta.ws.rs.core.Response;
-import java.net.URI;
 import java.util.Collections;
+import java.util.Locale;
+import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.UserResource;
@@ -18,15 +19,8 @@ import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 public class KeycloakServiceImpl implements KeycloakService {
@@ -34,41 +28,26 @@ public class KeycloakServiceImpl implements KeycloakService {
     @Value("${keycloak.realm}")
     String realmName;
 
-    @Value("${keycloak.server-url}")
-    String serverUrl;
+    private final Keycloak keycloak;
 
-    @Value("${keycloak.client-id}")
-    String clientId;
+    private final KeycloakTokenClient tokenClient;
 
-    private final Keycloak keycloak;
+    private final KeycloakUserDirectory userDirectory;
 
-    public KeycloakServiceImpl(Keycloak keycloak) {
+    public KeycloakServiceImpl(
+        Keycloak keycloak,
+        KeycloakTokenClient tokenClient,
+        KeycloakUserDirectory userDirectory
+    ) {
         this.keycloak = keycloak;
+        this.tokenClient = tokenClient;
+        this.userDirectory = userDirectory;
     }
 
     @Override
     public String generateToken(LoginRequestDTO dto) {
-        HttpHeaders headers = new HttpHeaders();
-        RestTemplate rt = new RestTemplate();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.add("client_id", clientId);
-        formData.add("username", dto.username());
-        formData.add("password", dto.password());
-        formData.add("grant_type", "password");
-
-        HttpEntity<MultiValueMap<String, String>> entity =
-            new HttpEntity<MultiValueMap<String, String>>(formData, headers);
         try {
-            var response = rt.exchange(
-                serverUrl + "/realms/" + realmName + "/protocol/openid-connect/token",
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
-
-            return response.getBody();
+            return tokenClient.passwordGrant(dto.username(), dto.password());
         } catch (HttpClientErrorException e) {
             throw new KeycloakException("Dados não encontrados no Keycloak - " + e.getStatusCode());
         }
@@ -76,27 +55,8 @@ public class KeycloakServiceImpl implements KeycloakService {
 
     @Override
     public String refreshToken(RefreshTokenRequestDTO dto) {
-        HttpHeaders headers = new HttpHeaders();
-        RestTemplate rt = new RestTemplate();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.add("client_id", clientId);
-        formData.add("grant_type", "refresh_token");
-        formData.add("refresh_token", dto.refreshToken());
-
-        HttpEntity<MultiValueMap<String, String>> entity =
-            new HttpEntity<>(formData, headers);
-
         try {
-            var response = rt.exchange(
-                serverUrl + "/realms/" + realmName + "/protocol/openid-connect/token",
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
-
-            return response.getBody();
+            return tokenClient.refresh(dto.refreshToken());
         } catch (HttpClientErrorException e) {
             throw new KeycloakException("Erro ao tentar renovar o token - " + e.getStatusCode());
         }
@@ -105,25 +65,8 @@ public class KeycloakServiceImpl implements KeycloakService {
 
     @Override
     public String logout(LogoutRequestDTO dto) {
-        HttpHeaders headers = new HttpHeaders();
-        RestTemplate rt = new RestTemplate();
-        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-        MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
-        formData.add("client_id", clientId);
-        formData.add("refresh_token", dto.refresh_token());
-
-        HttpEntity<MultiValueMap<String, String>> entity =
-            new HttpEntity<MultiValueMap<String, String>>(formData, headers);
-
         try {
-            var response = rt.postForEntity(
-                serverUrl + "/realms/" + realmName + "/protocol/openid-connect/logout",
-                entity,
-                String.class
-            );
-
-            return response.getBody();
+            return tokenClient.logout(dto.refresh_token());
         } catch (HttpClientErrorException e) {
             throw new KeycloakException("Erro ao fazer logout no Keycloak" + e.getStatusCode());
         }
@@ -157,28 +100,17 @@ public class KeycloakServiceImpl implements KeycloakService {
             throw new KeycloakException("Grupo client não existente!");
         }
 
-        UsersResource usersResource = getUsersResource();
+        // the new id comes from the Location header; the response is built from what was
+        // sent, the way Keycloak stores it, instead of reading the user back
+        try (Response response = getUsersResource().create(user)) {
+            String userId = CreatedResponseUtil.getCreatedId(response);
 
-        try {
-            Response response = usersResource.create(user);
-            System.out.println("Response Status: " + response.getStatus());
-            System.out.println("Response Body: " + response.readEntity(String.class));
-
-            URI location = response.getLocation();
-            String userId = location.getPath().replaceAll(".*/([^/]+)$", "$1");
-
-            UserRepresentation createdUser = keycloak.realm(realmName)
-                .users()
-                .get(userId)
-                .toRepresentation();
-
-            return new KcUserResponseDTO(
-                createdUser.getId(),
-                createdUser.getUsername(),
-                createdUser.getEmail(),
-                createdUser.getFirstName(),
-                createdUser.getLastName()
-            );
+            user.setId(userId);
+            user.setUsername(lowerCase(user.getUsername()));
+            user.setEmail(lowerCase(user.getEmail()));
+            userDirectory.put(user);
+
+            return toResponseDTO(user);
         } catch (Exception e) {
             throw new RuntimeException("Error creating user: " + e.getMessage());
         }
@@ -188,7 +120,8 @@ public class KeycloakServiceImpl implements KeycloakService {
     public KcUserResponseDTO updateUser(String keycloakId, UserUpdateRequestDTO dto) {
         UserResource userResource = getUsersResource().get(keycloakId);
 
-        UserRepresentation userRepresentation = userResource.toRepresentation();
+        UserRepresentation userRepresentation = userDirectory.find(keycloakId)
+            .orElseGet(userResource::toRepresentation);
 
         userRepresentation.setEmail(dto.email());
         userRepresentation.setFirstName(dto.firstName());
@@ -197,16 +130,12 @@ public class KeycloakServiceImpl implements KeycloakService {
         try {
             userResource.update(userRepresentation);
 
-            UserRepresentation updatedUser = userResource.toRepresentation();
+            userRepresentation.setEmail(lowerCase(userRepresentation.getEmail()));
+            userDirectory.put(userRepresentation);
 
-            return new KcUserResponseDTO(
-                updatedUser.getId(),
-                updatedUser.getUsername(),
-                updatedUser.getEmail(),
-                updatedUser.getFirstName(),
-                updatedUser.getLastName()
-            );
+            return toResponseDTO(userRepresentation);
         } catch (Exception e) {
+            userDirectory.evict(keycloakId);
             throw new RuntimeException("Unexpected error while updating user: " + e.getMessage(),
                 e);
         }
@@ -219,6 +148,23 @@ public class KeycloakServiceImpl implements KeycloakService {
             userResource.remove();
         } catch (Exception e) {
             throw new ResourceNotFoundException(e.getMessage());
+        } finally {
+            userDirectory.evict(keycloakId);
         }
     }
+
+    private static KcUserResponseDTO toResponseDTO(UserRepresentation user) {
+        return new KcUserResponseDTO(
+            user.getId(),
+            user.getUsername(),
+            user.getEmail(),
+            user.getFirstName(),
+            user.getLastName()
+        );
+    }
+
+    // Keycloak stores usernames and emails in lower case
+    private static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
 }
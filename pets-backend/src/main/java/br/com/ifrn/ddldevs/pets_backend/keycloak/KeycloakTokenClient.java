@@ -0,0 +1,198 @@
+package br.com.ifrn.ddldevs.pets_backend.keycloak;
+
+import br.com.ifrn.ddldevs.pets_backend.resilience.DependencyGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+// Client for the realm's OpenID Connect token and logout endpoints. One JDK HttpClient is
+// shared, so the keep-alive pool to Keycloak is reused across logins and refreshes. Identical
+// refreshes in flight at the same time (e.g. an app resuming with several requests) are
+// coalesced into a single call whose response every caller gets.
+// Errors are reported as the RestTemplate exceptions the keycloak guard already classifies.
+@Component
+public class KeycloakTokenClient {
+
+    private final HttpClient httpClient;
+
+    private final DependencyGuard guard;
+
+    private final String clientId;
+
+    private final URI tokenUri;
+
+    private final URI logoutUri;
+
+    private final Duration readTimeout;
+
+    private final Map<String, CompletableFuture<String>> refreshesInFlight =
+        new ConcurrentHashMap<>();
+
+    private final Counter coalescedRefreshes;
+
+    private final MeterRegistry meterRegistry;
+
+    public KeycloakTokenClient(
+        MeterRegistry meterRegistry,
+        @Qualifier("keycloakGuard") DependencyGuard guard,
+        @Value("${keycloak.server-url}") String serverUrl,
+        @Value("${keycloak.realm}") String realm,
+        @Value("${keycloak.client-id}") String clientId,
+        @Value("${keycloak.token-client.connect-timeout:2s}") Duration connectTimeout,
+        @Value("${dependency.keycloak.timeout.max:5s}") Duration readTimeout
+    ) {
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout)
+            .build();
+        this.guard = guard;
+        this.clientId = clientId;
+        String endpoints = serverUrl + "/realms/" + realm + "/protocol/openid-connect/";
+        this.tokenUri = URI.create(endpoints + "token");
+        this.logoutUri = URI.create(endpoints + "logout");
+        this.readTimeout = readTimeout;
+        this.meterRegistry = meterRegistry;
+        this.coalescedRefreshes = Counter.builder("pets.keycloak.refresh.coalesced")
+            .register(meterRegistry);
+    }
+
+    public String passwordGrant(String username, String password) {
+        return post("token", tokenUri, form(
+            "grant_type", "password",
+            "username", username,
+            "password", password
+        ));
+    }
+
+    public String refresh(String refreshToken) {
+        if (refreshToken == null) {
+            return post("refresh", tokenUri, form("grant_type", "refresh_token"));
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = refreshesInFlight.putIfAbsent(refreshToken, mine);
+        if (inFlight != null) {
+            coalescedRefreshes.increment();
+            return await(inFlight);
+        }
+
+        try {
+            String body = post("refresh", tokenUri, form(
+                "grant_type", "refresh_token",
+                "refresh_token", refreshToken
+            ));
+            mine.complete(body);
+            return body;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshesInFlight.remove(refreshToken, mine);
+        }
+    }
+
+    public String logout(String refreshToken) {
+        return post("logout", logoutUri, form("refresh_token", refreshToken));
+    }
+
+    private String post(String endpoint, URI uri, Map<String, String> form) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(readTimeout)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .POST(HttpRequest.BodyPublishers.ofString(encode(form)))
+            .build();
+
+        return guard.call(() -> {
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                HttpResponse<String> response = httpClient.send(request,
+                    HttpResponse.BodyHandlers.ofString());
+                outcome = response.statusCode() / 100 + "xx";
+                return readResponse(response);
+            } catch (IOException e) {
+                throw new ResourceAccessException("Falha ao acessar o Keycloak: " + e.getMessage(), e);
+            } finally {
+                timer(endpoint, outcome).record(Duration.ofNanos(System.nanoTime() - start));
+            }
+        });
+    }
+
+    private static String readResponse(HttpResponse<String> response) {
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (status.is4xxClientError()) {
+            throw HttpClientErrorException.create(status, "", null,
+                response.body().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        }
+        if (status.isError()) {
+            throw HttpServerErrorException.create(status, "", null,
+                response.body().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        }
+        return response.body();
+    }
+
+    private static String await(CompletableFuture<String> inFlight) {
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Renovação de token interrompida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ResourceAccessException(e.getCause().getMessage());
+        }
+    }
+
+    private Map<String, String> form(String... pairs) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("client_id", clientId);
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i + 1] != null) {
+                form.put(pairs[i], pairs[i + 1]);
+            }
+        }
+        return form;
+    }
+
+    private static String encode(Map<String, String> form) {
+        return form.entrySet().stream()
+            .map(field -> URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "="
+                + URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+            .collect(Collectors.joining("&"));
+    }
+
+    // Micrometer returns the registered timer for repeated lookups
+    private Timer timer(String endpoint, String outcome) {
+        return Timer.builder("pets.keycloak.client")
+            .tag("endpoint", endpoint)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
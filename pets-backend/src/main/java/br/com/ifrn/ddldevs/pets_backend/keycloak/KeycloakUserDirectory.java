@@ -0,0 +1,84 @@
+package br.com.ifrn.ddldevs.pets_backend.keycloak;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Local copy of the Keycloak user representations this API manages. Every Keycloak user we
+// create has a row in users with the same profile fields, so a miss is filled from the
+// table instead of an admin GET, and writes update the entry with what was sent.
+@Component
+public class KeycloakUserDirectory {
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, UserRepresentation> representations;
+
+    public KeycloakUserDirectory(
+        UserRepository userRepository,
+        MeterRegistry meterRegistry,
+        @Value("${keycloak.user-directory.maximum-size:10000}") long maximumSize,
+        @Value("${keycloak.user-directory.ttl:30m}") Duration ttl
+    ) {
+        this.userRepository = userRepository;
+        this.representations = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, representations, "keycloakUsers");
+    }
+
+    // a copy, so callers can apply changes without touching the cached entry
+    public Optional<UserRepresentation> find(String keycloakId) {
+        UserRepresentation cached = representations.getIfPresent(keycloakId);
+        if (cached == null) {
+            cached = userRepository.findByKeycloakId(keycloakId)
+                .map(KeycloakUserDirectory::toRepresentation)
+                .orElse(null);
+            if (cached == null) {
+                return Optional.empty();
+            }
+            representations.put(keycloakId, cached);
+        }
+        return Optional.of(copy(cached));
+    }
+
+    public void put(UserRepresentation representation) {
+        representations.put(representation.getId(), copy(representation));
+    }
+
+    public void evict(String keycloakId) {
+        representations.invalidate(keycloakId);
+    }
+
+    static UserRepresentation toRepresentation(User user) {
+        UserRepresentation representation = new UserRepresentation();
+        representation.setId(user.getKeycloakId());
+        representation.setUsername(user.getUsername());
+        representation.setEmail(user.getEmail());
+        representation.setFirstName(user.getFirstName());
+        representation.setLastName(user.getLastName());
+        return representation;
+    }
+
+    // only the profile fields are kept; credentials, groups and the enabled and email-verified
+    // flags are never cached, so an update built from this copy leaves them as Keycloak has them
+    private static UserRepresentation copy(UserRepresentation source) {
+        UserRepresentation representation = new UserRepresentation();
+        representation.setId(source.getId());
+        representation.setUsername(source.getUsername());
+        representation.setEmail(source.getEmail());
+        representation.setFirstName(source.getFirstName());
+        representation.setLastName(source.getLastName());
+        return representation;
+    }
+}
@@ -15,6 +15,7 @@ public interface RecommendationMapper {
     @Mapping(target = "pet", ignore = true)
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "recommendation", ignore = true)
+    @Mapping(target = "status", ignore = true)
     Recommendation toEntity(RecommendationRequestDTO recommendationRequestDTO);
 
     List<RecommendationResponseDTO> toDTOList(List<Recommendation> recommendations);
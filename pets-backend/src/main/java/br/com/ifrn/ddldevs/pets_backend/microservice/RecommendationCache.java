@@ -0,0 +1,168 @@
+package br.com.ifrn.ddldevs.pets_backend.microservice;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Caches microservice answers by a fingerprint of the request body, so a pet whose profile
+// did not change gets the previous answer without another LLM round trip. The first tier is
+// in-memory; the optional second tier (recommendation_cache table) survives restarts and is
+// shared between instances.
+@Slf4j
+@Component
+public class RecommendationCache {
+
+    private final Cache<String, String> localCache;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectWriter canonicalWriter;
+
+    private final Duration ttl;
+
+    private final boolean databaseTierEnabled;
+
+    private final Counter localHits;
+
+    private final Counter databaseHits;
+
+    private final Counter misses;
+
+    public RecommendationCache(
+        ObjectMapper objectMapper,
+        JdbcTemplate jdbcTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${recommendation.cache.ttl:24h}") Duration ttl,
+        @Value("${recommendation.cache.maximum-size:10000}") long maximumSize,
+        @Value("${recommendation.cache.database.enabled:false}") boolean databaseTierEnabled
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.databaseTierEnabled = databaseTierEnabled;
+
+        // map keys sorted so equal bodies always produce the same bytes
+        this.canonicalWriter = objectMapper.copy()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .writerFor(Map.class);
+
+        this.localCache = Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "recommendations");
+
+        this.localHits = Counter.builder("pets.recommendation.cache")
+            .tag("result", "hit").tag("tier", "memory")
+            .register(meterRegistry);
+        this.databaseHits = Counter.builder("pets.recommendation.cache")
+            .tag("result", "hit").tag("tier", "database")
+            .register(meterRegistry);
+        this.misses = Counter.builder("pets.recommendation.cache")
+            .tag("result", "miss").tag("tier", "none")
+            .register(meterRegistry);
+    }
+
+    public String fingerprint(RecommendationCategories category, Map<String, Object> requestBody) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(category.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(canonicalWriter.writeValueAsBytes(requestBody));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Optional<String> get(String fingerprint) {
+        String cached = localCache.getIfPresent(fingerprint);
+        if (cached != null) {
+            localHits.increment();
+            return Optional.of(cached);
+        }
+
+        if (databaseTierEnabled) {
+            Optional<String> stored = findInDatabase(fingerprint);
+            if (stored.isPresent()) {
+                localCache.put(fingerprint, stored.get());
+                databaseHits.increment();
+                return stored;
+            }
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String fingerprint, RecommendationCategories category, String response) {
+        localCache.put(fingerprint, response);
+        if (databaseTierEnabled) {
+            saveInDatabase(fingerprint, category, response);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.cache.database.cleanup-interval-ms:3600000}")
+    public void evictExpired() {
+        if (databaseTierEnabled) {
+            jdbcTemplate.update("DELETE FROM recommendation_cache WHERE expires_at < ?",
+                Timestamp.valueOf(LocalDateTime.now()));
+        }
+    }
+
+    // the second tier is an optimization: database errors degrade to a miss
+    private Optional<String> findInDatabase(String fingerprint) {
+        try {
+            List<String> rows = jdbcTemplate.queryForList(
+                "SELECT response FROM recommendation_cache WHERE fingerprint = ? AND expires_at > ?",
+                String.class, fingerprint, Timestamp.valueOf(LocalDateTime.now()));
+            return rows.stream().findFirst();
+        } catch (DataAccessException e) {
+            log.warn("Falha ao consultar cache de recomendações", e);
+            return Optional.empty();
+        }
+    }
+
+    private void saveInDatabase(String fingerprint, RecommendationCategories category,
+        String response) {
+        try {
+            jdbcTemplate.update("""
+                INSERT INTO recommendation_cache
+                    (fingerprint, category_recommendation, response, expires_at)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (fingerprint) DO UPDATE
+                SET response = EXCLUDED.response, expires_at = EXCLUDED.expires_at
+                """,
+                fingerprint, category.name(), response,
+                Timestamp.valueOf(LocalDateTime.now().plus(ttl)));
+        } catch (DataAccessException e) {
+            log.warn("Falha ao gravar cache de recomendações", e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package br.com.ifrn.ddldevs.pets_backend.microservice;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.exception.RecommendationClientException;
+import br.com.ifrn.ddldevs.pets_backend.resilience.DependencyGuard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+// HTTP client for the recommendation microservice. A single JDK HttpClient is shared, so
+// its keep-alive connection pool is reused across requests instead of a new TCP/TLS
+// handshake per call.
+@Component
+public class RecommendationClient {
+
+    private final HttpClient httpClient;
+
+    private final String recommendationUrl;
+
+    private final Duration readTimeout;
+
+    private final ObjectWriter requestWriter;
+
+    private final ObjectReader responseReader;
+
+    private final Map<RecommendationCategories, Timer> successTimers =
+        new EnumMap<>(RecommendationCategories.class);
+
+    private final Map<RecommendationCategories, Timer> errorTimers =
+        new EnumMap<>(RecommendationCategories.class);
+
+    private final DependencyGuard guard;
+
+    public RecommendationClient(
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Qualifier("recommendationGuard") DependencyGuard guard,
+        @Value("${MICROSERVICE_BASE_URL:http://127.0.0.1:8000}") String baseUrl,
+        @Value("${recommendation.client.connect-timeout:2s}") Duration connectTimeout,
+        @Value("${recommendation.client.read-timeout:15s}") Duration readTimeout
+    ) {
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout)
+            .build();
+        this.recommendationUrl = baseUrl + "/recommendations/";
+        this.readTimeout = readTimeout;
+        this.guard = guard;
+        this.requestWriter = objectMapper.writerFor(Map.class);
+        this.responseReader = objectMapper.readerFor(JsonNode.class);
+
+        for (RecommendationCategories category : RecommendationCategories.values()) {
+            successTimers.put(category, timer(meterRegistry, category, "success"));
+            errorTimers.put(category, timer(meterRegistry, category, "error"));
+        }
+    }
+
+    // guarded by the recommendation bulkhead, circuit breaker and adaptive timeout
+    public String recommend(RecommendationCategories category, Map<String, Object> requestBody) {
+        return guard.call(() -> {
+            CompletableFuture<String> response = recommendAsync(category, requestBody);
+            try {
+                return response.get();
+            } catch (InterruptedException e) {
+                // the guard gave up on this call, so the exchange is aborted as well
+                response.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Requisição de recomendação interrompida", e);
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+        });
+    }
+
+    public CompletableFuture<String> recommendAsync(RecommendationCategories category,
+        Map<String, Object> requestBody) {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create(recommendationUrl + category.name().toLowerCase()))
+            .timeout(readTimeout)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(serialize(requestBody)))
+            .build();
+
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(this::readResponse)
+            .whenComplete((response, error) -> {
+                Timer timer = error == null ? successTimers.get(category) : errorTimers.get(category);
+                timer.record(Duration.ofNanos(System.nanoTime() - start));
+            });
+    }
+
+    private String readResponse(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new RecommendationClientException(
+                "Microsserviço respondeu com status " + response.statusCode(),
+                response.statusCode());
+        }
+        try {
+            JsonNode rootNode = responseReader.readValue(response.body());
+            return rootNode.path("response").asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] serialize(Map<String, Object> requestBody) {
+        try {
+            return requestWriter.writeValueAsBytes(requestBody);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new RecommendationClientException(cause.getMessage(), cause);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, RecommendationCategories category,
+        String outcome) {
+        return Timer.builder("pets.recommendation.client")
+            .tag("category", category.name())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
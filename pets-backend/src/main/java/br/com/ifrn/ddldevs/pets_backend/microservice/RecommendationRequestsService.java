@@ -1,19 +1,13 @@
 package br.com.ifrn.ddldevs.pets_backend.microservice;
 
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
 import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,31 +20,25 @@ public class RecommendationRequestsService {
     @Autowired
     private PetAnalysisRepository petAnalysisRepository;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final String recommendationUrl;
-
-    public RecommendationRequestsService(
-            @Value("${MICROSERVICE_BASE_URL:http://127.0.0.1:8000}") String baseUrl
-    ) {
-        this.recommendationUrl = baseUrl + "/recommendations/";
-    }
-
-    private void sendRequest(Recommendation recommendation, String suffix, Map<String, Object> requestBody) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    @Autowired
+    private RecommendationClient recommendationClient;
 
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-        try {
-            String jsonResponse = restTemplate.postForObject(recommendationUrl + suffix, request, String.class);
+    @Autowired
+    private RecommendationCache recommendationCache;
 
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(jsonResponse);
-            String recommendationText = rootNode.path("response").asText();
+    private String sendRequest(RecommendationCategories category, Map<String, Object> requestBody) {
+        String fingerprint = recommendationCache.fingerprint(category, requestBody);
 
-            recommendation.setRecommendation(recommendationText);
-        } catch (Exception e) {
-            recommendation.setRecommendation("Erro ao obter recomendação: " + e.getMessage());
+        Optional<String> cached = recommendationCache.get(fingerprint);
+        if (cached.isPresent()) {
+            return cached.get();
         }
+
+        // failures propagate so the caller can mark the recommendation as FAILURE; only
+        // successful answers are cached
+        String recommendationText = recommendationClient.recommend(category, requestBody);
+        recommendationCache.put(fingerprint, category, recommendationText);
+        return recommendationText;
     }
 
     private Map<String, Object> prepareCommonRequest(Recommendation recommendation) {
@@ -107,22 +95,12 @@ public class RecommendationRequestsService {
         return requestBody;
     }
 
-    public void updateRecommendation(Recommendation recommendation) {
-        switch (recommendation.getCategoryRecommendation()) {
-            case IMC:
-                sendRequest(recommendation, "imc", prepareIMCRequest(recommendation));
-                break;
-            case HEALTH:
-            case ACTIVITIES:
-                sendRequest(recommendation, recommendation.getCategoryRecommendation().name().toLowerCase(), prepareWithEmotionRequest(recommendation));
-                break;
-            case TRAINING:
-            case PRODUCTS:
-                sendRequest(recommendation, recommendation.getCategoryRecommendation().name().toLowerCase(), prepareCommonRequest(recommendation));
-                break;
-            default:
-                recommendation.setRecommendation("Categoria não suportada");
-                break;
-        }
+    public String generateRecommendation(Recommendation recommendation) {
+        RecommendationCategories category = recommendation.getCategoryRecommendation();
+        return switch (category) {
+            case IMC -> sendRequest(category, prepareIMCRequest(recommendation));
+            case HEALTH, ACTIVITIES -> sendRequest(category, prepareWithEmotionRequest(recommendation));
+            case TRAINING, PRODUCTS -> sendRequest(category, prepareCommonRequest(recommendation));
+        };
     }
 }
@@ -0,0 +1,173 @@
+package br.com.ifrn.ddldevs.pets_backend.notification;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Cross-instance signals over Postgres LISTEN/NOTIFY, used to keep per-instance caches
+// coherent. publish() runs pg_notify on the caller's connection, so inside a transaction the
+// notification is only delivered after commit. One dedicated connection outside the pool
+// listens on every subscribed channel; after it is lost, subscribers are told to resync
+// because notifications sent in the meantime are gone.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "pg.notify.enabled", havingValue = "true", matchIfMissing = true)
+public class PgNotificationBus {
+
+    public interface Listener {
+
+        void onNotification(String payload);
+
+        // notifications may have been missed, e.g. after a reconnect
+        default void onResync() {
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final Duration pollInterval;
+
+    private final Duration reconnectDelay;
+
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    private final Set<String> listening = ConcurrentHashMap.newKeySet();
+
+    private final boolean supported;
+
+    private volatile boolean running;
+
+    private Thread listenerThread;
+
+    public PgNotificationBus(
+        JdbcTemplate jdbcTemplate,
+        DataSourceProperties dataSourceProperties,
+        @Value("${pg.notify.poll-interval:500ms}") Duration pollInterval,
+        @Value("${pg.notify.reconnect-delay:5s}") Duration reconnectDelay
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.pollInterval = pollInterval;
+        this.reconnectDelay = reconnectDelay;
+        this.supported = dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+    }
+
+    public void subscribe(String channel, Listener listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void publish(String channel, String payload) {
+        if (!supported) {
+            return;
+        }
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!supported) {
+            log.info("LISTEN/NOTIFY indisponível para {}, caches ficam locais",
+                dataSourceProperties.determineUrl());
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform().daemon().name("pg-notify-listener").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                dataSourceProperties.determineUrl(), dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword())) {
+                listening.clear();
+                if (connectedBefore) {
+                    resyncAll();
+                }
+                connectedBefore = true;
+                listen(connection);
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Conexão LISTEN perdida, reconectando em {}: {}", reconnectDelay,
+                        e.getMessage());
+                }
+            }
+            if (running) {
+                sleep(reconnectDelay);
+            }
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+            for (String channel : listeners.keySet()) {
+                if (listening.add(channel)) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("LISTEN \"" + channel.replace("\"", "\"\"") + "\"");
+                    }
+                }
+            }
+
+            PGNotification[] notifications = pgConnection.getNotifications(
+                (int) pollInterval.toMillis());
+            if (notifications == null) {
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                dispatch(notification.getName(), notification.getParameter());
+            }
+        }
+    }
+
+    private void dispatch(String channel, String payload) {
+        for (Listener listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.onNotification(payload);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao processar notificação do canal {}", channel, e);
+            }
+        }
+    }
+
+    private void resyncAll() {
+        listeners.values().forEach(channelListeners ->
+            channelListeners.forEach(Listener::onResync));
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
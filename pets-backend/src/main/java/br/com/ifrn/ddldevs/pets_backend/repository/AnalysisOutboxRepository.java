@@ -0,0 +1,59 @@
+package br.com.ifrn.ddldevs.pets_backend.repository;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.AnalysisOutbox;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface AnalysisOutboxRepository extends JpaRepository<AnalysisOutbox, Long> {
+
+    // lock timeout -2 is Hibernate's SKIP LOCKED: concurrent relays claim disjoint rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT o FROM AnalysisOutbox o
+        WHERE o.status = :status
+        AND o.nextAttemptAt <= :now
+        ORDER BY o.id
+    """)
+    List<AnalysisOutbox> lockNextBatch(@Param("status") OutboxStatus status,
+        @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE AnalysisOutbox o
+        SET o.status = :to, o.nextAttemptAt = CURRENT_TIMESTAMP, o.updatedAt = CURRENT_TIMESTAMP
+        WHERE o.analysisId = :analysisId AND o.status = :from
+    """)
+    int updateStatusByAnalysisId(@Param("analysisId") Long analysisId,
+        @Param("from") OutboxStatus from, @Param("to") OutboxStatus to);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE AnalysisOutbox o
+        SET o.status = :to, o.nextAttemptAt = CURRENT_TIMESTAMP, o.updatedAt = CURRENT_TIMESTAMP
+        WHERE o.analysisId IN :analysisIds AND o.status = :from
+    """)
+    int updateStatusByAnalysisIds(@Param("analysisIds") Collection<Long> analysisIds,
+        @Param("from") OutboxStatus from, @Param("to") OutboxStatus to);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AnalysisOutbox o WHERE o.analysisId = :analysisId")
+    int deleteByAnalysisId(@Param("analysisId") Long analysisId);
+}
@@ -0,0 +1,68 @@
+package br.com.ifrn.ddldevs.pets_backend.repository;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+// Hibernate cannot batch inserts of IDENTITY entities, so a multi-picture submission writes
+// its rows here in one JDBC batch and reads the generated ids back in insert order.
+@Repository
+public class PetAnalysisBatchRepository {
+
+    private static final String INSERT = """
+        INSERT INTO pet_analisys
+            (pet_id, picture, analysis_type, analysis_status, content_hash, created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PetAnalysisBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // joins the caller's transaction; ids and timestamps are set on the given analyses
+    public void insertAll(List<PetAnalysis> analyses) {
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    PetAnalysis analysis = analyses.get(i);
+                    ps.setLong(1, analysis.getPet().getId());
+                    ps.setString(2, analysis.getPicture());
+                    ps.setString(3, analysis.getAnalysisType().name());
+                    ps.setString(4, analysis.getAnalysisStatus().name());
+                    ps.setString(5, analysis.getContentHash());
+                    ps.setTimestamp(6, Timestamp.valueOf(now));
+                    ps.setTimestamp(7, Timestamp.valueOf(now));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return analyses.size();
+                }
+            },
+            keys
+        );
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < analyses.size(); i++) {
+            PetAnalysis analysis = analyses.get(i);
+            analysis.setId(((Number) generated.get(i).get("id")).longValue());
+            analysis.setCreatedAt(now);
+            analysis.setUpdatedAt(now);
+        }
+    }
+}
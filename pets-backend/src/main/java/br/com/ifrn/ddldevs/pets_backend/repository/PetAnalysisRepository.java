@@ -1,17 +1,29 @@
 package br.com.ifrn.ddldevs.pets_backend.repository;
 
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
 import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PetAnalysisRepository extends JpaRepository<PetAnalysis, Long>, JpaSpecificationExecutor<PetAnalysis>{
@@ -20,9 +32,57 @@ public interface PetAnalysisRepository extends JpaRepository<PetAnalysis, Long>,
         SELECT p FROM PetAnalysis p 
         WHERE p.pet.id = :petId 
         AND p.createdAt >= :oneMonthAgo 
-        AND (p.analysisType = 'DOG_EMOTIONAL' OR p.analysisType = 'CAT_EMOTIONAL')
-        AND (p.analysisStatus = 'COMPLETED')
+        AND p.analysisType = br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType.EMOTIONAL
+        AND p.analysisStatus = br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus.COMPLETED
         ORDER BY p.createdAt DESC
     """)
     List<PetAnalysis> findRecentEmotionalAnalyses(@Param("petId") Long petId, @Param("oneMonthAgo") LocalDateTime oneMonthAgo, Pageable pg);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE PetAnalysis p SET p.analysisStatus = :status, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int updateAnalysisStatus(@Param("id") Long id, @Param("status") AnalysisStatus status);
+
+    @Query("""
+        SELECT a FROM PetAnalysis a
+        JOIN FETCH a.pet
+        WHERE a.id IN :ids
+    """)
+    List<PetAnalysis> findAllWithPetByIdIn(@Param("ids") Collection<Long> ids);
+
+    // what the owner's analysis stream is told about a status change
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO(
+            p.user.id, a.id, p.id, a.analysisStatus, a.result, a.accuracy)
+        FROM PetAnalysis a JOIN a.pet p
+        WHERE a.id = :id
+    """)
+    Optional<AnalysisStatusEventDTO> findStatusEvent(@Param("id") Long id);
+
+    // newest analysis of the same picture and type that did not fail
+    @Query("""
+        SELECT a FROM PetAnalysis a
+        WHERE a.contentHash = :contentHash
+        AND a.pet.id = :petId
+        AND a.analysisType = :analysisType
+        AND a.createdAt >= :since
+        AND a.analysisStatus <> br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus.FAILURE
+        ORDER BY a.createdAt DESC
+    """)
+    List<PetAnalysis> findReusable(@Param("petId") Long petId,
+        @Param("contentHash") String contentHash, @Param("analysisType") AnalysisType analysisType,
+        @Param("since") LocalDateTime since, Pageable pg);
+
+    // admin export; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQuery.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO(a.id,
+            a.createdAt, a.updatedAt, a.picture, a.result, a.accuracy, a.analysisType,
+            a.analysisStatus)
+        FROM PetAnalysis a ORDER BY a.id
+        """)
+    Stream<PetAnalysisResponseDTO> streamAll();
 }
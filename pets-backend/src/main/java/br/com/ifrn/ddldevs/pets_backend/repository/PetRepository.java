@@ -1,13 +1,51 @@
 package br.com.ifrn.ddldevs.pets_backend.repository;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO;
+import jakarta.persistence.QueryHint;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PetRepository extends JpaRepository<Pet, Long>, JpaSpecificationExecutor<Pet> {
     Page<Pet> findAll(Pageable pageable);
+
+    // ownership check without loading the Pet or User entities
+    @Query("SELECT u.keycloakId FROM Pet p JOIN p.user u WHERE p.id = :id")
+    Optional<String> findOwnerKeycloakIdById(@Param("id") Long id);
+
+    // read straight into DTOs through a cursor; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQuery.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO(p.id, p.createdAt,
+            p.updatedAt, p.name, p.gender, p.birthdate, p.weight, p.breed, p.species, p.height,
+            p.photoUrl)
+        FROM Pet p WHERE p.user.id = :userId ORDER BY p.id
+        """)
+    Stream<PetResponseDTO> streamByUserId(@Param("userId") Long userId);
+
+    // admin export; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQuery.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO(p.id, p.createdAt,
+            p.updatedAt, p.name, p.gender, p.birthdate, p.weight, p.breed, p.species, p.height,
+            p.photoUrl)
+        FROM Pet p ORDER BY p.id
+        """)
+    Stream<PetResponseDTO> streamAll();
 }
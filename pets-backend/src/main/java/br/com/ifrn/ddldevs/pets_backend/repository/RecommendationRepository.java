@@ -1,13 +1,64 @@
 package br.com.ifrn.ddldevs.pets_backend.repository;
 
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
+import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface RecommendationRepository extends JpaRepository<Recommendation, Long>, JpaSpecificationExecutor<Recommendation> {
     Page<Recommendation> findAll(Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("""
+        SELECT r FROM Recommendation r
+        JOIN FETCH r.pet
+        WHERE r.id = :id
+    """)
+    Optional<Recommendation> findWithPetById(@Param("id") Long id);
+
+    // only a PENDING row is finished, so a deleted or already finished one is left alone
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Recommendation r
+        SET r.status = :status, r.recommendation = :text, r.updatedAt = CURRENT_TIMESTAMP
+        WHERE r.id = :id AND r.status = br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus.PENDING
+    """)
+    int finishRecommendation(@Param("id") Long id, @Param("status") RecommendationStatus status,
+        @Param("text") String text);
+
+    @Query("""
+        SELECT r.id FROM Recommendation r
+        WHERE r.status = br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus.PENDING
+        AND r.createdAt < :before
+        ORDER BY r.id
+    """)
+    List<Long> findPendingIdsCreatedBefore(@Param("before") LocalDateTime before, Pageable page);
+
+    // admin export; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQuery.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO(
+            r.id, r.createdAt, r.updatedAt, r.recommendation, r.categoryRecommendation, r.status)
+        FROM Recommendation r ORDER BY r.id
+        """)
+    Stream<RecommendationResponseDTO> streamAll();
+}
@@ -0,0 +1,11 @@
+package br.com.ifrn.ddldevs.pets_backend.repository;
+
+// hint values for queries returning Stream<T>; without a fetch size the Postgres driver
+// reads the whole result into memory before the first row is returned
+public final class StreamingQuery {
+
+    public static final String FETCH_SIZE = "500";
+
+    private StreamingQuery() {
+    }
+}
@@ -1,12 +1,39 @@
 package br.com.ifrn.ddldevs.pets_backend.repository;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserSummaryDTO;
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByKeycloakId(String keycloakId);
     Boolean existsByKeycloakId(String keycloakId);
+
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.User.UserSummaryDTO(u.id, u.keycloakId, u.username)
+        FROM User u WHERE u.keycloakId = :keycloakId
+        """)
+    Optional<UserSummaryDTO> findSummaryByKeycloakId(@Param("keycloakId") String keycloakId);
+
+    // admin export; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StreamingQuery.FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new br.com.ifrn.ddldevs.pets_backend.dto.User.UserResponseDTO(u.id, u.createdAt,
+            u.updatedAt, u.username, u.keycloakId, u.email, u.firstName, u.lastName, u.dateOfBirth,
+            u.photoUrl)
+        FROM User u ORDER BY u.id
+        """)
+    Stream<UserResponseDTO> streamAll();
 }
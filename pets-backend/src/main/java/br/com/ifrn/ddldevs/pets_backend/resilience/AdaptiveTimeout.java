@@ -0,0 +1,52 @@
+package br.com.ifrn.ddldevs.pets_backend.resilience;
+
+import java.time.Duration;
+
+// Timeout that follows the dependency's observed latency, computed like TCP's retransmission
+// timeout: an EWMA of the latency plus four times an EWMA of its deviation, clamped to
+// [min, max]. A healthy dependency gets a tight timeout, a slow one is not cut off early.
+public class AdaptiveTimeout {
+
+    private static final double ALPHA = 0.125;
+
+    private static final double BETA = 0.25;
+
+    private final long minNanos;
+
+    private final long maxNanos;
+
+    private double smoothedNanos;
+
+    private double deviationNanos;
+
+    private boolean sampled;
+
+    public AdaptiveTimeout(Duration min, Duration max) {
+        if (min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("min deve ser menor ou igual a max");
+        }
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+    }
+
+    public synchronized void record(Duration latency) {
+        double sample = latency.toNanos();
+        if (!sampled) {
+            smoothedNanos = sample;
+            deviationNanos = sample / 2;
+            sampled = true;
+            return;
+        }
+        deviationNanos = (1 - BETA) * deviationNanos + BETA * Math.abs(smoothedNanos - sample);
+        smoothedNanos = (1 - ALPHA) * smoothedNanos + ALPHA * sample;
+    }
+
+    // until the first sample arrives the maximum is used
+    public synchronized Duration current() {
+        if (!sampled) {
+            return Duration.ofNanos(maxNanos);
+        }
+        long timeout = (long) (smoothedNanos + 4 * deviationNanos);
+        return Duration.ofNanos(Math.max(minNanos, Math.min(maxNanos, timeout)));
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.ifrn.ddldevs.pets_backend.resilience;
+
+import br.com.ifrn.ddldevs.pets_backend.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+// Wraps every call to one external dependency with a bulkhead (bounded concurrency), a
+// circuit breaker and an adaptive timeout. Calls that cannot get a slot, hit an open circuit
+// or time out fail fast with ServiceUnavailableException (503) instead of holding a Tomcat
+// worker for as long as the dependency takes.
+public class DependencyGuard implements AutoCloseable {
+
+    private final String name;
+
+    private final Bulkhead bulkhead;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final AdaptiveTimeout timeout;
+
+    // which errors mean the dependency is unhealthy; anything else (e.g. a 4xx) is the
+    // caller's problem and counts as a successful round trip
+    private final Predicate<Throwable> isFailure;
+
+    // the call runs on a virtual thread so it can be abandoned on timeout; interrupting a
+    // virtual thread blocked on socket I/O closes the socket
+    private final ExecutorService executor;
+
+    public DependencyGuard(String name, Bulkhead bulkhead, CircuitBreaker circuitBreaker,
+        AdaptiveTimeout timeout, Predicate<Throwable> isFailure) {
+        this.name = name;
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.timeout = timeout;
+        this.isFailure = isFailure;
+        this.executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name(name + "-call-", 0).factory()
+        );
+    }
+
+    public <T> T call(Callable<T> call) {
+        if (!bulkhead.tryAcquirePermission()) {
+            throw new ServiceUnavailableException(
+                "Serviço " + name + " sobrecarregado, tente novamente em instantes");
+        }
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                throw new ServiceUnavailableException(
+                    "Serviço " + name + " indisponível, tente novamente em instantes");
+            }
+            return callWithTimeout(call);
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    private <T> T callWithTimeout(Callable<T> call) {
+        Duration limit = timeout.current();
+        long start = System.nanoTime();
+        Future<T> future = executor.submit(call);
+        try {
+            T result = future.get(limit.toNanos(), TimeUnit.NANOSECONDS);
+            long elapsed = System.nanoTime() - start;
+            circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            timeout.record(Duration.ofNanos(elapsed));
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            // a timeout counts as a sample at the limit so the estimate backs off
+            timeout.record(limit);
+            throw new ServiceUnavailableException(
+                "Serviço " + name + " não respondeu em " + limit.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            long elapsed = System.nanoTime() - start;
+            if (isFailure.test(cause)) {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, cause);
+            } else {
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                timeout.record(Duration.ofNanos(elapsed));
+            }
+            throw rethrow(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Chamada ao serviço " + name + " interrompida");
+        }
+    }
+
+    private RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new ServiceUnavailableException(
+            "Falha ao chamar o serviço " + name + ": " + cause.getMessage());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    public Duration currentTimeout() {
+        return timeout.current();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
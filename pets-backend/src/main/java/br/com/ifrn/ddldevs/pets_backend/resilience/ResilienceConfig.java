@@ -0,0 +1,71 @@
+package br.com.ifrn.ddldevs.pets_backend.resilience;
+
+import br.com.ifrn.ddldevs.pets_backend.exception.RecommendationClientException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+// One guard per external dependency. Circuit breaker and bulkhead settings come from the
+// resilience4j.* properties, and their state is published on /actuator/circuitbreakers,
+// /actuator/bulkheads and /actuator/health.
+@Configuration
+public class ResilienceConfig {
+
+    @Bean(destroyMethod = "close")
+    public DependencyGuard recommendationGuard(
+        CircuitBreakerRegistry circuitBreakerRegistry,
+        BulkheadRegistry bulkheadRegistry,
+        MeterRegistry meterRegistry,
+        @Value("${dependency.recommendation.timeout.min:1s}") Duration minTimeout,
+        @Value("${dependency.recommendation.timeout.max:15s}") Duration maxTimeout
+    ) {
+        return guard("recommendation", circuitBreakerRegistry, bulkheadRegistry, meterRegistry,
+            new AdaptiveTimeout(minTimeout, maxTimeout), ResilienceConfig::isRecommendationFailure);
+    }
+
+    // 5xx answers and I/O errors; timeouts are counted by the guard itself. A 4xx comes from
+    // a bad request, so a burst of them must not open the circuit for everyone
+    static boolean isRecommendationFailure(Throwable error) {
+        if (error instanceof RecommendationClientException clientException) {
+            return !clientException.isClientError();
+        }
+        return error instanceof IOException || error instanceof UncheckedIOException;
+    }
+
+    @Bean(destroyMethod = "close")
+    public DependencyGuard keycloakGuard(
+        CircuitBreakerRegistry circuitBreakerRegistry,
+        BulkheadRegistry bulkheadRegistry,
+        MeterRegistry meterRegistry,
+        @Value("${dependency.keycloak.timeout.min:500ms}") Duration minTimeout,
+        @Value("${dependency.keycloak.timeout.max:5s}") Duration maxTimeout
+    ) {
+        return guard("keycloak", circuitBreakerRegistry, bulkheadRegistry, meterRegistry,
+            new AdaptiveTimeout(minTimeout, maxTimeout),
+            error -> error instanceof ResourceAccessException
+                || error instanceof HttpServerErrorException);
+    }
+
+    private static DependencyGuard guard(String name, CircuitBreakerRegistry circuitBreakerRegistry,
+        BulkheadRegistry bulkheadRegistry, MeterRegistry meterRegistry, AdaptiveTimeout timeout,
+        Predicate<Throwable> isFailure) {
+        DependencyGuard guard = new DependencyGuard(name, bulkheadRegistry.bulkhead(name),
+            circuitBreakerRegistry.circuitBreaker(name), timeout, isFailure);
+
+        Gauge.builder("pets.dependency.timeout", guard, g -> g.currentTimeout().toMillis())
+            .tag("dependency", name)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+        return guard;
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+// Keeps tokens that already passed signature and claim validation until they expire, so a
+// client sending the same access token on every request pays for the RSA check only once.
+// Tokens that fail validation are never cached.
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+
+    private final Clock clock;
+
+    private final Cache<String, Jwt> validated;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, meterRegistry, Clock.systemUTC());
+    }
+
+    CachingJwtDecoder(JwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry,
+        Clock clock) {
+        this.delegate = delegate;
+        this.clock = clock;
+        this.validated = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(TokenCaches.<String, Jwt>untilExpiry(Jwt::getExpiresAt, clock))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validated, "jwtDecoder");
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        String key = TokenCaches.key(token);
+        Jwt jwt = validated.getIfPresent(key);
+        if (jwt != null && TokenCaches.isLive(jwt.getExpiresAt(), clock)) {
+            return jwt;
+        }
+
+        jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null) {
+            validated.put(key, jwt);
+        }
+        return jwt;
+    }
+}
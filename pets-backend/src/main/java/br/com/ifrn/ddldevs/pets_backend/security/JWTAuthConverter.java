@@ -1,11 +1,19 @@
 package br.com.ifrn.ddldevs.pets_backend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
 import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
@@ -17,73 +25,105 @@ import org.springframework.stereotype.Component;
 
 // transforms the JWT token received from Keycloak into a CustomAuthToken instance
 // see Jwt token roles in https://jwt.io/
+// The principal built for a token is cached by token hash until the token expires; the
+// returned CustomAuthToken is always a new instance because the filter chain mutates it.
 
 @Component
 public class JWTAuthConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
-    @Value("${keycloak.client-id}")
-    String keycloakClientId;
+    private final String keycloakClientId;
 
     private final JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter =
         new JwtGrantedAuthoritiesConverter();
 
+    private final Clock clock;
+
+    private final Cache<String, Conversion> conversions;
+
+    private final Timer convertTimer;
+
+    @Autowired
+    public JWTAuthConverter(
+        MeterRegistry meterRegistry,
+        @Value("${keycloak.client-id}") String keycloakClientId,
+        @Value("${security.jwt.cache.enabled:true}") boolean cacheEnabled,
+        @Value("${security.jwt.cache.maximum-size:10000}") long maximumSize
+    ) {
+        this(meterRegistry, keycloakClientId, cacheEnabled ? maximumSize : 0, Clock.systemUTC());
+    }
+
+    JWTAuthConverter(MeterRegistry meterRegistry, String keycloakClientId, long maximumSize,
+        Clock clock) {
+        this.keycloakClientId = keycloakClientId;
+        this.clock = clock;
+        this.conversions = maximumSize > 0
+            ? Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(TokenCaches.<String, Conversion>untilExpiry(Conversion::expiresAt, clock))
+                .recordStats()
+                .build()
+            : null;
+        if (conversions != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, conversions, "jwtConversions");
+        }
+        this.convertTimer = Timer.builder("pets.security.jwt.convert")
+            .register(meterRegistry);
+    }
+
     @Override
     public AbstractAuthenticationToken convert(@NonNull Jwt jwt) {
-        Collection<GrantedAuthority> authorities = Stream.concat(
-            Stream.concat(
-                jwtGrantedAuthoritiesConverter.convert(jwt).stream(),
-                extractResourceRoles(jwt).stream()
-            ),
-            extractRealmRoles(jwt).stream()
-        ).collect(Collectors.toSet());
+        long start = System.nanoTime();
+        try {
+            AuthUserDetails authUserDetails = conversion(jwt).user();
+            return new CustomAuthToken(
+                authUserDetails,
+                null,
+                authUserDetails.getAuthorities()
+            );
+        } finally {
+            convertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Conversion conversion(Jwt jwt) {
+        if (conversions == null || !TokenCaches.isLive(jwt.getExpiresAt(), clock)) {
+            return toConversion(jwt);
+        }
+        return conversions.get(TokenCaches.key(jwt.getTokenValue()), key -> toConversion(jwt));
+    }
+
+    private Conversion toConversion(Jwt jwt) {
+        Set<GrantedAuthority> authorities = new HashSet<>(jwtGrantedAuthoritiesConverter.convert(jwt));
+        addRoles(authorities, resourceAccess(jwt));
+        addRoles(authorities, jwt.getClaim("realm_access"));
 
         var authUserDetails = new AuthUserDetails(
             jwt.getClaimAsString("sub"),
             jwt.getClaimAsString("preferred_username"),
-            authorities
-        );
-
-        return new CustomAuthToken(
-            authUserDetails,
-            null,
-            authorities
+            Set.copyOf(authorities)
         );
+        return new Conversion(authUserDetails, jwt.getExpiresAt());
     }
 
     @SuppressWarnings("unchecked")
-    private Collection<? extends GrantedAuthority> extractResourceRoles(Jwt jwt) {
-        Map<String, Object> resourceAccess;
-        Map<String, Object> resource;
-        Collection<String> resourceRoles;
-
-        if (jwt.getClaim("resource_access") == null) {
-            return Set.of();
+    private Map<String, Object> resourceAccess(Jwt jwt) {
+        Map<String, Object> resourceAccess = jwt.getClaim("resource_access");
+        if (resourceAccess == null) {
+            return null;
         }
-
-        resourceAccess = jwt.getClaim("resource_access");
-        if (resourceAccess.get(keycloakClientId) == null) {
-            return Set.of();
-        }
-        resource = (Map<String, Object>) resourceAccess.get(keycloakClientId);
-
-        resourceRoles = (Collection<String>) resource.get("roles");
-        return resourceRoles
-            .stream()
-            .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-            .collect(Collectors.toSet());
+        return (Map<String, Object>) resourceAccess.get(keycloakClientId);
     }
 
-    @SuppressWarnings("unchecked")
-    private Collection<? extends GrantedAuthority> extractRealmRoles(Jwt jwt) {
-        if (jwt.getClaim("realm_access") == null) {
-            return Set.of();
+    private static void addRoles(Set<GrantedAuthority> authorities, Map<String, Object> access) {
+        if (access == null || !(access.get("roles") instanceof Collection<?> roles)) {
+            return;
         }
+        for (Object role : roles) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+    }
 
-        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
-        Collection<String> realmRoles = (Collection<String>) realmAccess.get("roles");
+    private record Conversion(AuthUserDetails user, Instant expiresAt) {
 
-        return realmRoles.stream()
-            .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-            .collect(Collectors.toSet());
     }
 }
@@ -0,0 +1,77 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+// Replaces the auto-configured decoder. Keycloak's JWK set is fetched once at startup and
+// refreshed in the background before the cached copy expires, so no request waits on the
+// certs endpoint; a token signed with an unknown kid (key rotation) triggers a rate-limited
+// refetch. Validated tokens are then kept by CachingJwtDecoder until they expire.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "security.jwt.cache.enabled", havingValue = "true",
+    matchIfMissing = true)
+public class JwtDecoderConfig {
+
+    private final JWKSource<SecurityContext> jwkSource;
+
+    public JwtDecoderConfig(
+        @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+        @Value("${security.jwt.jwks.ttl:15m}") Duration ttl,
+        @Value("${security.jwt.jwks.refresh-ahead:1m}") Duration refreshAhead,
+        @Value("${security.jwt.jwks.refresh-timeout:5s}") Duration refreshTimeout
+    ) throws MalformedURLException {
+        this.jwkSource = JWKSourceBuilder.<SecurityContext>create(URI.create(jwkSetUri).toURL())
+            .cache(ttl.toMillis(), refreshTimeout.toMillis())
+            .refreshAheadCache(refreshAhead.toMillis(), true)
+            .retrying(true)
+            .build();
+    }
+
+    @Bean
+    public JwtDecoder jwtDecoder(
+        MeterRegistry meterRegistry,
+        @Value("${security.jwt.cache.maximum-size:10000}") long maximumSize
+    ) {
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // claims are checked by the Spring validators below
+        processor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(JwtValidators.createDefault());
+        return new CachingJwtDecoder(decoder, maximumSize, meterRegistry);
+    }
+
+    // a Keycloak outage at startup is not fatal: the first request retries the fetch
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadJwks() {
+        try {
+            int keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null).size();
+            log.info("{} chaves de assinatura carregadas do JWK set", keys);
+        } catch (Exception e) {
+            log.warn("Não foi possível pré-carregar o JWK set: {}", e.getMessage());
+        }
+    }
+}
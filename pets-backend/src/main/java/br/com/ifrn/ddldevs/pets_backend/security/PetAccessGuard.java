@@ -0,0 +1,89 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+// Single place for the "owner or admin" rule on pet-scoped resources. The owner of a pet
+// never changes, so pet -> owner keycloak id is cached and resolved with a projection
+// query on a miss instead of loading the User entity.
+@Component
+public class PetAccessGuard {
+
+    private final PetRepository petRepository;
+
+    private final Cache<Long, String> owners;
+
+    public PetAccessGuard(
+        PetRepository petRepository,
+        MeterRegistry meterRegistry,
+        @Value("${security.pet-owner-cache.maximum-size:10000}") long maximumSize,
+        @Value("${security.pet-owner-cache.ttl:10m}") Duration ttl
+    ) {
+        this.petRepository = petRepository;
+        this.owners = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, owners, "petOwners");
+    }
+
+    // for callers that already loaded the pet; the owner is only read when it is in memory
+    public void checkAccess(Pet pet, String loggedUserKeycloakId) {
+        if (isAdmin()) {
+            return;
+        }
+
+        if (pet.getId() == null) {
+            requireOwner(pet.getUser().getKeycloakId(), loggedUserKeycloakId);
+            return;
+        }
+
+        String owner = owners.get(pet.getId(), id ->
+            Hibernate.isInitialized(pet.getUser())
+                ? pet.getUser().getKeycloakId()
+                : petRepository.findOwnerKeycloakIdById(id).orElse(null));
+        requireOwner(owner, loggedUserKeycloakId);
+    }
+
+    // for callers that only need the pet id; a missing pet is reported as not found
+    public void checkPetAccess(Long petId, String loggedUserKeycloakId) {
+        String owner = owners.get(petId, id -> petRepository.findOwnerKeycloakIdById(id).orElse(null));
+        if (owner == null) {
+            throw new ResourceNotFoundException("Pet não encontrado!");
+        }
+        if (isAdmin()) {
+            return;
+        }
+        requireOwner(owner, loggedUserKeycloakId);
+    }
+
+    public void evict(Long petId) {
+        owners.invalidate(petId);
+    }
+
+    public boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+            .anyMatch(grantedAuthority -> grantedAuthority.getAuthority().equals("ROLE_admin"));
+    }
+
+    private static void requireOwner(String owner, String loggedUserKeycloakId) {
+        if (owner == null || !owner.equals(loggedUserKeycloakId)) {
+            throw new AccessDeniedException(
+                "Você não pode acessar dados de pets de outros usuários!");
+        }
+    }
+}
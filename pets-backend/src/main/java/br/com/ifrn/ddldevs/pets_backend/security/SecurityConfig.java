@@ -16,6 +16,12 @@ import org.springframework.security.web.SecurityFilterChain;
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private final JWTAuthConverter jwtAuthConverter;
+
+    public SecurityConfig(JWTAuthConverter jwtAuthConverter) {
+        this.jwtAuthConverter = jwtAuthConverter;
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
@@ -32,7 +38,7 @@ public class SecurityConfig {
             )
             .oauth2ResourceServer(
                 oauth2 -> oauth2.jwt(
-                    jwt -> jwt.jwtAuthenticationConverter(new JWTAuthConverter())
+                    jwt -> jwt.jwtAuthenticationConverter(jwtAuthConverter)
                 )
             );
         http.sessionManagement(session -> session
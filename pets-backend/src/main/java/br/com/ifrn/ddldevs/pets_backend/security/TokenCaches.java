@@ -0,0 +1,53 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+// shared pieces of the per-token caches: raw bearer tokens are never kept as keys, and an
+// entry never outlives the token it was computed from
+final class TokenCaches {
+
+    private TokenCaches() {
+    }
+
+    static String key(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static <K, V> Expiry<K, V> untilExpiry(Function<V, Instant> expiresAt, Clock clock) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                Instant expiry = expiresAt.apply(value);
+                return expiry == null ? 0
+                    : Math.max(0, Duration.between(clock.instant(), expiry).toNanos());
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    static boolean isLive(Instant expiresAt, Clock clock) {
+        return expiresAt != null && clock.instant().isBefore(expiresAt);
+    }
+}
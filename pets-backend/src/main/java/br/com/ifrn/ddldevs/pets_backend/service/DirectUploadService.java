@@ -0,0 +1,111 @@
+package br.com.ifrn.ddldevs.pets_backend.service;
+
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadTicketDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadTicketRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Two-step uploads that keep picture bytes off the API servers: the client asks for a
+// pre-signed PUT URL, uploads straight to S3 and then confirms with the key it got. Keys are
+// scoped to the requesting user, so one user cannot claim another one's upload. Keys that
+// are never confirmed are left for a bucket lifecycle rule on the prefix to expire.
+@Component
+public class DirectUploadService {
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+        "image/jpeg", ".jpg",
+        "image/png", ".png",
+        "image/webp", ".webp"
+    );
+
+    private final UploadImageService uploadImageService;
+
+    private final long maxSize;
+
+    private final Duration urlExpiry;
+
+    private final String prefix;
+
+    private final Counter issued;
+
+    private final Counter confirmed;
+
+    private final Counter rejected;
+
+    public DirectUploadService(
+        UploadImageService uploadImageService,
+        MeterRegistry meterRegistry,
+        @Value("${uploads.direct.max-size:10485760}") long maxSize,
+        @Value("${uploads.direct.url-expiry:10m}") Duration urlExpiry,
+        @Value("${uploads.direct.prefix:uploads/}") String prefix
+    ) {
+        this.uploadImageService = uploadImageService;
+        this.maxSize = maxSize;
+        this.urlExpiry = urlExpiry;
+        this.prefix = prefix;
+
+        this.issued = Counter.builder("pets.uploads.direct")
+            .tag("result", "issued")
+            .register(meterRegistry);
+        this.confirmed = Counter.builder("pets.uploads.direct")
+            .tag("result", "confirmed")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("pets.uploads.direct")
+            .tag("result", "rejected")
+            .register(meterRegistry);
+    }
+
+    public UploadTicketDTO issue(UploadTicketRequestDTO request, String loggedUserKeycloakId) {
+        String extension = EXTENSIONS.get(request.contentType());
+        if (extension == null) {
+            throw new BusinessException("Tipo de imagem não suportado: " + request.contentType());
+        }
+        if (request.size() > maxSize) {
+            throw new BusinessException("Imagem maior que o limite de " + maxSize + " bytes");
+        }
+
+        String key = userPrefix(loggedUserKeycloakId) + UUID.randomUUID() + extension;
+        Instant expiresAt = Instant.now().plus(urlExpiry);
+        String url = uploadImageService.presignPut(key, request.contentType(), request.size(),
+            Date.from(expiresAt)).toString();
+        issued.increment();
+        return new UploadTicketDTO(key, url, request.contentType(), request.size(), expiresAt);
+    }
+
+    // the public URL of an upload the user finished; the object itself is checked again,
+    // since a pre-signed URL only constrains what S3 accepts, not that the PUT happened
+    public String claim(String uploadKey, String loggedUserKeycloakId) {
+        if (uploadKey == null || !uploadKey.startsWith(userPrefix(loggedUserKeycloakId))
+            || uploadKey.contains("..")) {
+            rejected.increment();
+            throw new BusinessException("Upload inválido");
+        }
+
+        ObjectMetadata metadata = uploadImageService.findObject(uploadKey).orElseThrow(() -> {
+            rejected.increment();
+            return new BusinessException("Upload não encontrado, envie a imagem novamente");
+        });
+        if (metadata.getContentLength() > maxSize
+            || !EXTENSIONS.containsKey(metadata.getContentType())) {
+            rejected.increment();
+            uploadImageService.deleteObject(uploadKey);
+            throw new BusinessException("Upload inválido");
+        }
+
+        confirmed.increment();
+        return uploadImageService.urlFor(uploadKey);
+    }
+
+    private String userPrefix(String keycloakId) {
+        return prefix + keycloakId + "/";
+    }
+}
@@ -3,34 +3,63 @@ package br.com.ifrn.ddldevs.pets_backend.service;
 
 import br.com.ifrn.ddldevs.pets_backend.amazonSqs.AnalysisMessage;
 import br.com.ifrn.ddldevs.pets_backend.amazonSqs.SQSSenderService;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline.AnalysisJob;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline.StagedImage;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.dto.CursorPageDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisBatchItemDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisBatchRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO;
-import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisUploadDTO;
+import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ServiceUnavailableException;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
+import br.com.ifrn.ddldevs.pets_backend.export.StreamingExporter;
+import br.com.ifrn.ddldevs.pets_backend.image.ImageDedupIndex;
 import br.com.ifrn.ddldevs.pets_backend.mapper.PetAnalysisMapper;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisBatchRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
+import br.com.ifrn.ddldevs.pets_backend.security.PetAccessGuard;
 import br.com.ifrn.ddldevs.pets_backend.specifications.AnalysisSpec;
+import br.com.ifrn.ddldevs.pets_backend.specifications.KeysetCursor;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Service
 @RequiredArgsConstructor
 public class PetAnalysisService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    @Autowired
+    private PetAccessGuard petAccessGuard;
+
+    @Autowired
+    private AnalysisPipeline analysisPipeline;
+
     @Autowired
     private SQSSenderService senderService;
 
@@ -44,7 +73,25 @@ public class PetAnalysisService {
     private PetRepository petRepository;
 
     @Autowired
-    private UploadImageService uploadImageService;
+    private StreamingExporter streamingExporter;
+
+    @Autowired
+    private ImageDedupIndex imageDedupIndex;
+
+    @Autowired
+    private DirectUploadService directUploadService;
+
+    @Autowired
+    private PetAnalysisBatchRepository petAnalysisBatchRepository;
+
+    @Autowired
+    private UserLookup userLookup;
+
+    @Autowired
+    private AnalysisUpdates analysisUpdates;
+
+    @Value("${analysis.batch.max-size:20}")
+    private int maxBatchSize;
 
     @Transactional
     public PetAnalysisResponseDTO createPetAnalysis(
@@ -63,43 +110,253 @@ public class PetAnalysisService {
         Pet pet = petRepository.findById(petAnalysisRequestDTO.getPetId())
             .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado!"));
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
-
-        petAnalysis.setPet(pet);
-        pet.getPetAnalysis().add(petAnalysis);
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
 
         if (petAnalysis.getAnalysisStatus() == null) {
             petAnalysis.setAnalysisStatus(AnalysisStatus.IN_ANALYSIS);
         }
 
-        String imgUrl = null;
+        if (!analysisPipeline.tryReserve()) {
+            throw new ServiceUnavailableException(
+                "Muitas análises em processamento, tente novamente em instantes");
+        }
+
+        StagedImage stagedImage = null;
+        try {
+            String pictureUrl = null;
+            if (petAnalysisRequestDTO.getPicture() != null) {
+                stagedImage = analysisPipeline.stage(petAnalysisRequestDTO.getPicture());
+            }
+            if (stagedImage != null) {
+                // a resubmitted picture gets the analysis it already has, without a new job
+                Optional<PetAnalysis> previous = imageDedupIndex.findReusableAnalysis(
+                    pet.getId(), stagedImage.contentHash(), petAnalysis.getAnalysisType());
+                if (previous.isPresent()) {
+                    PetAnalysisResponseDTO reused = petAnalysisMapper.toResponse(previous.get());
+                    analysisPipeline.abandon(stagedImage);
+                    return reused;
+                }
+
+                petAnalysis.setContentHash(stagedImage.contentHash());
+                pictureUrl = stagedImage.url();
+                // already in the bucket, e.g. submitted before for the other analysis type
+                Optional<String> storedUrl = imageDedupIndex.findStoredUrl(stagedImage.contentHash());
+                if (storedUrl.isPresent()) {
+                    pictureUrl = storedUrl.get();
+                    analysisPipeline.discard(stagedImage);
+                    stagedImage = null;
+                }
+            }
+
+            petAnalysis.setPet(pet);
+            pet.getPetAnalysis().add(petAnalysis);
+            petAnalysis.setPicture(pictureUrl);
+
+            petAnalysisRepository.save(petAnalysis);
+            petRepository.save(pet);
+
+            String analysisType = pet.getSpecies() + "_" + petAnalysis.getAnalysisType();
+
+            AnalysisMessage message = new AnalysisMessage(
+                petAnalysis.getId(),
+                petAnalysis.getPicture(),
+                analysisType
+            );
+            senderService.holdMessage(message, "pet-" + pet.getId());
+        } catch (RuntimeException e) {
+            analysisPipeline.abandon(stagedImage);
+            throw e;
+        }
+
+        analysisPipeline.submitAfterCommit(new AnalysisJob(petAnalysis.getId(), stagedImage));
+
+        return petAnalysisMapper.toResponse(petAnalysis);
+    }
+
+    // one pet lookup, ownership check, insert batch and outbox batch for all the pictures;
+    // each picture still goes through the resize, dedup and upload of a single submission
+    @Transactional
+    public List<PetAnalysisBatchItemDTO> createPetAnalyses(
+        PetAnalysisBatchRequestDTO petAnalysisBatchRequestDTO,
+        String loggedUserKeycloakId
+    ) {
+        Long idPet = petAnalysisBatchRequestDTO.getPetId();
+        if (idPet == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        if (idPet < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
+        }
 
-        if (petAnalysisRequestDTO.getPicture() != null) {
-            imgUrl = uploadImageService.uploadImg(petAnalysisRequestDTO.getPicture());
+        List<MultipartFile> pictures = petAnalysisBatchRequestDTO.getPictures();
+        if (pictures == null || pictures.isEmpty()) {
+            throw new BusinessException("Envie ao menos uma imagem");
+        }
+        if (pictures.size() > maxBatchSize) {
+            throw new BusinessException("Envie no máximo " + maxBatchSize + " imagens por vez");
         }
 
-        petAnalysis.setPicture(imgUrl);
+        Pet pet = petRepository.findById(idPet)
+            .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado!"));
+
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
 
-        petAnalysisRepository.save(petAnalysis);
-        petRepository.save(pet);
+        if (!analysisPipeline.tryReserve(pictures.size())) {
+            throw new ServiceUnavailableException(
+                "Muitas análises em processamento, tente novamente em instantes");
+        }
 
-        String analysisType;
+        AnalysisType analysisType = petAnalysisBatchRequestDTO.getAnalysisType();
+        PetAnalysisBatchItemDTO[] items = new PetAnalysisBatchItemDTO[pictures.size()];
+        List<PetAnalysis> created = new ArrayList<>();
+        List<Integer> createdIndexes = new ArrayList<>();
+        List<StagedImage> jobImages = new ArrayList<>();
+        // later copies of a picture sent twice in the same batch, by index of the first one
+        Map<Integer, Integer> copies = new HashMap<>();
+        Map<String, Integer> firstByHash = new HashMap<>();
+        int released = 0;
+        StagedImage stagedImage = null;
+        try {
+            for (int i = 0; i < pictures.size(); i++) {
+                stagedImage = analysisPipeline.stage(pictures.get(i));
+                String contentHash = stagedImage.contentHash();
+
+                Optional<PetAnalysis> previous = imageDedupIndex.findReusableAnalysis(
+                    pet.getId(), contentHash, analysisType);
+                if (previous.isPresent()) {
+                    items[i] = new PetAnalysisBatchItemDTO(i, previous.get().getId(),
+                        previous.get().getAnalysisStatus(), true);
+                    analysisPipeline.abandon(stagedImage);
+                    stagedImage = null;
+                    released++;
+                    continue;
+                }
+                Integer first = firstByHash.putIfAbsent(contentHash, i);
+                if (first != null) {
+                    copies.put(i, first);
+                    analysisPipeline.abandon(stagedImage);
+                    stagedImage = null;
+                    released++;
+                    continue;
+                }
+
+                PetAnalysis petAnalysis = new PetAnalysis();
+                petAnalysis.setPet(pet);
+                petAnalysis.setAnalysisType(analysisType);
+                petAnalysis.setAnalysisStatus(AnalysisStatus.IN_ANALYSIS);
+                petAnalysis.setContentHash(contentHash);
+                petAnalysis.setPicture(stagedImage.url());
+                Optional<String> storedUrl = imageDedupIndex.findStoredUrl(contentHash);
+                if (storedUrl.isPresent()) {
+                    petAnalysis.setPicture(storedUrl.get());
+                    analysisPipeline.discard(stagedImage);
+                    stagedImage = null;
+                }
+                created.add(petAnalysis);
+                createdIndexes.add(i);
+                jobImages.add(stagedImage);
+                stagedImage = null;
+            }
+
+            if (!created.isEmpty()) {
+                petAnalysisBatchRepository.insertAll(created);
+
+                String speciesType = pet.getSpecies() + "_" + analysisType;
+                senderService.holdMessages(created.stream()
+                    .map(analysis -> new AnalysisMessage(analysis.getId(), analysis.getPicture(),
+                        speciesType))
+                    .toList(), "pet-" + pet.getId());
+            }
+        } catch (RuntimeException e) {
+            // every permit not given back yet: the jobs built so far, the picture being
+            // handled and the ones not staged at all
+            analysisPipeline.discard(stagedImage);
+            jobImages.forEach(analysisPipeline::abandon);
+            for (int i = released + jobImages.size(); i < pictures.size(); i++) {
+                analysisPipeline.abandon(null);
+            }
+            throw e;
+        }
 
-        analysisType = pet.getSpecies() + "_" + petAnalysis.getAnalysisType();
+        List<AnalysisJob> jobs = new ArrayList<>(created.size());
+        for (int j = 0; j < created.size(); j++) {
+            PetAnalysis petAnalysis = created.get(j);
+            items[createdIndexes.get(j)] = new PetAnalysisBatchItemDTO(createdIndexes.get(j),
+                petAnalysis.getId(), petAnalysis.getAnalysisStatus(), false);
+            jobs.add(new AnalysisJob(petAnalysis.getId(), jobImages.get(j)));
+        }
+        copies.forEach((copy, first) -> items[copy] = new PetAnalysisBatchItemDTO(copy,
+            items[first].id(), items[first].status(), true));
 
-        AnalysisMessage message = new AnalysisMessage(
-            petAnalysis.getId(),
-            petAnalysis.getPicture(),
-            analysisType
-        );
-        senderService.sendMessage(message);
+        if (!jobs.isEmpty()) {
+            analysisPipeline.submitAllAfterCommit(jobs);
+        }
+
+        return List.of(items);
+    }
+
+    // the picture is already in the bucket, so the job only has to release the message;
+    // it reaches the model as uploaded, without the resize or the content-hash dedup
+    @Transactional
+    public PetAnalysisResponseDTO confirmPetAnalysis(
+        PetAnalysisUploadDTO petAnalysisUploadDTO,
+        String loggedUserKeycloakId
+    ) {
+        Long idPet = petAnalysisUploadDTO.petId();
+        if (idPet == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        if (idPet < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
+        }
+
+        Pet pet = petRepository.findById(idPet)
+            .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado!"));
+
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
+
+        String pictureUrl = directUploadService.claim(petAnalysisUploadDTO.uploadKey(),
+            loggedUserKeycloakId);
+
+        if (!analysisPipeline.tryReserve()) {
+            throw new ServiceUnavailableException(
+                "Muitas análises em processamento, tente novamente em instantes");
+        }
+
+        PetAnalysis petAnalysis = new PetAnalysis();
+        petAnalysis.setAnalysisType(petAnalysisUploadDTO.analysisType());
+        petAnalysis.setAnalysisStatus(AnalysisStatus.IN_ANALYSIS);
+        try {
+            petAnalysis.setPet(pet);
+            pet.getPetAnalysis().add(petAnalysis);
+            petAnalysis.setPicture(pictureUrl);
+
+            petAnalysisRepository.save(petAnalysis);
+            petRepository.save(pet);
+
+            AnalysisMessage message = new AnalysisMessage(
+                petAnalysis.getId(),
+                pictureUrl,
+                pet.getSpecies() + "_" + petAnalysis.getAnalysisType()
+            );
+            senderService.holdMessage(message, "pet-" + pet.getId());
+        } catch (RuntimeException e) {
+            analysisPipeline.abandon(null);
+            throw e;
+        }
+
+        analysisPipeline.submitAfterCommit(new AnalysisJob(petAnalysis.getId(), null));
 
         return petAnalysisMapper.toResponse(petAnalysis);
     }
 
-    public List<PetAnalysisResponseDTO> listPetAnalyses() {
-        List<PetAnalysis> petAnalyses = petAnalysisRepository.findAll();
-        return petAnalysisMapper.toResponseList(petAnalyses);
+    public Page<PetAnalysisResponseDTO> listPetAnalyses(Pageable pageable) {
+        return petAnalysisRepository.findAll(pageable).map(petAnalysisMapper::toResponse);
+    }
+
+    public StreamingResponseBody exportPetAnalyses(ExportFormat format) {
+        return streamingExporter.export(format, PetAnalysisResponseDTO.class,
+            petAnalysisRepository::streamAll);
     }
 
     public void deletePetAnalysis(Long id, String loggedUserKeycloakId) {
@@ -114,7 +371,7 @@ public class PetAnalysisService {
             throw new ResourceNotFoundException("Análise não encontrada");
         });
 
-        validatePetOwnershipOrAdmin(petAnalysis.getPet(), loggedUserKeycloakId);
+        petAccessGuard.checkAccess(petAnalysis.getPet(), loggedUserKeycloakId);
 
         petAnalysisRepository.deleteById(id);
     }
@@ -129,21 +386,53 @@ public class PetAnalysisService {
             throw new IllegalArgumentException("ID não pode ser negativo");
         }
 
-        Pet pet = petRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
+        petAccessGuard.checkPetAccess(id, loggedUserKeycloakId);
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
+        Specification<PetAnalysis> spec = historySpec(id, startDate, endDate, type, status, result);
+
+        Page<PetAnalysis> petAnalyses = petAnalysisRepository.findAll(spec, pageable);
+
+        return petAnalyses.map(petAnalysisMapper::toResponse);
+    }
 
-        Specification<PetAnalysis> spec = Specification.where(AnalysisSpec.hasPetId(id))
+    public CursorPageDTO<PetAnalysisResponseDTO> getAllByPetIdAfter(Long id,
+        String loggedUserKeycloakId, LocalDate startDate, LocalDate endDate, AnalysisType type,
+        AnalysisStatus status, String result, String cursor, int size) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
+        }
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException(
+                "O tamanho da página deve estar entre 1 e " + MAX_CURSOR_PAGE_SIZE);
+        }
+
+        petAccessGuard.checkPetAccess(id, loggedUserKeycloakId);
+
+        Specification<PetAnalysis> spec = historySpec(id, startDate, endDate, type, status, result)
+            .and(KeysetCursor.after(KeysetCursor.decode(cursor)));
+
+        List<PetAnalysis> petAnalyses = petAnalysisRepository.findBy(spec,
+            query -> query.sortBy(KeysetCursor.ORDER).limit(size + 1).all());
+
+        return CursorPageDTO.of(petAnalyses, size, petAnalysisMapper::toResponse);
+    }
+
+    private Specification<PetAnalysis> historySpec(Long petId, LocalDate startDate,
+        LocalDate endDate, AnalysisType type, AnalysisStatus status, String result) {
+        return Specification.where(AnalysisSpec.hasPetId(petId))
             .and(AnalysisSpec.hasAnalysisType(type))
             .and(AnalysisSpec.hasStartDateAfter(startDate))
             .and(AnalysisSpec.hasEndDateBefore(endDate))
             .and(AnalysisSpec.hasResultContaining(result))
             .and(AnalysisSpec.hasAnalysisStatus(status));
+    }
 
-        Page<PetAnalysis> petAnalyses = petAnalysisRepository.findAll(spec, pageable);
-
-        return petAnalyses.map(petAnalysisMapper::toResponse);
+    // final statuses of every analysis of the user's pets, pushed as they happen
+    public SseEmitter streamPetAnalyses(String loggedUserKeycloakId) {
+        return analysisUpdates.subscribe(userLookup.requireId(loggedUserKeycloakId));
     }
 
     public PetAnalysisResponseDTO getPetAnalysis(Long analysisId, String loggedUserKeycloakId) {
@@ -156,24 +445,9 @@ public class PetAnalysisService {
         PetAnalysis petAnalysis = petAnalysisRepository.findById(analysisId)
             .orElseThrow(() -> new ResourceNotFoundException("Análise não encontrada"));
 
-        validatePetOwnershipOrAdmin(petAnalysis.getPet(), loggedUserKeycloakId);
+        petAccessGuard.checkAccess(petAnalysis.getPet(), loggedUserKeycloakId);
 
         return petAnalysisMapper.toResponse(petAnalysis);
     }
 
-    public void validatePetOwnershipOrAdmin(Pet pet, String loggedUserKeycloakId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication.getAuthorities().stream()
-            .anyMatch(
-                grantedAuthority ->
-                    grantedAuthority.getAuthority().equals("ROLE_admin"))) {
-            return;
-        }
-
-        if (!pet.getUser().getKeycloakId().equals(loggedUserKeycloakId)) {
-            throw new AccessDeniedException(
-                "Você não pode acessar dados de pets de outros usuários!");
-        }
-    }
 }
\ No newline at end of file
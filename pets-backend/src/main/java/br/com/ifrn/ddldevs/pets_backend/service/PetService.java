@@ -4,21 +4,26 @@ import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetUpdateRequestDTO;
-import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
+import br.com.ifrn.ddldevs.pets_backend.export.StreamingExporter;
 import br.com.ifrn.ddldevs.pets_backend.mapper.PetMapper;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
-import java.util.List;
+import br.com.ifrn.ddldevs.pets_backend.security.PetAccessGuard;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Service
 public class PetService {
 
+    @Autowired
+    private PetAccessGuard petAccessGuard;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -31,15 +36,20 @@ public class PetService {
     @Autowired
     private UploadImageService uploadImageService;
 
+    @Autowired
+    private UserLookup userLookup;
+
+    @Autowired
+    private StreamingExporter streamingExporter;
+
+    @Autowired
+    private DirectUploadService directUploadService;
+
     @Transactional
     public PetResponseDTO createPet(PetRequestDTO petRequestDTO, String loggedUserKeycloakId) {
         Pet pet = petMapper.toEntity(petRequestDTO);
-        var user = userRepository.findByKeycloakId(loggedUserKeycloakId).orElseThrow(() -> {
-            throw new ResourceNotFoundException("Usuário não encontrado!");
-        });
-
-        pet.setUser(user);
-        user.getPets().add(pet);
+        // a reference is enough for the foreign key; the user row is not read
+        pet.setUser(userRepository.getReferenceById(userLookup.requireId(loggedUserKeycloakId)));
 
         String imgUrl = null;
 
@@ -51,14 +61,16 @@ public class PetService {
         pet.setPhotoUrl(imgUrl);
 
         petRepository.save(pet);
-        userRepository.save(user);
 
         return petMapper.toPetResponseDTO(pet);
     }
 
-    public List<PetResponseDTO> listPets() {
-        List<Pet> pets = petRepository.findAll();
-        return petMapper.toDTOList(pets);
+    public Page<PetResponseDTO> listPets(Pageable pageable) {
+        return petRepository.findAll(pageable).map(petMapper::toPetResponseDTO);
+    }
+
+    public StreamingResponseBody exportPets(ExportFormat format) {
+        return streamingExporter.export(format, PetResponseDTO.class, petRepository::streamAll);
     }
 
     public PetResponseDTO updatePet(Long id, PetUpdateRequestDTO petRequestDTO,
@@ -73,7 +85,7 @@ public class PetService {
         Pet pet = petRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado!"));
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
 
         petMapper.updateEntityFromDTO(petRequestDTO, pet);
 
@@ -87,7 +99,7 @@ public class PetService {
         return petMapper.toPetResponseDTO(petUpdated);
     }
 
-    public PetResponseDTO getPet(Long id, String loggedUserKeycloakId) {
+    public PetResponseDTO updatePetPhoto(Long id, String uploadKey, String loggedUserKeycloakId) {
         if (id == null) {
             throw new IllegalArgumentException("ID não pode ser nulo");
         }
@@ -96,14 +108,16 @@ public class PetService {
         }
 
         Pet pet = petRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
+            .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado!"));
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
 
-        return petMapper.toPetResponseDTO(pet);
+        pet.setPhotoUrl(directUploadService.claim(uploadKey, loggedUserKeycloakId));
+
+        return petMapper.toPetResponseDTO(petRepository.save(pet));
     }
 
-    public void deletePet(Long id, String loggedUserKeycloakId) {
+    public PetResponseDTO getPet(Long id, String loggedUserKeycloakId) {
         if (id == null) {
             throw new IllegalArgumentException("ID não pode ser nulo");
         }
@@ -111,30 +125,25 @@ public class PetService {
             throw new IllegalArgumentException("ID não pode ser negativo");
         }
 
-        Pet pet = petRepository.findById(id).orElseThrow(() -> {
-            throw new ResourceNotFoundException("Pet não encontrado!");
-        });
+        Pet pet = petRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado"));
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
 
-        petRepository.deleteById(id);
+        return petMapper.toPetResponseDTO(pet);
     }
 
-    public void validatePetOwnershipOrAdmin(Pet pet, String loggedUserKeycloakId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication.getAuthorities().stream()
-            .anyMatch(
-                grantedAuthority ->
-                    grantedAuthority.getAuthority().equals("ROLE_admin"))) {
-            return;
+    public void deletePet(Long id, String loggedUserKeycloakId) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
         }
-
-        if (!pet.getUser().getKeycloakId().equals(loggedUserKeycloakId)) {
-            throw new AccessDeniedException(
-                "Você não pode acessar dados de pets de outros usuários!");
+        if (id < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
         }
-    }
 
+        petAccessGuard.checkPetAccess(id, loggedUserKeycloakId);
 
+        petRepository.deleteById(id);
+        petAccessGuard.evict(id);
+    }
 }
@@ -1,36 +1,47 @@
 package br.com.ifrn.ddldevs.pets_backend.service;
 
+import br.com.ifrn.ddldevs.pets_backend.async.RecommendationPipeline;
+import br.com.ifrn.ddldevs.pets_backend.async.RecommendationUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
+import br.com.ifrn.ddldevs.pets_backend.dto.CursorPageDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO;
-import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
 import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ServiceUnavailableException;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
+import br.com.ifrn.ddldevs.pets_backend.export.StreamingExporter;
 import br.com.ifrn.ddldevs.pets_backend.mapper.RecommendationMapper;
-import br.com.ifrn.ddldevs.pets_backend.microservice.RecommendationRequestsService;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
+import br.com.ifrn.ddldevs.pets_backend.security.PetAccessGuard;
 import br.com.ifrn.ddldevs.pets_backend.repository.RecommendationRepository;
 
 import java.time.LocalDate;
 import java.util.List;
 
+import br.com.ifrn.ddldevs.pets_backend.specifications.KeysetCursor;
 import br.com.ifrn.ddldevs.pets_backend.specifications.RecommendationSpec;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cglib.core.Local;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Service
 public class RecommendationService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    @Autowired
+    private PetAccessGuard petAccessGuard;
+
     @Autowired
     private RecommendationRepository recommendationRepository;
 
@@ -44,9 +55,13 @@ public class RecommendationService {
     private PetAnalysisRepository petAnalysisRepository;
 
     @Autowired
-    private RecommendationRequestsService recommendationRequestsService;
+    private RecommendationPipeline recommendationPipeline;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private RecommendationUpdates recommendationUpdates;
+
+    @Autowired
+    private StreamingExporter streamingExporter;
 
 
     @Transactional
@@ -66,25 +81,42 @@ public class RecommendationService {
         Pet pet = petRepository.findById(recommendationRequestDTO.getPetId())
             .orElseThrow(() -> new ResourceNotFoundException("Pet não encontrado!"));
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
+        petAccessGuard.checkAccess(pet, loggedUserKeycloakId);
 
         recommendation.setPet(pet);
         pet.getRecommendations().add(recommendation);
 
         validateRecommendationData(recommendation);
 
-        recommendationRequestsService.updateRecommendation(recommendation);
+        recommendation.setStatus(RecommendationStatus.PENDING);
+        recommendation.setRecommendation(null);
 
-        recommendationRepository.save(recommendation);
-        petRepository.save(pet);
+        if (!recommendationPipeline.tryReserve()) {
+            throw new ServiceUnavailableException(
+                "Muitas recomendações em geração, tente novamente em instantes");
+        }
+
+        try {
+            recommendationRepository.save(recommendation);
+            petRepository.save(pet);
+        } catch (RuntimeException e) {
+            recommendationPipeline.abandon();
+            throw e;
+        }
 
+        recommendationPipeline.submitAfterCommit(recommendation.getId());
 
         return recommendationMapper.toRecommendationResponseDTO(recommendation);
     }
 
-    public List<RecommendationResponseDTO> listRecommendations() {
-        List<Recommendation> recommendations = recommendationRepository.findAll();
-        return recommendationMapper.toDTOList(recommendations);
+    public Page<RecommendationResponseDTO> listRecommendations(Pageable pageable) {
+        return recommendationRepository.findAll(pageable)
+            .map(recommendationMapper::toRecommendationResponseDTO);
+    }
+
+    public StreamingResponseBody exportRecommendations(ExportFormat format) {
+        return streamingExporter.export(format, RecommendationResponseDTO.class,
+            recommendationRepository::streamAll);
     }
 
     public RecommendationResponseDTO getRecommendation(Long id, String loggedUserKeycloakId) {
@@ -98,11 +130,35 @@ public class RecommendationService {
         Recommendation recommendation = recommendationRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Recomendação não encontrada!"));
 
-        validatePetOwnershipOrAdmin(recommendation.getPet(), loggedUserKeycloakId);
+        petAccessGuard.checkAccess(recommendation.getPet(), loggedUserKeycloakId);
 
         return recommendationMapper.toRecommendationResponseDTO(recommendation);
     }
 
+    // the current state is sent right away when the recommendation is no longer PENDING
+    public SseEmitter streamRecommendation(Long id, String loggedUserKeycloakId) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
+        }
+
+        Recommendation recommendation = recommendationRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Recomendação não encontrada!"));
+
+        petAccessGuard.checkAccess(recommendation.getPet(), loggedUserKeycloakId);
+
+        SseEmitter emitter = recommendationUpdates.subscribe(id);
+
+        // re-read after subscribing so a generation that finished in between is not missed
+        recommendationRepository.findById(id)
+            .map(recommendationMapper::toRecommendationResponseDTO)
+            .ifPresent(recommendationUpdates::publish);
+
+        return emitter;
+    }
+
     public void deleteRecommendation(Long id, String loggedUserKeycloakId) {
         if (id == null) {
             throw new IllegalArgumentException("ID não pode ser nulo");
@@ -115,7 +171,7 @@ public class RecommendationService {
             throw new ResourceNotFoundException("Recomendação não encontrada!");
         });
 
-        validatePetOwnershipOrAdmin(recommendation.getPet(), loggedUserKeycloakId);
+        petAccessGuard.checkAccess(recommendation.getPet(), loggedUserKeycloakId);
 
         recommendationRepository.deleteById(id);
     }
@@ -130,34 +186,43 @@ public class RecommendationService {
             throw new IllegalArgumentException("ID não pode ser negativo");
         }
 
-        Pet pet = petRepository.findById(id).orElseThrow(() -> {
-            throw new ResourceNotFoundException("Pet não encontrado!");
-        });
+        petAccessGuard.checkPetAccess(id, loggedUserKeycloakId);
 
-        validatePetOwnershipOrAdmin(pet, loggedUserKeycloakId);
-        Specification<Recommendation> spec = Specification.where(RecommendationSpec.hasPetId(id))
-                .and(RecommendationSpec.hasCategory(category))
-                .and(RecommendationSpec.hasStartDateAfter(startDate))
-                .and(RecommendationSpec.hasEndDateBefore(endDate));
+        Specification<Recommendation> spec = historySpec(id, category, startDate, endDate);
 
         Page<Recommendation> recommendations = recommendationRepository.findAll(spec, page);
         return recommendations.map(recommendationMapper::toRecommendationResponseDTO);
     }
 
-    private void validatePetOwnershipOrAdmin(Pet pet, String loggedUserKeycloakId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication.getAuthorities().stream()
-            .anyMatch(
-                grantedAuthority ->
-                    grantedAuthority.getAuthority().equals("ROLE_admin"))) {
-            return;
+    public CursorPageDTO<RecommendationResponseDTO> getAllByPetIdAfter(Long id, String loggedUserKeycloakId,
+                                                                    String cursor, int size, String category,
+                                                                    LocalDate startDate, LocalDate endDate) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
         }
-
-        if (!pet.getUser().getKeycloakId().equals(loggedUserKeycloakId)) {
-            throw new AccessDeniedException(
-                "Você não pode acessar dados de pets de outros usuários!");
+        if (id < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
+        }
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new BusinessException("O tamanho da página deve estar entre 1 e " + MAX_CURSOR_PAGE_SIZE);
         }
+
+        petAccessGuard.checkPetAccess(id, loggedUserKeycloakId);
+
+        Specification<Recommendation> spec = historySpec(id, category, startDate, endDate)
+                .and(KeysetCursor.after(KeysetCursor.decode(cursor)));
+
+        List<Recommendation> recommendations = recommendationRepository.findBy(spec,
+                query -> query.sortBy(KeysetCursor.ORDER).limit(size + 1).all());
+        return CursorPageDTO.of(recommendations, size, recommendationMapper::toRecommendationResponseDTO);
+    }
+
+    private Specification<Recommendation> historySpec(Long petId, String category, LocalDate startDate,
+                                                      LocalDate endDate) {
+        return Specification.where(RecommendationSpec.hasPetId(petId))
+                .and(RecommendationSpec.hasCategory(category))
+                .and(RecommendationSpec.hasStartDateAfter(startDate))
+                .and(RecommendationSpec.hasEndDateBefore(endDate));
     }
 
     private void validateRecommendationData(Recommendation recommendation) {
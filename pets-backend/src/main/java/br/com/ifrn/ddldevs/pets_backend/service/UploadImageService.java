@@ -1,10 +1,25 @@
 package br.com.ifrn.ddldevs.pets_backend.service;
 
+import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
-import java.io.File;
-import java.io.FileOutputStream;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.util.Objects;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,28 +32,179 @@ public class UploadImageService {
     @Value("${AWS_BUCKET_NAME}")
     private String bucketName;
 
+    @Value("${aws.s3.multipart-threshold:16777216}")
+    private long multipartThreshold;
+
+    // S3 requires parts of at least 5 MiB (except the last one)
+    @Value("${aws.s3.part-size:8388608}")
+    private long partSize;
+
     @Autowired
     private AmazonS3 s3Client;
 
     public String uploadImg(MultipartFile multipartFile) {
-        String fileName = UUID.randomUUID() + "-" + multipartFile.getOriginalFilename();
+        String fileName = newObjectKey(multipartFile.getOriginalFilename());
 
-        try {
-            File file = this.convertMultipartToFile(multipartFile);
-            s3Client.putObject(bucketName, fileName, file);
-            file.delete();
-            return s3Client.getUrl(bucketName, fileName).toString();
+        try (InputStream in = multipartFile.getInputStream()) {
+            return uploadStream(fileName, in, multipartFile.getSize(),
+                multipartFile.getContentType());
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
             return "null";
         }
     }
 
-    private File convertMultipartToFile(MultipartFile multipartFile) throws IOException {
-        File convertFile = new File(Objects.requireNonNull(multipartFile.getOriginalFilename()));
-        FileOutputStream fos = new FileOutputStream(convertFile);
-        fos.write(multipartFile.getBytes());
-        fos.close();
-        return convertFile;
+    public String newObjectKey(String originalFilename) {
+        return UUID.randomUUID() + "-" + originalFilename;
+    }
+
+    // content-addressed: the same bytes always map to the same object
+    public String contentKey(String sha256) {
+        return "sha256/" + sha256;
+    }
+
+    // the public URL only depends on bucket and key, so it can be handed out before the upload
+    public String urlFor(String key) {
+        return s3Client.getUrl(bucketName, key).toString();
+    }
+
+    // the client PUTs the bytes itself; Content-Type and Content-Length are part of the
+    // signature, so S3 rejects an upload that differs from what the URL was issued for
+    public URL presignPut(String key, String contentType, long contentLength, Date expiration) {
+        GeneratePresignedUrlRequest request =
+            new GeneratePresignedUrlRequest(bucketName, key, HttpMethod.PUT)
+                .withContentType(contentType)
+                .withExpiration(expiration);
+        request.putCustomRequestHeader(Headers.CONTENT_LENGTH, String.valueOf(contentLength));
+        return s3Client.generatePresignedUrl(request);
+    }
+
+    // empty when nothing was uploaded under the key
+    public Optional<ObjectMetadata> findObject(String key) {
+        try {
+            return Optional.of(s3Client.getObjectMetadata(bucketName, key));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    public void deleteObject(String key) {
+        s3Client.deleteObject(bucketName, key);
+    }
+
+    // streams straight to the bucket; the length must be known so the SDK doesn't buffer it all
+    public String uploadStream(String key, InputStream in, long contentLength,
+        String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+
+        if (contentLength >= multipartThreshold) {
+            multipartUpload(key, in, contentLength, metadata);
+        } else {
+            metadata.setContentLength(contentLength);
+            s3Client.putObject(new PutObjectRequest(bucketName, key, in, metadata));
+        }
+
+        return urlFor(key);
+    }
+
+    private void multipartUpload(String key, InputStream in, long contentLength,
+        ObjectMetadata metadata) {
+        String uploadId = s3Client.initiateMultipartUpload(
+            new InitiateMultipartUploadRequest(bucketName, key, metadata)
+        ).getUploadId();
+
+        try {
+            List<PartETag> partETags = new ArrayList<>();
+            long remaining = contentLength;
+            int partNumber = 1;
+
+            while (remaining > 0) {
+                long size = Math.min(partSize, remaining);
+                remaining -= size;
+
+                UploadPartRequest partRequest = new UploadPartRequest()
+                    .withBucketName(bucketName)
+                    .withKey(key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber++)
+                    .withInputStream(new PartInputStream(in, size))
+                    .withPartSize(size)
+                    .withLastPart(remaining == 0);
+
+                partETags.add(s3Client.uploadPart(partRequest).getPartETag());
+            }
+
+            s3Client.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags)
+            );
+        } catch (RuntimeException e) {
+            s3Client.abortMultipartUpload(
+                new AbortMultipartUploadRequest(bucketName, key, uploadId)
+            );
+            throw e;
+        }
+    }
+
+    // exposes at most `limit` bytes of the shared source stream, one per multipart part
+    private static class PartInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        PartInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // the source stream is closed by whoever opened it
+        }
     }
-}
\ No newline at end of file
+}
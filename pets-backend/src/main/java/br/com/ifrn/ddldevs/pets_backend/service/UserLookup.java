@@ -0,0 +1,92 @@
+package br.com.ifrn.ddldevs.pets_backend.service;
+
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserSummaryDTO;
+import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.notification.PgNotificationBus;
+import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Read-through cache of keycloak id -> user summary for the "current user" lookups done on
+// almost every request. Entries are evicted when a user is updated or deleted, locally and,
+// through Postgres NOTIFY, on every other instance; the TTL bounds staleness if a
+// notification is ever lost.
+@Component
+public class UserLookup implements PgNotificationBus.Listener {
+
+    static final String CHANNEL = "user_cache_evict";
+
+    private final UserRepository userRepository;
+
+    private final Optional<PgNotificationBus> notificationBus;
+
+    private final Cache<String, UserSummaryDTO> users;
+
+    public UserLookup(
+        UserRepository userRepository,
+        ObjectProvider<PgNotificationBus> notificationBus,
+        MeterRegistry meterRegistry,
+        @Value("${user-cache.maximum-size:50000}") long maximumSize,
+        @Value("${user-cache.ttl:10m}") Duration ttl
+    ) {
+        this.userRepository = userRepository;
+        this.notificationBus = Optional.ofNullable(notificationBus.getIfAvailable());
+        this.users = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        this.notificationBus.ifPresent(bus -> bus.subscribe(CHANNEL, this));
+    }
+
+    public UserSummaryDTO require(String keycloakId) {
+        UserSummaryDTO user = users.get(keycloakId,
+            id -> userRepository.findSummaryByKeycloakId(id).orElse(null));
+        if (user == null) {
+            throw new ResourceNotFoundException("Usuário não encontrado!");
+        }
+        return user;
+    }
+
+    public Long requireId(String keycloakId) {
+        return require(keycloakId).id();
+    }
+
+    // inside a transaction the entry is dropped once it commits; dropped earlier, a concurrent
+    // request could cache the old row again until the TTL. pg_notify is issued right away on
+    // the transaction's connection because Postgres only delivers it on commit, whereas
+    // statements run from afterCommit would no longer be committed
+    public void evict(String keycloakId) {
+        notificationBus.ifPresent(bus -> bus.publish(CHANNEL, keycloakId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            users.invalidate(keycloakId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                users.invalidate(keycloakId);
+            }
+        });
+    }
+
+    @Override
+    public void onNotification(String keycloakId) {
+        users.invalidate(keycloakId);
+    }
+
+    @Override
+    public void onResync() {
+        users.invalidateAll();
+    }
+}
@@ -1,6 +1,7 @@
 package br.com.ifrn.ddldevs.pets_backend.service;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.User;
@@ -10,13 +11,14 @@ import br.com.ifrn.ddldevs.pets_backend.dto.User.UserResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.User.UserUpdateRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.keycloak.KcUserResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
+import br.com.ifrn.ddldevs.pets_backend.export.ExportFormat;
+import br.com.ifrn.ddldevs.pets_backend.export.StreamingExporter;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
 import br.com.ifrn.ddldevs.pets_backend.keycloak.KeycloakServiceImpl;
 import br.com.ifrn.ddldevs.pets_backend.mapper.PetMapper;
 import br.com.ifrn.ddldevs.pets_backend.mapper.UserMapper;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
-import java.util.List;
 
 import br.com.ifrn.ddldevs.pets_backend.specifications.PetSpec;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,6 +29,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Service
 public class UserService {
@@ -48,6 +51,15 @@ public class UserService {
     @Autowired
     private PetRepository petRepository;
 
+    @Autowired
+    private UserLookup userLookup;
+
+    @Autowired
+    private StreamingExporter streamingExporter;
+
+    @Autowired
+    private DirectUploadService directUploadService;
+
     @Transactional
     public UserResponseDTO createUser(UserRequestDTO dto) {
         KcUserResponseDTO keycloakUser = keycloakServiceImpl.createUser(dto);
@@ -67,16 +79,17 @@ public class UserService {
         return userMapper.toResponseDTO(user);
     }
 
-    public List<UserResponseDTO> listUsers() {
-        var users = userRepository.findAll();
+    public Page<UserResponseDTO> listUsers(Pageable pageable) {
+        return userRepository.findAll(pageable).map(userMapper::toResponseDTO);
+    }
 
-        return userMapper.toDTOList(users);
+    public StreamingResponseBody exportUsers(ExportFormat format) {
+        return streamingExporter.export(format, UserResponseDTO.class, userRepository::streamAll);
     }
 
     public UserResponseDTO getCurrentUser(String loggedUserKeycloakId) {
-        var user = userRepository.findByKeycloakId(loggedUserKeycloakId).orElseThrow(() -> {
-            throw new ResourceNotFoundException("Usuário não encontrado!");
-        });
+        var user = userRepository.findById(userLookup.requireId(loggedUserKeycloakId))
+            .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado!"));
         return userMapper.toResponseDTO(user);
     }
 
@@ -119,6 +132,31 @@ public class UserService {
         }
         
         var updatedUser = userRepository.save(user);
+        userLookup.evict(user.getKeycloakId());
+
+        return userMapper.toResponseDTO(updatedUser);
+    }
+
+    // an admin changing someone else's photo confirms an upload of their own
+    @Transactional
+    public UserResponseDTO updateUserPhoto(Long id, String uploadKey,
+        String loggedUserKeycloakId) {
+        if (id == null) {
+            throw new IllegalArgumentException("ID não pode ser nulo");
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("ID não pode ser negativo");
+        }
+
+        User user = userRepository.findById(id).
+            orElseThrow(() -> new ResourceNotFoundException("Usuário não existe"));
+
+        validatePetOwnershipOrAdmin(loggedUserKeycloakId, user);
+
+        user.setPhotoUrl(directUploadService.claim(uploadKey, loggedUserKeycloakId));
+
+        var updatedUser = userRepository.save(user);
+        userLookup.evict(user.getKeycloakId());
 
         return userMapper.toResponseDTO(updatedUser);
     }
@@ -140,27 +178,21 @@ public class UserService {
         keycloakServiceImpl.deleteUser(user.getKeycloakId());
 
         userRepository.deleteById(id);
+        userLookup.evict(user.getKeycloakId());
     }
 
-    public Page<PetResponseDTO> getPetsOfCurrentUser(String loggedUserKeycloakId, String name, Species species, String Breed, Gender gender, Pageable pg) {
-        var user = userRepository.findByKeycloakId(loggedUserKeycloakId).orElseThrow(() -> {
-            throw new ResourceNotFoundException("Usuário não encontrado!");
-        });
-        Specification<Pet> spec = Specification.where(PetSpec.hasUserId(user.getId()))
-                        .and(PetSpec.hasName(name))
-                                .and(PetSpec.hasSpecies(species))
-                                        .and(PetSpec.hasBreed(Breed))
-                                                .and(PetSpec.hasGender(gender));
+    public Page<PetResponseDTO> getPetsOfCurrentUser(String loggedUserKeycloakId, String name, Species species, String Breed, Gender gender, SearchMode match, Pageable pg) {
+        Long userId = userLookup.requireId(loggedUserKeycloakId);
+        Specification<Pet> spec = PetSpec.petsOfUser(userId, name, species, Breed, gender, match);
 
         Page<Pet> pets = petRepository.findAll(spec, pg);
         return pets.map(petMapper::toPetResponseDTO);
     }
 
-    public List<PetResponseDTO> getPets(String userKcId) {
-        User user = userRepository.findByKeycloakId(userKcId)
-            .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
-
-        return petMapper.toDTOList(user.getPets());
+    // streamed as a JSON array, so a user with thousands of pets costs constant memory
+    public StreamingResponseBody getPets(String userKcId) {
+        Long userId = userLookup.requireId(userKcId);
+        return streamingExporter.jsonArray(() -> petRepository.streamByUserId(userId));
     }
 
     public void validatePetOwnershipOrAdmin(
@@ -2,6 +2,7 @@ package br.com.ifrn.ddldevs.pets_backend.specifications;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
 import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -32,10 +33,7 @@ public class AnalysisSpec {
     public static Specification<PetAnalysis> hasResultContaining(String keyword) {
         return (root, query, criteriaBuilder) -> {
             if (keyword == null || keyword.isEmpty()) return null;
-            return criteriaBuilder.like(
-                    criteriaBuilder.lower(root.get("result")),
-                    "%" + keyword.toLowerCase() + "%"
-            );
+            return TextSearch.matches(criteriaBuilder, root.get("result"), keyword, SearchMode.CONTAINS);
         };
     }
 
@@ -0,0 +1,60 @@
+package br.com.ifrn.ddldevs.pets_backend.specifications;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.BaseEntity;
+import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+// Position of the last row of a history page, newest first. Seeking on (created_at, id)
+// keeps deep pages as cheap as the first one and needs no COUNT query.
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    public static final Sort ORDER = Sort.by(Sort.Direction.DESC, "createdAt")
+        .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private static final String SEPARATOR = "|";
+
+    public static KeysetCursor of(BaseEntity entity) {
+        return new KeysetCursor(entity.getCreatedAt(), entity.getId());
+    }
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(
+                LocalDateTime.parse(raw.substring(0, separator)),
+                Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BusinessException("Cursor de paginação inválido");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // rows strictly after this cursor in ORDER; a null cursor starts from the newest row
+    public static <T extends BaseEntity> Specification<T> after(KeysetCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) return null;
+            return criteriaBuilder.or(
+                criteriaBuilder.lessThan(root.get("createdAt"), cursor.createdAt()),
+                criteriaBuilder.and(
+                    criteriaBuilder.equal(root.get("createdAt"), cursor.createdAt()),
+                    criteriaBuilder.lessThan(root.get("id"), cursor.id())
+                )
+            );
+        };
+    }
+}
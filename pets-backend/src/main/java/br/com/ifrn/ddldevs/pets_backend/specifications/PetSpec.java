@@ -1,11 +1,21 @@
 package br.com.ifrn.ddldevs.pets_backend.specifications;
 
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import org.springframework.data.jpa.domain.Specification;
 
 public class PetSpec {
+    public static Specification<Pet> petsOfUser(Long userId, String name, Species species, String breed,
+                                                Gender gender, SearchMode match) {
+        return Specification.where(hasUserId(userId))
+                .and(hasName(name, match))
+                .and(hasSpecies(species))
+                .and(hasBreed(breed, match))
+                .and(hasGender(gender));
+    }
+
     public static Specification<Pet> hasUserId(Long userId) {
         return (root, query, criteriaBuilder) -> {
             if (userId == null) return null;
@@ -21,9 +31,13 @@ public class PetSpec {
     }
 
     public static Specification<Pet> hasName(String name) {
+        return hasName(name, SearchMode.CONTAINS);
+    }
+
+    public static Specification<Pet> hasName(String name, SearchMode mode) {
         return (root, query, criteriaBuilder) -> {
             if (name == null || name.isEmpty()) return null;
-            return criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + name.toLowerCase() + "%");
+            return TextSearch.matches(criteriaBuilder, root.get("name"), name, mode);
         };
     }
 
@@ -35,9 +49,13 @@ public class PetSpec {
     }
 
     public static Specification<Pet> hasBreed(String breed) {
+        return hasBreed(breed, SearchMode.CONTAINS);
+    }
+
+    public static Specification<Pet> hasBreed(String breed, SearchMode mode) {
         return (root, query, criteriaBuilder) -> {
             if (breed == null || breed.isEmpty()) return null;
-            return criteriaBuilder.like(criteriaBuilder.lower(root.get("breed")), "%" + breed.toLowerCase() + "%");
+            return TextSearch.matches(criteriaBuilder, root.get("breed"), breed, mode);
         };
     }
 }
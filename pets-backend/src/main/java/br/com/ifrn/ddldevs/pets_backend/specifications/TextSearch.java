@@ -0,0 +1,28 @@
+package br.com.ifrn.ddldevs.pets_backend.specifications;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+// Case-insensitive text filter shared by the Specifications. lower(col) LIKE is what the
+// pg_trgm GIN indexes (contains) and text_pattern_ops indexes (prefix) are built on, so the
+// expression must stay exactly lower(col).
+public class TextSearch {
+
+    private static final char ESCAPE = '\\';
+
+    public static Predicate matches(CriteriaBuilder criteriaBuilder, Expression<String> column,
+        String term, SearchMode mode) {
+        return criteriaBuilder.like(criteriaBuilder.lower(column), pattern(term, mode), ESCAPE);
+    }
+
+    // user input is matched literally, so % and _ typed in a search box are not wildcards
+    static String pattern(String term, SearchMode mode) {
+        String escaped = term.toLowerCase()
+            .replace(String.valueOf(ESCAPE), "" + ESCAPE + ESCAPE)
+            .replace("%", ESCAPE + "%")
+            .replace("_", ESCAPE + "_");
+        return mode == SearchMode.PREFIX ? escaped + "%" : "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,17 @@
+CREATE TABLE analysis_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    analysis_id BIGINT NOT NULL,
+    group_id VARCHAR(128) NOT NULL,
+    deduplication_id VARCHAR(128) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(512),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_outbox_analysis FOREIGN KEY(analysis_id) REFERENCES pet_analisys(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_analysis_outbox_status_next_attempt ON analysis_outbox (status, next_attempt_at, id);
+CREATE INDEX idx_analysis_outbox_analysis_id ON analysis_outbox (analysis_id);
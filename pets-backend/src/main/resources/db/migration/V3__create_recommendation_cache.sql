@@ -0,0 +1,9 @@
+CREATE TABLE recommendation_cache (
+    fingerprint VARCHAR(64) PRIMARY KEY,
+    category_recommendation VARCHAR(64) NOT NULL,
+    response TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_recommendation_cache_expires_at ON recommendation_cache (expires_at);
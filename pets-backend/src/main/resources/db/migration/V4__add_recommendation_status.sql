@@ -0,0 +1 @@
+ALTER TABLE recommendations ADD COLUMN status VARCHAR(32) NOT NULL DEFAULT 'COMPLETED';
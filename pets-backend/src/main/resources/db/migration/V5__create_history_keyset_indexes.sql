@@ -0,0 +1,3 @@
+CREATE INDEX idx_pet_analisys_pet_created_id ON pet_analisys (pet_id, created_at DESC, id DESC);
+
+CREATE INDEX idx_recommendations_pet_created_id ON recommendations (pet_id, created_at DESC, id DESC);
@@ -0,0 +1,3 @@
+CREATE INDEX idx_pets_user_id ON pets (user_id);
+
+CREATE INDEX idx_pet_analisys_pet_type_created ON pet_analisys (pet_id, analysis_type, created_at DESC);
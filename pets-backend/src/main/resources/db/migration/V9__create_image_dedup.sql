@@ -0,0 +1,10 @@
+-- One row per distinct analysis picture stored in S3, keyed by the SHA-256 of the upload.
+CREATE TABLE image_objects (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    url TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE pet_analisys ADD COLUMN content_hash VARCHAR(64);
+
+CREATE INDEX idx_pet_analisys_dedup ON pet_analisys (content_hash, pet_id, analysis_type, created_at DESC);
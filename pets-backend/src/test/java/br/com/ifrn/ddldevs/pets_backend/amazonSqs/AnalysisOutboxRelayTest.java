@@ -0,0 +1,185 @@
+package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.AnalysisOutbox;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.repository.AnalysisOutboxRepository;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.Message;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ActiveProfiles("test")
+class AnalysisOutboxRelayTest {
+
+    private static final String QUEUE = "https://sqs.local/000/pets-analysis.fifo";
+
+    @Mock
+    private AnalysisOutboxRepository outboxRepository;
+
+    @Mock
+    private PetAnalysisRepository petAnalysisRepository;
+
+    @Mock
+    private AnalysisUpdates analysisUpdates;
+
+    @Mock
+    private SqsTemplate sqsTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AnalysisOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        relay = new AnalysisOutboxRelay(outboxRepository, petAnalysisRepository,
+            analysisUpdates, sqsTemplate, transactionManager, new SimpleMeterRegistry(), QUEUE,
+            100, 3);
+    }
+
+    private static AnalysisOutbox row(long analysisId, int attempts) {
+        return AnalysisOutbox.builder()
+            .id(analysisId)
+            .analysisId(analysisId)
+            .groupId("pet-" + (analysisId % 3))
+            .deduplicationId("analysis-" + analysisId)
+            .payload("{\"analysisId\":" + analysisId + "}")
+            .status(OutboxStatus.PENDING)
+            .attempts(attempts)
+            .nextAttemptAt(LocalDateTime.now())
+            .build();
+    }
+
+    private static List<AnalysisOutbox> rows(int count) {
+        List<AnalysisOutbox> rows = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            rows.add(row(i, 0));
+        }
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void acceptAllExcept(String failedPayload) {
+        when(sqsTemplate.sendMany(anyString(), any(Collection.class))).thenAnswer(invocation -> {
+            Collection<Message<String>> messages = invocation.getArgument(1);
+            List<SendResult<String>> successful = new ArrayList<>();
+            List<SendResult.Failed<String>> failed = new ArrayList<>();
+            for (Message<String> message : messages) {
+                if (message.getPayload().equals(failedPayload)) {
+                    failed.add(new SendResult.Failed<>("throttled", QUEUE, message, Map.of()));
+                } else {
+                    successful.add(new SendResult<>(UUID.randomUUID(), QUEUE, message, Map.of()));
+                }
+            }
+            return new SendResult.Batch<>(successful, failed);
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relaysInBatchesOfTenWithFifoHeaders() {
+        List<AnalysisOutbox> pending = rows(23);
+        when(outboxRepository.lockNextBatch(eq(OutboxStatus.PENDING), any(), any(Pageable.class)))
+            .thenReturn(pending);
+        acceptAllExcept(null);
+
+        assertEquals(23, relay.relayBatch());
+
+        ArgumentCaptor<Collection<Message<String>>> batches = ArgumentCaptor.forClass(Collection.class);
+        verify(sqsTemplate, times(3)).sendMany(eq(QUEUE), batches.capture());
+        assertEquals(List.of(10, 10, 3),
+            batches.getAllValues().stream().map(Collection::size).toList());
+
+        Message<String> first = batches.getAllValues().get(0).iterator().next();
+        assertEquals("pet-1", first.getHeaders()
+            .get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER));
+        assertEquals("analysis-1", first.getHeaders()
+            .get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER));
+
+        ArgumentCaptor<Iterable<AnalysisOutbox>> deleted = ArgumentCaptor.forClass(Iterable.class);
+        verify(outboxRepository, times(3)).deleteAllInBatch(deleted.capture());
+        int deletedRows = deleted.getAllValues().stream()
+            .mapToInt(batch -> ((Collection<AnalysisOutbox>) batch).size()).sum();
+        assertEquals(23, deletedRows);
+    }
+
+    @Test
+    void failedEntryIsRescheduledWithBackoff() {
+        List<AnalysisOutbox> pending = rows(4);
+        AnalysisOutbox failing = pending.get(2);
+        when(outboxRepository.lockNextBatch(eq(OutboxStatus.PENDING), any(), any(Pageable.class)))
+            .thenReturn(pending);
+        acceptAllExcept(failing.getPayload());
+
+        relay.relayBatch();
+
+        assertEquals(1, failing.getAttempts());
+        assertEquals("throttled", failing.getLastError());
+        assertEquals(OutboxStatus.PENDING, failing.getStatus());
+        assertTrue(failing.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(petAnalysisRepository, never()).updateAnalysisStatus(any(), any());
+    }
+
+    @Test
+    void entryGivesUpAfterMaxAttempts() {
+        AnalysisOutbox failing = row(9L, 2);
+        AnalysisStatusEventDTO event = new AnalysisStatusEventDTO(3L, 9L, 1L,
+            AnalysisStatus.FAILURE, null, null);
+        when(petAnalysisRepository.findStatusEvent(9L)).thenReturn(Optional.of(event));
+        when(outboxRepository.lockNextBatch(eq(OutboxStatus.PENDING), any(), any(Pageable.class)))
+            .thenReturn(List.of(failing));
+        acceptAllExcept(failing.getPayload());
+
+        relay.relayBatch();
+
+        assertEquals(OutboxStatus.FAILED, failing.getStatus());
+        verify(petAnalysisRepository).updateAnalysisStatus(9L, AnalysisStatus.FAILURE);
+        verify(analysisUpdates).publish(event);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sqsOutageKeepsRowsForRetry() {
+        List<AnalysisOutbox> pending = rows(2);
+        when(outboxRepository.lockNextBatch(eq(OutboxStatus.PENDING), any(), any(Pageable.class)))
+            .thenReturn(pending);
+        when(sqsTemplate.sendMany(anyString(), any(Collection.class)))
+            .thenThrow(new IllegalStateException("connection refused"));
+
+        relay.relayBatch();
+
+        verify(outboxRepository, never()).deleteAllInBatch(any());
+        pending.forEach(row -> assertEquals(1, row.getAttempts()));
+    }
+}
@@ -0,0 +1,161 @@
+package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class AnalysisResponseProcessorTest {
+
+    @Mock
+    private PetAnalysisRepository petAnalysisRepository;
+
+    @Mock
+    private AnalysisUpdates analysisUpdates;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AnalysisResponseProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new AnalysisResponseProcessor(petAnalysisRepository, analysisUpdates,
+            meterRegistry);
+    }
+
+    private static Pet pet(long id, long ownerId) {
+        User owner = new User();
+        owner.setId(ownerId);
+        Pet pet = new Pet();
+        pet.setId(id);
+        pet.setUser(owner);
+        return pet;
+    }
+
+    private static PetAnalysis analysis(long id, Pet pet, AnalysisType type) {
+        PetAnalysis petAnalysis = new PetAnalysis();
+        petAnalysis.setId(id);
+        petAnalysis.setPet(pet);
+        petAnalysis.setAnalysisType(type);
+        petAnalysis.setAnalysisStatus(AnalysisStatus.IN_ANALYSIS);
+        return petAnalysis;
+    }
+
+    @Test
+    void appliesWholeBatchWithSingleLookup() {
+        Pet rex = pet(1L, 5L);
+        Pet mia = pet(2L, 6L);
+
+        PetAnalysis breed = analysis(10L, rex, AnalysisType.BREED);
+        PetAnalysis emotion = analysis(11L, mia, AnalysisType.EMOTIONAL);
+        PetAnalysis broken = analysis(12L, mia, AnalysisType.EMOTIONAL);
+
+        when(petAnalysisRepository.findAllWithPetByIdIn(List.of(10L, 11L, 12L, 99L)))
+            .thenReturn(List.of(breed, emotion, broken));
+
+        processor.process(List.of(
+            new AnalysisResponseMessage(10L, "Labrador", "200", "DOG_BREED", 0.91),
+            new AnalysisResponseMessage(11L, "Feliz", "200", "CAT_EMOTIONAL", 0.75),
+            new AnalysisResponseMessage(12L, "Imagem inválida", "422", "CAT_EMOTIONAL", null),
+            new AnalysisResponseMessage(99L, "Beagle", "200", "DOG_BREED", 0.5)
+        ));
+
+        verify(petAnalysisRepository, times(1)).findAllWithPetByIdIn(any());
+        verify(petAnalysisRepository, never()).findById(any());
+        verify(petAnalysisRepository, never()).save(any());
+        verify(petAnalysisRepository).flush();
+
+        assertEquals(AnalysisStatus.COMPLETED, breed.getAnalysisStatus());
+        assertEquals(0.91, breed.getAccuracy());
+        assertEquals("Labrador", rex.getBreed());
+
+        assertEquals(AnalysisStatus.COMPLETED, emotion.getAnalysisStatus());
+        assertNull(mia.getBreed());
+
+        assertEquals(AnalysisStatus.FAILURE, broken.getAnalysisStatus());
+        assertEquals("Imagem inválida", broken.getResult());
+
+        ArgumentCaptor<AnalysisStatusEventDTO> events =
+            ArgumentCaptor.forClass(AnalysisStatusEventDTO.class);
+        verify(analysisUpdates, times(3)).publish(events.capture());
+        assertEquals(new AnalysisStatusEventDTO(5L, 10L, 1L, AnalysisStatus.COMPLETED,
+            "Labrador", 0.91), events.getAllValues().get(0));
+        assertEquals(6L, events.getAllValues().get(2).userId());
+        assertEquals(AnalysisStatus.FAILURE, events.getAllValues().get(2).analysisStatus());
+
+        assertEquals(4.0, meterRegistry.get("pets.analysis.responses.batch.size")
+            .summary().totalAmount());
+        assertEquals(2.0, meterRegistry.get("pets.analysis.responses")
+            .tag("outcome", "completed").counter().count());
+        assertEquals(1.0, meterRegistry.get("pets.analysis.responses")
+            .tag("outcome", "failed").counter().count());
+        assertEquals(1.0, meterRegistry.get("pets.analysis.responses")
+            .tag("outcome", "unknown").counter().count());
+    }
+
+    @Test
+    void duplicateResponsesAreLoadedOnceAndLastOneWins() {
+        Pet rex = pet(1L, 5L);
+        PetAnalysis breed = analysis(10L, rex, AnalysisType.BREED);
+
+        when(petAnalysisRepository.findAllWithPetByIdIn(List.of(10L))).thenReturn(List.of(breed));
+
+        processor.process(List.of(
+            new AnalysisResponseMessage(10L, "Beagle", "200", "DOG_BREED", 0.4),
+            new AnalysisResponseMessage(10L, "Labrador", "200", "DOG_BREED", 0.9)
+        ));
+
+        assertEquals("Labrador", rex.getBreed());
+        assertEquals(0.9, breed.getAccuracy());
+    }
+
+    @Test
+    void malformedResponsesAreSkippedWithoutFailingTheBatch() {
+        Pet rex = pet(1L, 5L);
+        PetAnalysis breed = analysis(10L, rex, AnalysisType.BREED);
+
+        when(petAnalysisRepository.findAllWithPetByIdIn(List.of(10L))).thenReturn(List.of(breed));
+
+        processor.process(Arrays.asList(
+            new AnalysisResponseMessage(11L, "Feliz", null, "CAT_EMOTIONAL", 0.75),
+            new AnalysisResponseMessage(null, "Beagle", "200", "DOG_BREED", 0.5),
+            new AnalysisResponseMessage(12L, "Beagle", "200", null, 0.5),
+            null,
+            new AnalysisResponseMessage(10L, "Labrador", "200", "DOG_BREED", 0.91)
+        ));
+
+        verify(petAnalysisRepository).findAllWithPetByIdIn(List.of(10L));
+        assertEquals(AnalysisStatus.COMPLETED, breed.getAnalysisStatus());
+        assertEquals("Labrador", rex.getBreed());
+        verify(analysisUpdates, times(1)).publish(any());
+
+        assertEquals(4.0, meterRegistry.get("pets.analysis.responses")
+            .tag("outcome", "malformed").counter().count());
+        assertEquals(1.0, meterRegistry.get("pets.analysis.responses")
+            .tag("outcome", "completed").counter().count());
+    }
+}
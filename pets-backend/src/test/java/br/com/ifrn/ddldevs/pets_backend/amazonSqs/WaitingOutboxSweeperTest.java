@@ -0,0 +1,98 @@
+package br.com.ifrn.ddldevs.pets_backend.amazonSqs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
+import br.com.ifrn.ddldevs.pets_backend.domain.AnalysisOutbox;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.OutboxStatus;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.repository.AnalysisOutboxRepository;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ActiveProfiles("test")
+class WaitingOutboxSweeperTest {
+
+    @Mock
+    private AnalysisOutboxRepository outboxRepository;
+
+    @Mock
+    private PetAnalysisRepository petAnalysisRepository;
+
+    @Mock
+    private AnalysisUpdates analysisUpdates;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private WaitingOutboxSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new WaitingOutboxSweeper(outboxRepository, petAnalysisRepository,
+            analysisUpdates, transactionManager, meterRegistry, Duration.ofMinutes(30), 100);
+    }
+
+    @Test
+    void failsAnalysesWaitingLongerThanTheLimit() {
+        AnalysisOutbox stale = AnalysisOutbox.builder()
+            .id(1L)
+            .analysisId(7L)
+            .groupId("pet-1")
+            .deduplicationId("analysis-7")
+            .payload("{\"analysisId\":7}")
+            .status(OutboxStatus.WAITING)
+            .nextAttemptAt(LocalDateTime.now().minusHours(2))
+            .build();
+        AnalysisStatusEventDTO event = new AnalysisStatusEventDTO(3L, 7L, 1L,
+            AnalysisStatus.FAILURE, null, null);
+        when(outboxRepository.lockNextBatch(eq(OutboxStatus.WAITING), any(), any(Pageable.class)))
+            .thenReturn(List.of(stale));
+        when(petAnalysisRepository.findStatusEvent(7L)).thenReturn(Optional.of(event));
+
+        assertEquals(1, sweeper.sweepBatch());
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxRepository).lockNextBatch(eq(OutboxStatus.WAITING), before.capture(),
+            any(Pageable.class));
+        assertTrue(before.getValue().isBefore(LocalDateTime.now().minusMinutes(29)));
+        assertEquals(OutboxStatus.FAILED, stale.getStatus());
+        verify(petAnalysisRepository).updateAnalysisStatus(7L, AnalysisStatus.FAILURE);
+        verify(analysisUpdates).publish(event);
+        assertEquals(1.0, meterRegistry.get("pets.outbox.messages")
+            .tag("result", "abandoned").counter().count());
+    }
+
+    @Test
+    void nothingToSweepTouchesNoAnalysis() {
+        when(outboxRepository.lockNextBatch(eq(OutboxStatus.WAITING), any(), any(Pageable.class)))
+            .thenReturn(List.of());
+
+        assertEquals(0, sweeper.sweepBatch());
+
+        verify(petAnalysisRepository, never()).updateAnalysisStatus(any(), any());
+    }
+}
@@ -0,0 +1,306 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.amazonSqs.SQSSenderService;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline.AnalysisJob;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline.StagedImage;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.image.ImageDedupIndex;
+import br.com.ifrn.ddldevs.pets_backend.image.ImagePreprocessor;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import br.com.ifrn.ddldevs.pets_backend.service.UploadImageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class AnalysisPipelineTest {
+
+    @Mock
+    private UploadImageService uploadImageService;
+
+    @Mock
+    private SQSSenderService senderService;
+
+    @Mock
+    private PetAnalysisRepository petAnalysisRepository;
+
+    @Mock
+    private ImageDedupIndex imageDedupIndex;
+
+    @Mock
+    private AnalysisUpdates analysisUpdates;
+
+    @TempDir
+    private Path stagingDir;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BoundedExecutor executor;
+
+    private AnalysisPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new BoundedExecutor("analysis-test", 2, meterRegistry);
+        pipeline = pipeline(false);
+
+        when(uploadImageService.contentKey(anyString())).thenReturn("key-dog.jpg");
+        when(uploadImageService.urlFor("key-dog.jpg")).thenReturn("http://bucket/key-dog.jpg");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.close();
+    }
+
+    private AnalysisPipeline pipeline(boolean keepOriginal) throws IOException {
+        return new AnalysisPipeline(executor, uploadImageService, senderService,
+            petAnalysisRepository, meterRegistry, new ImagePreprocessor(64, 0.85f),
+            imageDedupIndex, analysisUpdates, stagingDir.toString(), keepOriginal, "originals/");
+    }
+
+    private StagedImage stageDog() {
+        return pipeline.stage(
+            new MockMultipartFile("picture", "dog.jpg", "image/jpeg", "fake-image".getBytes()));
+    }
+
+    @Test
+    void stageMovesPictureToStagingDirWithFinalUrl() {
+        StagedImage image = stageDog();
+
+        assertTrue(Files.exists(image.file()));
+        assertEquals(stagingDir, image.file().getParent());
+        assertEquals("key-dog.jpg", image.key());
+        assertEquals("http://bucket/key-dog.jpg", image.url());
+        assertEquals(10, image.size());
+        assertEquals("a8eb701c6f567b08661c2604364dd595455b811d2759d2029b465935b561c86b",
+            image.contentHash());
+        verify(uploadImageService).contentKey(image.contentHash());
+    }
+
+    @Test
+    void samePictureStagesUnderTheSameHash() {
+        assertEquals(stageDog().contentHash(), stageDog().contentHash());
+    }
+
+    @Test
+    void runUploadsThenReleasesMessageAndCleansUp() {
+        StagedImage image = stageDog();
+
+        pipeline.run(new AnalysisJob(7L, image));
+
+        InOrder order = inOrder(uploadImageService, senderService);
+        order.verify(uploadImageService)
+            .uploadStream(eq("key-dog.jpg"), any(), eq(10L), eq("image/jpeg"));
+        order.verify(senderService).releaseMessage(7L);
+        verify(imageDedupIndex).recordStored(image.contentHash(), "http://bucket/key-dog.jpg");
+        assertFalse(Files.exists(image.file()));
+        verify(petAnalysisRepository, never()).updateAnalysisStatus(anyLong(), any());
+        verify(senderService, never()).discardMessage(anyLong());
+        assertEquals(1, meterRegistry.get("pets.analysis.pipeline").tag("stage", "upload")
+            .timer().count());
+        assertEquals(1, meterRegistry.get("pets.analysis.pipeline").tag("stage", "enqueue")
+            .timer().count());
+    }
+
+    @Test
+    void runUploadsDownsizedJpegAndArchivesOriginal() throws IOException {
+        pipeline = pipeline(true);
+        byte[] photo = jpeg(640, 480);
+        StagedImage image = pipeline.stage(
+            new MockMultipartFile("picture", "dog.jpg", "image/jpeg", photo));
+
+        pipeline.run(new AnalysisJob(7L, image));
+
+        ArgumentCaptor<InputStream> uploaded = ArgumentCaptor.forClass(InputStream.class);
+        ArgumentCaptor<Long> length = ArgumentCaptor.forClass(Long.class);
+        InOrder order = inOrder(uploadImageService, senderService);
+        order.verify(uploadImageService)
+            .uploadStream(eq("key-dog.jpg"), uploaded.capture(), length.capture(), eq("image/jpeg"));
+        order.verify(senderService).releaseMessage(7L);
+        order.verify(uploadImageService).uploadStream(eq("originals/key-dog.jpg"), any(),
+            eq((long) photo.length), eq("image/jpeg"));
+
+        BufferedImage sent = ImageIO.read(uploaded.getValue());
+        assertEquals(64, sent.getWidth());
+        assertEquals(48, sent.getHeight());
+        assertTrue(length.getValue() < photo.length);
+        assertEquals(0.0, meterRegistry.get("pets.analysis.image.passthrough").counter().count());
+        assertEquals(1, meterRegistry.get("pets.analysis.pipeline").tag("stage", "preprocess")
+            .timer().count());
+    }
+
+    @Test
+    void undecodablePictureIsUploadedAsSent() {
+        StagedImage image = stageDog();
+
+        pipeline.run(new AnalysisJob(7L, image));
+
+        verify(uploadImageService)
+            .uploadStream(eq("key-dog.jpg"), any(), eq(10L), eq("image/jpeg"));
+        verify(uploadImageService, never()).uploadStream(eq("originals/key-dog.jpg"), any(),
+            anyLong(), any());
+        assertEquals(1.0, meterRegistry.get("pets.analysis.image.passthrough").counter().count());
+    }
+
+    @Test
+    void jobForStoredPictureOnlyReleasesMessage() {
+        pipeline.run(new AnalysisJob(7L, null));
+
+        verify(uploadImageService, never()).uploadStream(any(), any(), anyLong(), any());
+        verify(imageDedupIndex, never()).recordStored(any(), any());
+        verify(senderService).releaseMessage(7L);
+    }
+
+    @Test
+    void failedUploadMarksAnalysisAsFailure() {
+        StagedImage image = stageDog();
+        AnalysisStatusEventDTO event = new AnalysisStatusEventDTO(3L, 7L, 1L,
+            AnalysisStatus.FAILURE, null, null);
+        when(petAnalysisRepository.findStatusEvent(7L)).thenReturn(Optional.of(event));
+        doThrow(new IllegalStateException("s3 down")).when(uploadImageService)
+            .uploadStream(any(), any(), anyLong(), any());
+
+        pipeline.run(new AnalysisJob(7L, image));
+
+        verify(senderService, never()).releaseMessage(anyLong());
+        verify(senderService).discardMessage(7L);
+        verify(petAnalysisRepository).updateAnalysisStatus(7L, AnalysisStatus.FAILURE);
+        verify(analysisUpdates).publish(event);
+        assertFalse(Files.exists(image.file()));
+        assertEquals(1.0, meterRegistry.get("pets.analysis.pipeline.failures")
+            .tag("stage", "upload").counter().count());
+    }
+
+    @Test
+    void submitReleasesPermitWhenJobFinishes() {
+        assertTrue(pipeline.tryReserve());
+        assertTrue(pipeline.tryReserve());
+        assertFalse(pipeline.tryReserve());
+
+        pipeline.submitAfterCommit(new AnalysisJob(7L, stageDog()));
+
+        verify(senderService, timeout(5000)).releaseMessage(7L);
+        verify(uploadImageService, timeout(5000))
+            .uploadStream(eq("key-dog.jpg"), any(), eq(10L), eq("image/jpeg"));
+        pipeline.abandon(null);
+        assertTrue(waitForIdle());
+    }
+
+    @Test
+    void batchReservesAllPermitsOrNone() {
+        assertFalse(pipeline.tryReserve(3));
+        assertTrue(pipeline.tryReserve(2));
+        assertFalse(pipeline.tryReserve());
+
+        pipeline.abandon(null);
+        pipeline.abandon(null);
+        assertTrue(waitForIdle());
+    }
+
+    @Test
+    void batchReleasesAllMessagesTogetherAfterLastUpload() {
+        assertTrue(pipeline.tryReserve(2));
+
+        pipeline.submitAllAfterCommit(List.of(
+            new AnalysisJob(7L, stageDog()), new AnalysisJob(8L, stageDog())));
+
+        verify(senderService, timeout(5000)).releaseMessages(
+            argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(7L, 8L))));
+        verify(uploadImageService, times(2))
+            .uploadStream(eq("key-dog.jpg"), any(), eq(10L), eq("image/jpeg"));
+        verify(senderService, never()).releaseMessage(anyLong());
+        assertTrue(waitForIdle());
+    }
+
+    @Test
+    void batchStillReleasesPicturesThatUploaded() {
+        when(uploadImageService.uploadStream(any(), any(), anyLong(), any()))
+            .thenThrow(new IllegalStateException("s3 down"))
+            .thenReturn("http://bucket/key-dog.jpg");
+        assertTrue(pipeline.tryReserve(2));
+
+        pipeline.submitAllAfterCommit(List.of(
+            new AnalysisJob(7L, stageDog()), new AnalysisJob(8L, stageDog())));
+
+        verify(senderService, timeout(5000)).releaseMessage(anyLong());
+        verify(senderService).discardMessage(anyLong());
+        verify(petAnalysisRepository).updateAnalysisStatus(anyLong(), eq(AnalysisStatus.FAILURE));
+        verify(senderService, never()).releaseMessages(any());
+        assertTrue(waitForIdle());
+    }
+
+    @Test
+    void batchStillReleasesWhenRecordingAFailureThrows() {
+        when(uploadImageService.uploadStream(any(), any(), anyLong(), any()))
+            .thenThrow(new IllegalStateException("s3 down"))
+            .thenReturn("http://bucket/key-dog.jpg");
+        when(petAnalysisRepository.updateAnalysisStatus(anyLong(), eq(AnalysisStatus.FAILURE)))
+            .thenThrow(new IllegalStateException("db down"));
+        assertTrue(pipeline.tryReserve(2));
+
+        pipeline.submitAllAfterCommit(List.of(
+            new AnalysisJob(7L, stageDog()), new AnalysisJob(8L, stageDog())));
+
+        verify(senderService, timeout(5000)).releaseMessage(anyLong());
+        // the failed analysis keeps its WAITING row for the sweeper
+        verify(senderService, never()).discardMessage(anyLong());
+        assertTrue(waitForIdle());
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | 0x40);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    private boolean waitForIdle() {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.inFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        return executor.inFlight() == 0;
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.AnalysisStatusEventDTO;
+import br.com.ifrn.ddldevs.pets_backend.notification.PgNotificationBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class AnalysisUpdatesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final AnalysisStatusEventDTO COMPLETED = new AnalysisStatusEventDTO(
+        5L, 10L, 1L, AnalysisStatus.COMPLETED, "Feliz", 0.9);
+
+    @SuppressWarnings("unchecked")
+    private AnalysisUpdates updates(PgNotificationBus bus) {
+        ObjectProvider<PgNotificationBus> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bus);
+        return new AnalysisUpdates(provider, objectMapper, meterRegistry, 60000, 2);
+    }
+
+    private double pushed() {
+        return meterRegistry.get("pets.analysis.stream.pushed").counter().count();
+    }
+
+    @Test
+    void pushesOnlyToStreamsOfTheOwner() {
+        AnalysisUpdates updates = updates(null);
+        updates.subscribe(5L);
+        updates.subscribe(5L);
+        updates.subscribe(6L);
+
+        updates.publish(COMPLETED);
+
+        assertEquals(2.0, pushed());
+    }
+
+    @Test
+    void analysesStillRunningAreNotPushed() {
+        AnalysisUpdates updates = updates(null);
+        updates.subscribe(5L);
+
+        updates.publish(new AnalysisStatusEventDTO(5L, 10L, 1L, AnalysisStatus.IN_ANALYSIS,
+            null, null));
+
+        assertEquals(0.0, pushed());
+    }
+
+    @Test
+    void keepsOnlyTheNewestStreamsOfAUser() {
+        AnalysisUpdates updates = updates(null);
+        updates.subscribe(5L);
+        updates.subscribe(5L);
+        updates.subscribe(5L);
+
+        assertEquals(2, updates.subscriberCount());
+    }
+
+    @Test
+    void announcesToOtherInstancesAndIgnoresItsOwnNotification() {
+        PgNotificationBus bus = mock(PgNotificationBus.class);
+        AnalysisUpdates updates = updates(bus);
+        verify(bus).subscribe(AnalysisUpdates.CHANNEL, updates);
+        updates.subscribe(5L);
+
+        updates.publish(COMPLETED);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(bus).publish(eq(AnalysisUpdates.CHANNEL), payload.capture());
+        updates.onNotification(payload.getValue());
+        assertEquals(1.0, pushed());
+
+        // the same change announced by another instance
+        AnalysisUpdates other = updates(mock(PgNotificationBus.class));
+        other.subscribe(5L);
+        other.onNotification(payload.getValue());
+        assertEquals(2.0, pushed());
+    }
+
+    @Test
+    void invalidNotificationIsIgnored() {
+        PgNotificationBus bus = mock(PgNotificationBus.class);
+        AnalysisUpdates updates = updates(bus);
+        updates.subscribe(5L);
+
+        updates.onNotification("not json");
+
+        assertEquals(0.0, pushed());
+        verify(bus, never()).publish(anyString(), any());
+    }
+}
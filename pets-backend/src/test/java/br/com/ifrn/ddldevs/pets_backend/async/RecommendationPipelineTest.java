@@ -0,0 +1,178 @@
+package br.com.ifrn.ddldevs.pets_backend.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
+import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.exception.RecommendationClientException;
+import br.com.ifrn.ddldevs.pets_backend.mapper.RecommendationMapper;
+import br.com.ifrn.ddldevs.pets_backend.microservice.RecommendationRequestsService;
+import br.com.ifrn.ddldevs.pets_backend.repository.RecommendationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class RecommendationPipelineTest {
+
+    @Mock
+    private RecommendationRepository recommendationRepository;
+
+    @Mock
+    private RecommendationRequestsService recommendationRequestsService;
+
+    @Mock
+    private RecommendationMapper recommendationMapper;
+
+    @Mock
+    private RecommendationUpdates recommendationUpdates;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BoundedExecutor executor;
+
+    private RecommendationPipeline pipeline;
+
+    private Recommendation recommendation;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new BoundedExecutor("recommendation-test", 1, meterRegistry);
+        pipeline = new RecommendationPipeline(executor, recommendationRepository,
+            recommendationRequestsService, recommendationMapper, recommendationUpdates,
+            meterRegistry, Duration.ofMinutes(10), 100);
+
+        recommendation = new Recommendation();
+        recommendation.setId(3L);
+        recommendation.setPet(new Pet());
+        recommendation.setCategoryRecommendation(RecommendationCategories.TRAINING);
+        when(recommendationRepository.findWithPetById(3L)).thenReturn(Optional.of(recommendation));
+        when(recommendationMapper.toRecommendationResponseDTO(recommendation)).thenAnswer(
+            invocation -> new RecommendationResponseDTO(3L, LocalDateTime.now(),
+                LocalDateTime.now(), recommendation.getRecommendation(),
+                recommendation.getCategoryRecommendation(), recommendation.getStatus()));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.close();
+    }
+
+    @Test
+    void runStoresGeneratedTextAndPublishesIt() {
+        when(recommendationRequestsService.generateRecommendation(recommendation))
+            .thenReturn("Reforço positivo");
+        when(recommendationRepository.finishRecommendation(3L, RecommendationStatus.COMPLETED,
+            "Reforço positivo")).thenReturn(1);
+
+        pipeline.run(3L);
+
+        verify(recommendationUpdates).publish(argThat(dto ->
+            dto.status() == RecommendationStatus.COMPLETED
+                && "Reforço positivo".equals(dto.recommendation())));
+        assertEquals(RecommendationStatus.COMPLETED, recommendation.getStatus());
+        assertEquals(1, meterRegistry.get("pets.recommendation.pipeline").tag("stage", "generate")
+            .timer().count());
+    }
+
+    @Test
+    void failedGenerationMarksRecommendationAsFailure() {
+        when(recommendationRequestsService.generateRecommendation(recommendation))
+            .thenThrow(new RecommendationClientException("Microsserviço respondeu com status 500"));
+        when(recommendationRepository.finishRecommendation(3L, RecommendationStatus.FAILURE, null))
+            .thenReturn(1);
+
+        pipeline.run(3L);
+
+        verify(recommendationRepository).finishRecommendation(3L, RecommendationStatus.FAILURE, null);
+        assertEquals(RecommendationStatus.FAILURE, recommendation.getStatus());
+        assertEquals(1.0, meterRegistry.get("pets.recommendation.pipeline.failures").counter()
+            .count());
+        verify(recommendationUpdates).publish(argThat(dto ->
+            dto.status() == RecommendationStatus.FAILURE && dto.recommendation() == null));
+    }
+
+    @Test
+    void deletedRecommendationIsSkipped() {
+        when(recommendationRepository.findWithPetById(3L)).thenReturn(Optional.empty());
+
+        pipeline.run(3L);
+
+        verify(recommendationRequestsService, never()).generateRecommendation(any());
+        verify(recommendationRepository, never()).finishRecommendation(anyLong(), any(), any());
+    }
+
+    @Test
+    void submitRunsJobAndReleasesPermit() {
+        when(recommendationRequestsService.generateRecommendation(recommendation)).thenReturn("ok");
+        when(recommendationRepository.finishRecommendation(3L, RecommendationStatus.COMPLETED, "ok"))
+            .thenReturn(1);
+
+        assertTrue(pipeline.tryReserve());
+        pipeline.submitAfterCommit(3L);
+
+        verify(recommendationUpdates, timeout(5000)).publish(any());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.inFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    void stalePendingRecommendationsAreFailedAndPublished() {
+        when(recommendationRepository.findPendingIdsCreatedBefore(any(), any(Pageable.class)))
+            .thenReturn(List.of(3L));
+        when(recommendationRepository.finishRecommendation(3L, RecommendationStatus.FAILURE, null))
+            .thenReturn(1);
+
+        pipeline.failStalePending();
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(recommendationRepository).findPendingIdsCreatedBefore(before.capture(),
+            any(Pageable.class));
+        assertTrue(before.getValue().isBefore(LocalDateTime.now().minusMinutes(9)));
+        verify(recommendationRequestsService, never()).generateRecommendation(any());
+        verify(recommendationUpdates).publish(argThat(dto ->
+            dto.status() == RecommendationStatus.FAILURE));
+        assertEquals(1.0, meterRegistry.get("pets.recommendation.pipeline.abandoned").counter()
+            .count());
+    }
+
+    @Test
+    void staleRecommendationFinishedMeanwhileIsNotPublishedAgain() {
+        when(recommendationRepository.findPendingIdsCreatedBefore(any(), any(Pageable.class)))
+            .thenReturn(List.of(3L));
+        when(recommendationRepository.finishRecommendation(eq(3L), any(), any())).thenReturn(0);
+
+        pipeline.failStalePending();
+
+        verify(recommendationUpdates, never()).publish(any());
+        assertEquals(0.0, meterRegistry.get("pets.recommendation.pipeline.abandoned").counter()
+            .count());
+    }
+}
@@ -1,5 +1,14 @@
 package br.com.ifrn.ddldevs.pets_backend.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -7,6 +16,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import br.com.ifrn.ddldevs.pets_backend.SecurityTestConfig;
 import br.com.ifrn.ddldevs.pets_backend.amazonSqs.SQSSenderService;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisUpdates;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
@@ -25,12 +35,15 @@ import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
 import br.com.ifrn.ddldevs.pets_backend.service.PetAnalysisService;
 import br.com.ifrn.ddldevs.pets_backend.service.UploadImageService;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jayway.jsonpath.JsonPath;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.core.MediaType;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -84,6 +97,9 @@ public class PetAnalysisControllerTest {
     @Autowired
     private TokenUtils tokenUtils;
 
+    @Autowired
+    private AnalysisUpdates analysisUpdates;
+
     @Mock
     private PetAnalysisService petAnalysisService;
 
@@ -214,7 +230,9 @@ public class PetAnalysisControllerTest {
             "fake-image-content".getBytes()
         );
 
-        when(uploadImageService.uploadImg(mockImage)).thenReturn("image/png");
+        when(uploadImageService.contentKey(anyString())).thenReturn("key-user-picture.jpg");
+        when(uploadImageService.urlFor("key-user-picture.jpg"))
+            .thenReturn("http://localhost/fake-bucket/key-user-picture.jpg");
 
         mockMvc.perform(
                 MockMvcRequestBuilders.multipart("/pet-analysis/")
@@ -225,7 +243,147 @@ public class PetAnalysisControllerTest {
                     .param("analysisType", "EMOTIONAL")
             )
             .andExpect(
-                MockMvcResultMatchers.status().isCreated());
+                MockMvcResultMatchers.status().isAccepted());
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a análise ao reenviar a mesma imagem com o mesmo tipo")
+    void shouldReuseAnalysisWhenSamePictureIsResubmitted() throws Exception {
+        petAnalysisRepository.deleteAll();
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        when(uploadImageService.contentKey(anyString())).thenReturn("key-user-picture.jpg");
+        when(uploadImageService.urlFor("key-user-picture.jpg"))
+            .thenReturn("http://localhost/fake-bucket/key-user-picture.jpg");
+
+        MockMultipartFile mockImage = new MockMultipartFile(
+            "picture",
+            "user-picture.jpg",
+            "image/jpeg",
+            "same-picture-content".getBytes()
+        );
+
+        String first = mockMvc.perform(
+                MockMvcRequestBuilders.multipart("/pet-analysis/")
+                    .file(mockImage)
+                    .header("Authorization", "Bearer " + tokenString)
+                    .param("petId", String.valueOf(pet.getId()))
+                    .param("analysisType", "EMOTIONAL")
+            )
+            .andExpect(MockMvcResultMatchers.status().isAccepted())
+            .andReturn().getResponse().getContentAsString();
+        Integer firstId = JsonPath.read(first, "$.id");
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.multipart("/pet-analysis/")
+                    .file(mockImage)
+                    .header("Authorization", "Bearer " + tokenString)
+                    .param("petId", String.valueOf(pet.getId()))
+                    .param("analysisType", "EMOTIONAL")
+            )
+            .andExpect(MockMvcResultMatchers.status().isAccepted())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(firstId));
+
+        assertEquals(1, petAnalysisRepository.count());
+    }
+
+    @Test
+    @DisplayName("Deve criar uma análise por imagem enviada em lote")
+    void shouldCreatePetAnalysesInBatch() throws Exception {
+        petAnalysisRepository.deleteAll();
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        when(uploadImageService.contentKey(anyString()))
+            .thenAnswer(invocation -> "sha256/" + invocation.getArgument(0));
+        when(uploadImageService.urlFor(anyString()))
+            .thenAnswer(invocation -> "http://localhost/fake-bucket/" + invocation.getArgument(0));
+
+        String body = mockMvc.perform(
+                MockMvcRequestBuilders.multipart("/pet-analysis/batch")
+                    .file(new MockMultipartFile("pictures", "a.jpg", "image/jpeg", "a".getBytes()))
+                    .file(new MockMultipartFile("pictures", "b.jpg", "image/jpeg", "b".getBytes()))
+                    .file(new MockMultipartFile("pictures", "c.jpg", "image/jpeg", "a".getBytes()))
+                    .header("Authorization", "Bearer " + tokenString)
+                    .param("petId", String.valueOf(pet.getId()))
+                    .param("analysisType", "EMOTIONAL")
+            )
+            .andExpect(MockMvcResultMatchers.status().isAccepted())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].status").value("IN_ANALYSIS"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].reused").value(false))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[2].reused").value(true))
+            .andReturn().getResponse().getContentAsString();
+
+        Integer first = JsonPath.read(body, "$[0].id");
+        Integer second = JsonPath.read(body, "$[1].id");
+        assertEquals(first, JsonPath.<Integer>read(body, "$[2].id"));
+        assertNotEquals(first, second);
+        assertEquals(2, petAnalysisRepository.count());
+        verify(sqsSenderService).holdMessages(
+            argThat(messages -> messages.size() == 2), eq("pet-" + pet.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve criar uma Pet Analysis a partir de uma imagem já enviada ao S3")
+    void shouldConfirmPetAnalysisFromUploadedPicture() throws Exception {
+        petAnalysisRepository.deleteAll();
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        String uploadKey = "uploads/" + user.getKeycloakId() + "/picture.jpg";
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType("image/jpeg");
+        metadata.setContentLength(2048);
+        when(uploadImageService.findObject(uploadKey)).thenReturn(Optional.of(metadata));
+        when(uploadImageService.urlFor(uploadKey))
+            .thenReturn("http://localhost/fake-bucket/" + uploadKey);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.post("/pet-analysis/confirm")
+                    .header("Authorization", "Bearer " + tokenString)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                        {"petId": %d, "uploadKey": "%s", "analysisType": "EMOTIONAL"}
+                        """.formatted(pet.getId(), uploadKey))
+            )
+            .andExpect(MockMvcResultMatchers.status().isAccepted())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.picture")
+                .value("http://localhost/fake-bucket/" + uploadKey));
+
+        verify(uploadImageService, never()).uploadStream(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Deve recusar a confirmação de um upload que não existe")
+    void shouldRejectConfirmationOfMissingUpload() throws Exception {
+        petAnalysisRepository.deleteAll();
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        String uploadKey = "uploads/" + user.getKeycloakId() + "/missing.jpg";
+        when(uploadImageService.findObject(uploadKey)).thenReturn(Optional.empty());
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.post("/pet-analysis/confirm")
+                    .header("Authorization", "Bearer " + tokenString)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                        {"petId": %d, "uploadKey": "%s", "analysisType": "EMOTIONAL"}
+                        """.formatted(pet.getId(), uploadKey))
+            )
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        assertEquals(0, petAnalysisRepository.count());
     }
 
     @Test
@@ -308,4 +466,19 @@ public class PetAnalysisControllerTest {
                 .header("Authorization", "Bearer " + tokenString))
             .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve abrir o stream de análises do usuário logado")
+    void shouldOpenAnalysisStream() throws Exception {
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+        int subscribers = analysisUpdates.subscriberCount();
+
+        mockMvc.perform(get("/pet-analysis/stream")
+                .header("Authorization", "Bearer " + tokenString))
+            .andExpect(MockMvcResultMatchers.request().asyncStarted());
+
+        assertEquals(subscribers + 1, analysisUpdates.subscriberCount());
+    }
+}
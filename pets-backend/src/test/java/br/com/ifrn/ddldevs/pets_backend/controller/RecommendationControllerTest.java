@@ -1,13 +1,20 @@
 package br.com.ifrn.ddldevs.pets_backend.controller;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import br.com.ifrn.ddldevs.pets_backend.SecurityTestConfig;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Gender;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
@@ -23,6 +30,7 @@ import br.com.ifrn.ddldevs.pets_backend.microservice.RecommendationRequestsServi
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.RecommendationRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import com.jayway.jsonpath.JsonPath;
 import jakarta.transaction.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -44,6 +52,7 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
@@ -206,7 +215,8 @@ public class RecommendationControllerTest {
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(requestBody)
             )
-            .andExpect(MockMvcResultMatchers.status().isCreated());
+            .andExpect(MockMvcResultMatchers.status().isAccepted())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.status").value("PENDING"));
     }
 
     @Test
@@ -239,6 +249,75 @@ public class RecommendationControllerTest {
             .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("Deve enviar a recomendação pronta pelo stream")
+    void shouldStreamFinishedRecommendation() throws Exception {
+        recommendation.setStatus(RecommendationStatus.COMPLETED);
+        recommendation.setRecommendation("Passeios diários");
+        recommendationRepository.save(recommendation);
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        MvcResult result = mockMvc.perform(get("/recommendations/{id}/stream", recommendation.getId())
+                .header("Authorization", "Bearer " + tokenString))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("event:recommendation")))
+            .andExpect(content().string(containsString("\"status\":\"COMPLETED\"")));
+    }
+
+    @Test
+    @DisplayName("Deve paginar o histórico de recomendações por cursor")
+    void shouldPageRecommendationsByCursor() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            Recommendation older = recommendationMapper.toEntity(
+                new RecommendationRequestDTO(pet.getId(), RecommendationCategories.HEALTH));
+            older.setPet(pet);
+            recommendationRepository.save(older);
+        }
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        MvcResult firstPage = mockMvc.perform(get("/recommendations/pet/{id}/cursor", pet.getId())
+                .param("size", "2")
+                .header("Authorization", "Bearer " + tokenString))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andReturn();
+
+        String cursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/recommendations/pet/{id}/cursor", pet.getId())
+                .param("size", "2")
+                .param("cursor", cursor)
+                .header("Authorization", "Bearer " + tokenString))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.hasNext").value(false))
+            .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um cursor inválido")
+    void shouldRejectInvalidCursor() throws Exception {
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        mockMvc.perform(get("/recommendations/pet/{id}/cursor", pet.getId())
+                .param("cursor", "nao-e-um-cursor")
+                .header("Authorization", "Bearer " + tokenString))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Deve deletar uma recomendação com sucesso")
     void shouldDeleteRecommendationSuccessfully() throws Exception {
@@ -5,11 +5,14 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
 import br.com.ifrn.ddldevs.pets_backend.SecurityTestConfig;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.User;
 import br.com.ifrn.ddldevs.pets_backend.dto.User.UserRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.keycloak.KcUserResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.keycloak.KeycloakServiceImpl;
 import br.com.ifrn.ddldevs.pets_backend.mapper.UserMapper;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
 import br.com.ifrn.ddldevs.pets_backend.service.UploadImageService;
 import br.com.ifrn.ddldevs.pets_backend.service.UserService;
@@ -17,6 +20,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -34,6 +38,7 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
@@ -58,6 +63,9 @@ public class UserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PetRepository petRepository;
+
     @Autowired
     private JwtDecoder jwtDecoder;
 
@@ -101,6 +109,7 @@ public class UserControllerTest {
 
     @AfterEach
     public void tearDown() {
+        petRepository.deleteAll();
         userRepository.deleteAll();
     }
 
@@ -119,6 +128,61 @@ public class UserControllerTest {
             .andExpect(MockMvcResultMatchers.status().isOk());
     }
 
+    @Test
+    @DisplayName("Deve limitar a listagem de usuários ao tamanho máximo de página")
+    void shouldCapUserListPageSize() throws Exception {
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("admin"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/users/")
+                    .param("size", "100000")
+                    .header("Authorization", "Bearer " + tokenString)
+            )
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.size").value(100))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].id").value(user.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve exportar usuários em CSV para admin")
+    void shouldExportUsersAsCsv() throws Exception {
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("admin"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/users/export")
+                    .param("format", "CSV")
+                    .header("Authorization", "Bearer " + tokenString)
+            )
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.header().string("Content-Disposition",
+                "attachment; filename=\"users.csv\""))
+            .andExpect(MockMvcResultMatchers.content().string(Matchers.startsWith(
+                "id,createdAt,updatedAt,username,keycloakId,email,firstName,lastName,"
+                    + "dateOfBirth,photoUrl\r\n" + user.getId() + ",")));
+    }
+
+    @Test
+    @DisplayName("Deve retornar Forbidden ao exportar usuários com token de client")
+    void shouldNotExportUsersWithClientToken() throws Exception {
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/users/export")
+                    .header("Authorization", "Bearer " + tokenString)
+            )
+            .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
     @Test
     @DisplayName("Deve retornar Forbidden ao listar usuários com token de client")
     void shouldListUsersNotSuccessfully() throws Exception {
@@ -153,6 +217,32 @@ public class UserControllerTest {
             .andExpect(MockMvcResultMatchers.content().string(expectedResponse));
     }
 
+    @Test
+    @DisplayName("Deve listar todos os pets do usuário logado em streaming")
+    void shouldStreamPetsOfLoggedUser() throws Exception {
+        Pet apolo = petRepository.save(
+            Pet.builder().name("Apolo").species(Species.DOG).user(user).build());
+        petRepository.save(Pet.builder().name("Mike").species(Species.CAT).user(user).build());
+
+        String tokenString = tokenUtils.getToken(user.getEmail());
+        Jwt jwt = tokenUtils.getJwt(tokenString, user, List.of("client"));
+        when(jwtDecoder.decode(tokenString)).thenReturn(jwt);
+
+        MvcResult result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/users/pets")
+                    .header("Authorization", "Bearer " + tokenString)
+            )
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(apolo.getId()))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("Apolo"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[1].species").value("CAT"));
+    }
+
     @Test
     @DisplayName("Deve buscar usuário por ID com sucesso quando o usuário é admin")
     void shouldGetUserByIdSuccessfully() throws Exception {
@@ -0,0 +1,52 @@
+package br.com.ifrn.ddldevs.pets_backend.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class StreamingExporterTest {
+
+    record Row(Long id, String name, Integer height) {
+    }
+
+    private final StreamingExporter exporter = new StreamingExporter(new ObjectMapper(),
+        mock(PlatformTransactionManager.class), 2);
+
+    @Test
+    void ndjsonWritesOneDocumentPerLine() throws Exception {
+        String body = write(exporter.ndjson(() -> Stream.of(
+            new Row(1L, "Apolo", 30), new Row(2L, "Mike", null), new Row(3L, "Bidu", 12))));
+
+        assertEquals("{\"id\":1,\"name\":\"Apolo\",\"height\":30}\n"
+            + "{\"id\":2,\"name\":\"Mike\",\"height\":null}\n"
+            + "{\"id\":3,\"name\":\"Bidu\",\"height\":12}\n", body);
+    }
+
+    @Test
+    void csvWritesHeaderAndQuotesOnlyWhenNeeded() throws Exception {
+        String body = write(exporter.csv(Row.class, () -> Stream.of(
+            new Row(1L, "Apolo", 30), new Row(2L, "Mike, \"o gato\"", null))));
+
+        assertEquals("id,name,height\r\n1,Apolo,30\r\n2,\"Mike, \"\"o gato\"\"\",\r\n", body);
+    }
+
+    @Test
+    void exportWithoutRowsWritesOnlyTheCsvHeader() throws Exception {
+        assertEquals("id,name,height\r\n",
+            write(exporter.export(ExportFormat.CSV, Row.class, Stream::empty)));
+        assertEquals("", write(exporter.export(ExportFormat.NDJSON, Row.class, Stream::empty)));
+    }
+
+    private String write(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.ifrn.ddldevs.pets_backend.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+@ActiveProfiles("test")
+class ImageDedupIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PetAnalysisRepository petAnalysisRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transaction;
+
+    private ImageDedupIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(transaction);
+        index = new ImageDedupIndex(jdbcTemplate, petAnalysisRepository, transactionManager,
+            new SimpleMeterRegistry(), Duration.ofHours(24));
+    }
+
+    @Test
+    void lookupRunsInItsOwnTransaction() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("hash")))
+            .thenReturn(List.of("http://bucket/key.jpg"));
+
+        assertEquals("http://bucket/key.jpg", index.findStoredUrl("hash").orElseThrow());
+
+        ArgumentCaptor<TransactionDefinition> definition =
+            ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW,
+            definition.getValue().getPropagationBehavior());
+        verify(transactionManager).commit(transaction);
+    }
+
+    @Test
+    void failedLookupRollsBackOnlyItsOwnTransactionAndMisses() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("hash")))
+            .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        assertTrue(index.findStoredUrl("hash").isEmpty());
+
+        verify(transactionManager).rollback(transaction);
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.ifrn.ddldevs.pets_backend.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.image.ImagePreprocessor.ProcessedImage;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImagePreprocessorTest {
+
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(64, 0.85f);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void downsizesToTheLongestSideAndKeepsAspectRatio() throws IOException {
+        ProcessedImage processed = preprocessor.process(write(jpeg(400, 200, 1))).orElseThrow();
+
+        assertEquals(64, processed.width());
+        assertEquals(32, processed.height());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(processed.bytes()));
+        assertEquals(64, decoded.getWidth());
+    }
+
+    @Test
+    void neverUpscalesSmallPictures() throws IOException {
+        ProcessedImage processed = preprocessor.process(write(jpeg(40, 30, 1))).orElseThrow();
+
+        assertEquals(40, processed.width());
+        assertEquals(30, processed.height());
+    }
+
+    @Test
+    void rotatesUprightFromExifOrientation() throws IOException {
+        ProcessedImage processed = preprocessor.process(write(jpeg(400, 200, 6))).orElseThrow();
+
+        assertEquals(32, processed.width());
+        assertEquals(64, processed.height());
+    }
+
+    @Test
+    void pictureThatIsNotAnImageIsLeftAlone() throws IOException {
+        Path file = dir.resolve("fake");
+        Files.write(file, "fake-image".getBytes());
+
+        assertTrue(preprocessor.process(file).isEmpty());
+    }
+
+    @Test
+    void readsOrientationOnlyFromWellFormedExif() throws IOException {
+        assertEquals(8, ImagePreprocessor.readOrientation(
+            new ByteArrayInputStream(jpeg(8, 8, 8))));
+        assertEquals(1, ImagePreprocessor.readOrientation(
+            new ByteArrayInputStream(jpeg(8, 8, 1))));
+        assertEquals(1, ImagePreprocessor.readOrientation(
+            new ByteArrayInputStream("not a jpeg".getBytes())));
+    }
+
+    @Test
+    void orientationSixTurnsClockwise() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, Color.RED.getRGB());
+        image.setRGB(1, 0, Color.BLUE.getRGB());
+
+        BufferedImage upright = ImagePreprocessor.orient(image, 6);
+
+        assertEquals(1, upright.getWidth());
+        assertEquals(2, upright.getHeight());
+        assertEquals(Color.RED.getRGB(), upright.getRGB(0, 0));
+        assertEquals(Color.BLUE.getRGB(), upright.getRGB(0, 1));
+    }
+
+    private Path write(byte[] bytes) throws IOException {
+        return Files.write(dir.resolve("picture.jpg"), bytes);
+    }
+
+    // a plain JPEG, with an EXIF APP1 segment carrying the orientation spliced in
+    private static byte[] jpeg(int width, int height, int orientation) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", encoded);
+        byte[] plain = encoded.toByteArray();
+        if (orientation == 1) {
+            return plain;
+        }
+
+        ByteBuffer exif = ByteBuffer.allocate(2 + 2 + 6 + 8 + 2 + 12 + 4);
+        exif.putShort((short) 0xFFE1).putShort((short) (exif.capacity() - 2));
+        exif.put("Exif\0\0".getBytes(StandardCharsets.US_ASCII));
+        exif.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1)
+            .putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+
+        // after the JFIF APP0 segment the encoder writes first
+        int app0End = 4 + ((plain[4] & 0xFF) << 8 | (plain[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(plain, 0, app0End);
+        out.write(exif.array());
+        out.write(plain, app0End, plain.length - app0End);
+        return out.toByteArray();
+    }
+}
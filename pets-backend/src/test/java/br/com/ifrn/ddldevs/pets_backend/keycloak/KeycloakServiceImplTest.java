@@ -0,0 +1,142 @@
+package br.com.ifrn.ddldevs.pets_backend.keycloak;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserUpdateRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.keycloak.KcUserResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.core.Response;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ActiveProfiles("test")
+class KeycloakServiceImplTest {
+
+    @Mock
+    private Keycloak keycloak;
+
+    @Mock
+    private RealmResource realm;
+
+    @Mock
+    private UsersResource users;
+
+    @Mock
+    private UserResource userResource;
+
+    @Mock
+    private KeycloakTokenClient tokenClient;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private KeycloakUserDirectory directory;
+
+    private KeycloakServiceImpl keycloakService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        directory = new KeycloakUserDirectory(userRepository, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+        keycloakService = new KeycloakServiceImpl(keycloak, tokenClient, directory);
+        ReflectionTestUtils.setField(keycloakService, "realmName", "pets-backend");
+        when(keycloak.realm("pets-backend")).thenReturn(realm);
+        when(realm.users()).thenReturn(users);
+        when(users.get("1abc23")).thenReturn(userResource);
+    }
+
+    @Test
+    void createUserTakesIdFromLocationWithoutReadingBack() {
+        when(users.create(any())).thenReturn(Response.created(
+            URI.create("http://localhost:8082/admin/realms/pets-backend/users/1abc23")).build());
+
+        KcUserResponseDTO created = keycloakService.createUser(new UserRequestDTO(
+            "Alex", "alex@Email.com", "Alex", "Silva", LocalDate.of(2000, 1, 1), null,
+            "12345678"));
+
+        assertEquals(new KcUserResponseDTO("1abc23", "alex", "alex@email.com", "Alex", "Silva"),
+            created);
+        verify(userResource, never()).toRepresentation();
+        assertEquals("alex", directory.find("1abc23").orElseThrow().getUsername());
+    }
+
+    @Test
+    void updateUserStartsFromDirectoryAndSkipsReadAfterWrite() {
+        UserRepresentation current = new UserRepresentation();
+        current.setId("1abc23");
+        current.setUsername("alex");
+        current.setEmail("alex@email.com");
+        current.setFirstName("Alex");
+        current.setLastName("Silva");
+        directory.put(current);
+
+        KcUserResponseDTO updated = keycloakService.updateUser("1abc23",
+            new UserUpdateRequestDTO("new@email.com", "Alexandre", "Souza", null, null));
+
+        ArgumentCaptor<UserRepresentation> sent = ArgumentCaptor.forClass(UserRepresentation.class);
+        verify(userResource).update(sent.capture());
+        verify(userResource, never()).toRepresentation();
+        assertEquals("alex", sent.getValue().getUsername());
+        assertEquals("new@email.com", sent.getValue().getEmail());
+        assertEquals(new KcUserResponseDTO("1abc23", "alex", "new@email.com", "Alexandre", "Souza"),
+            updated);
+        assertEquals("Alexandre", directory.find("1abc23").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void updateUserReadsKeycloakOnlyForUnknownUsers() {
+        when(userRepository.findByKeycloakId("1abc23")).thenReturn(Optional.empty());
+        UserRepresentation remote = new UserRepresentation();
+        remote.setId("1abc23");
+        remote.setUsername("alex");
+        when(userResource.toRepresentation()).thenReturn(remote);
+
+        keycloakService.updateUser("1abc23",
+            new UserUpdateRequestDTO("alex@email.com", "Alex", "Silva", null, null));
+
+        verify(userResource).toRepresentation();
+        verify(userResource).update(remote);
+    }
+
+    @Test
+    void updateUserFromUsersTableLeavesAccountFlagsToKeycloak() {
+        when(userRepository.findByKeycloakId("1abc23")).thenReturn(Optional.of(User.builder()
+            .keycloakId("1abc23")
+            .username("alex")
+            .email("alex@email.com")
+            .firstName("Alex")
+            .lastName("Silva")
+            .build()));
+
+        keycloakService.updateUser("1abc23",
+            new UserUpdateRequestDTO("new@email.com", "Alex", "Silva", null, null));
+
+        ArgumentCaptor<UserRepresentation> sent = ArgumentCaptor.forClass(UserRepresentation.class);
+        verify(userResource).update(sent.capture());
+        assertNull(sent.getValue().isEnabled());
+        assertNull(sent.getValue().isEmailVerified());
+    }
+}
@@ -0,0 +1,136 @@
+package br.com.ifrn.ddldevs.pets_backend.keycloak;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.resilience.AdaptiveTimeout;
+import br.com.ifrn.ddldevs.pets_backend.resilience.DependencyGuard;
+import br.com.ifrn.ddldevs.pets_backend.stubs.KeycloakStub;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer.StubResponse;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+@ActiveProfiles("test")
+class KeycloakTokenClientTest {
+
+    private KeycloakStub keycloak;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DependencyGuard guard;
+
+    private KeycloakTokenClient client;
+
+    @BeforeEach
+    void setUp() {
+        keycloak = new KeycloakStub(Duration.ofMillis(200));
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new DependencyGuard("keycloak", Bulkhead.ofDefaults("keycloak"),
+            CircuitBreaker.ofDefaults("keycloak"),
+            new AdaptiveTimeout(Duration.ofSeconds(5), Duration.ofSeconds(5)), error -> true);
+        client = new KeycloakTokenClient(meterRegistry, guard, keycloak.baseUrl(),
+            KeycloakStub.REALM, "pets-backend", Duration.ofSeconds(1), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.close();
+        keycloak.close();
+    }
+
+    @Test
+    void postsPasswordGrantAsForm() {
+        String body = client.passwordGrant("alex", "s3cr&t");
+
+        assertEquals(KeycloakStub.TOKEN_RESPONSE, body);
+        StubHttpServer.ReceivedRequest request = keycloak.server().requests().get(0);
+        assertEquals("POST", request.method());
+        assertEquals("client_id=pets-backend&grant_type=password&username=alex&password=s3cr%26t",
+            request.body());
+        assertEquals(1, meterRegistry.get("pets.keycloak.client")
+            .tag("endpoint", "token").tag("outcome", "2xx").timer().count());
+    }
+
+    @Test
+    void sequentialCallsReuseOneConnection() {
+        client.passwordGrant("alex", "secret");
+        client.refresh("refresh-1");
+        client.refresh("refresh-2");
+        client.logout("refresh-2");
+
+        assertEquals(4, keycloak.server().requestCount());
+        assertEquals(1, keycloak.server().connectionCount());
+    }
+
+    @Test
+    void identicalConcurrentRefreshesAreCoalesced() {
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> refreshes = IntStream.range(0, 10)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> client.refresh("same"), callers))
+                .toList();
+
+            refreshes.forEach(refresh -> assertEquals(KeycloakStub.TOKEN_RESPONSE, refresh.join()));
+        }
+
+        assertEquals(1, keycloak.server().requestCount());
+        assertEquals(9, meterRegistry.get("pets.keycloak.refresh.coalesced").counter().count());
+    }
+
+    @Test
+    void differentRefreshTokensAreNotCoalesced() {
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(
+                () -> client.refresh("first"), callers);
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(
+                () -> client.refresh("second"), callers);
+            first.join();
+            second.join();
+        }
+
+        assertEquals(2, keycloak.server().requestCount());
+    }
+
+    @Test
+    void refreshAfterCompletionCallsKeycloakAgain() {
+        client.refresh("same");
+        client.refresh("same");
+
+        assertEquals(2, keycloak.server().requestCount());
+    }
+
+    @Test
+    void rejectedGrantIsClientError() {
+        keycloak.tokenResponds(new StubResponse(401,
+            "{\"error\":\"invalid_grant\"}", Duration.ZERO));
+
+        HttpClientErrorException error = assertThrows(HttpClientErrorException.class,
+            () -> client.refresh("expired"));
+
+        assertEquals(401, error.getStatusCode().value());
+        assertTrue(error.getResponseBodyAsString().contains("invalid_grant"));
+        assertEquals(1, meterRegistry.get("pets.keycloak.client")
+            .tag("endpoint", "refresh").tag("outcome", "4xx").timer().count());
+    }
+
+    @Test
+    void keycloakFailureIsServerError() {
+        keycloak.tokenResponds(new StubResponse(503, "{}", Duration.ZERO));
+
+        assertThrows(HttpServerErrorException.class, () -> client.passwordGrant("alex", "secret"));
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.ifrn.ddldevs.pets_backend.keycloak;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class KeycloakUserDirectoryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private KeycloakUserDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        directory = new KeycloakUserDirectory(userRepository, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+    }
+
+    @Test
+    void missIsFilledFromUsersTableOnce() {
+        User user = User.builder()
+            .keycloakId("1abc23")
+            .username("alex")
+            .email("alex@email.com")
+            .firstName("Alex")
+            .lastName("Silva")
+            .build();
+        when(userRepository.findByKeycloakId("1abc23")).thenReturn(Optional.of(user));
+
+        UserRepresentation first = directory.find("1abc23").orElseThrow();
+        directory.find("1abc23");
+
+        assertEquals("1abc23", first.getId());
+        assertEquals("alex", first.getUsername());
+        assertEquals("alex@email.com", first.getEmail());
+        assertNull(first.isEnabled());
+        assertNull(first.isEmailVerified());
+        verify(userRepository, times(1)).findByKeycloakId("1abc23");
+    }
+
+    @Test
+    void unknownUserIsEmpty() {
+        when(userRepository.findByKeycloakId("unknown")).thenReturn(Optional.empty());
+
+        assertTrue(directory.find("unknown").isEmpty());
+    }
+
+    @Test
+    void returnedRepresentationIsACopy() {
+        UserRepresentation representation = new UserRepresentation();
+        representation.setId("1abc23");
+        representation.setFirstName("Alex");
+        directory.put(representation);
+
+        directory.find("1abc23").orElseThrow().setFirstName("Changed");
+
+        assertEquals("Alex", directory.find("1abc23").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void evictedEntryIsReloadedFromTable() {
+        UserRepresentation representation = new UserRepresentation();
+        representation.setId("1abc23");
+        directory.put(representation);
+        when(userRepository.findByKeycloakId("1abc23")).thenReturn(Optional.empty());
+
+        directory.evict("1abc23");
+
+        assertTrue(directory.find("1abc23").isEmpty());
+    }
+}
@@ -0,0 +1,251 @@
+package br.com.ifrn.ddldevs.pets_backend.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.amazonSqs.AnalysisResponseProcessor;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.stubs.InMemorySqs;
+import br.com.ifrn.ddldevs.pets_backend.stubs.JwkIssuerStub;
+import br.com.ifrn.ddldevs.pets_backend.stubs.LocalS3Stub;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer.StubResponse;
+import com.amazonaws.services.s3.AmazonS3;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Throughput and latency of the real HTTP endpoints with every external dependency replaced
+// by a local stand-in: Postgres in a container, in-memory S3 and SQS, a JWK issuer instead
+// of Keycloak and a recommendation server with fixed latency. Excluded from the normal build;
+// run with: mvn -Ploadtest test [-Dloadtest.users=50 -Dloadtest.duration=PT60S]
+@Tag("loadtest")
+@Testcontainers
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EndpointLoadTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 20);
+
+    private static final Duration DURATION = Duration.parse(
+        System.getProperty("loadtest.duration", "PT30S"));
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    private static final Duration ROUND_TRIP_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final byte[] PICTURE = new byte[64 * 1024];
+
+    private static final AtomicLong uploads = new AtomicLong();
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final JwkIssuerStub issuer = new JwkIssuerStub();
+
+    private static final StubHttpServer recommendationServer = new StubHttpServer();
+
+    private static final InMemorySqs sqs = new InMemorySqs(
+        Duration.ofMillis(Long.getLong("loadtest.analysis.latency-ms", 300)));
+
+    static {
+        Duration latency = Duration.ofMillis(Long.getLong("loadtest.recommendation.latency-ms", 200));
+        for (RecommendationCategories category : RecommendationCategories.values()) {
+            recommendationServer.respond("/recommendations/" + category.name().toLowerCase(),
+                new StubResponse(200, "{\"response\":\"Passeios diários e água fresca\"}", latency));
+        }
+    }
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", issuer::jwkSetUri);
+        registry.add("keycloak.server-url", issuer::baseUrl);
+        registry.add("MICROSERVICE_BASE_URL", recommendationServer::baseUrl);
+    }
+
+    @TestConfiguration
+    static class StandIns {
+
+        @Bean
+        @Primary
+        AmazonS3 localS3() {
+            return new LocalS3Stub();
+        }
+
+        @Bean
+        SqsTemplate inMemorySqsTemplate(ObjectProvider<AnalysisResponseProcessor> processor) {
+            sqs.onResponses(messages -> processor.getObject().process(messages));
+            return sqs.template();
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<String> tokens = new ArrayList<>();
+
+    private final List<Long> petIds = new ArrayList<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LoadDriver driver;
+
+    @BeforeEach
+    void setUp() {
+        driver = new LoadDriver("http://localhost:" + port);
+        for (int user = 0; user < USERS; user++) {
+            String keycloakId = "load-user-" + user;
+            jdbcTemplate.update("""
+                INSERT INTO users (keycloak_id, username, first_name, last_name, email)
+                VALUES (?, ?, 'Load', 'User', ?) ON CONFLICT (keycloak_id) DO NOTHING
+                """, keycloakId, "load" + user, "load" + user + "@email.com");
+            Long userId = jdbcTemplate.queryForObject(
+                "SELECT id FROM users WHERE keycloak_id = ?", Long.class, keycloakId);
+            petIds.add(jdbcTemplate.queryForObject("""
+                INSERT INTO pets (name, species, breed, user_id) VALUES ('Apolo', 'DOG', 'Labrador', ?)
+                RETURNING id
+                """, Long.class, userId));
+            tokens.add(issuer.issue(keycloakId, "load" + user, List.of("client"), Duration.ofHours(1)));
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        issuer.close();
+        recommendationServer.close();
+        sqs.close();
+    }
+
+    @Test
+    void petCrud() throws Exception {
+        LoadReport report = driver.run("pet-crud", USERS, DURATION, (user, load) -> {
+            String token = tokens.get(user);
+            HttpResponse<String> created = load.send("POST /pets/", LoadDriver.multipart()
+                .field("name", "Apolo")
+                .field("species", "DOG")
+                .field("breed", "Labrador")
+                .file("photoUrl", "apolo.jpg", "image/jpeg", PICTURE)
+                .applyTo(load.request("/pets/", token), "POST"));
+            long id = objectMapper.readTree(created.body()).path("id").asLong();
+
+            load.send("GET /pets/{id}", load.request("/pets/" + id, token).GET());
+            load.send("PUT /pets/{id}", LoadDriver.multipart()
+                .field("name", "Apolo II")
+                .applyTo(load.request("/pets/" + id, token), "PUT"));
+            load.send("GET /users/my-pets", load.request("/users/my-pets?size=20", token).GET());
+            load.send("DELETE /pets/{id}", load.request("/pets/" + id, token).DELETE());
+        });
+
+        finish(report);
+        // the JWK set is preloaded and cached, so load never reaches the certs endpoint
+        assertTrue(issuer.jwkSetRequests() <= 1,
+            "JWK set fetched " + issuer.jwkSetRequests() + " times");
+    }
+
+    @Test
+    void analysisUploadAndResultRoundTrip() throws Exception {
+        LoadReport report = driver.run("analysis-round-trip", USERS, DURATION, (user, load) -> {
+            String token = tokens.get(user);
+            long start = System.nanoTime();
+            HttpResponse<String> created = load.send("POST /pet-analysis/", LoadDriver.multipart()
+                .field("petId", petIds.get(user))
+                .field("analysisType", "EMOTIONAL")
+                .file("picture", "analysis.jpg", "image/jpeg", uniquePicture())
+                .applyTo(load.request("/pet-analysis/", token), "POST"));
+            if (created.statusCode() >= 400) {
+                return;
+            }
+            long id = objectMapper.readTree(created.body()).path("id").asLong();
+
+            boolean completed = pollUntil(load, "GET /pet-analysis/{id}",
+                "/pet-analysis/" + id, token, "analysisStatus", "COMPLETED");
+            load.record("analysis upload -> COMPLETED", start, completed);
+        });
+
+        finish(report);
+        assertTrue(sqs.sentCount() > 0, "the outbox relay never reached SQS");
+    }
+
+    @Test
+    void recommendationBurst() throws Exception {
+        LoadReport report = driver.run("recommendation-burst", USERS, DURATION, (user, load) -> {
+            String token = tokens.get(user);
+            long start = System.nanoTime();
+            HttpResponse<String> created = load.send("POST /recommendations/",
+                load.request("/recommendations/", token)
+                    .header("Content-Type", "application/json")
+                    .POST(LoadDriver.json("""
+                        {"petId": %d, "categoryRecommendation": "HEALTH"}
+                        """.formatted(petIds.get(user)))));
+            if (created.statusCode() >= 400) {
+                return;
+            }
+            long id = objectMapper.readTree(created.body()).path("id").asLong();
+
+            boolean completed = pollUntil(load, "GET /recommendations/{id}",
+                "/recommendations/" + id, token, "status", "COMPLETED");
+            load.record("recommendation -> COMPLETED", start, completed);
+        });
+
+        finish(report);
+    }
+
+    private boolean pollUntil(LoadDriver driver, String endpoint, String path, String token,
+        String field, String expected) throws Exception {
+        long deadline = System.nanoTime() + ROUND_TRIP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> response = driver.send(endpoint, driver.request(path, token).GET());
+            JsonNode body = objectMapper.readTree(response.body());
+            if (expected.equals(body.path(field).asText())) {
+                return true;
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        return false;
+    }
+
+    // ImageDedupIndex would turn repeated bytes into a reuse of the first analysis, so every
+    // upload gets its own content hash and goes through storage and the outbox
+    private static byte[] uniquePicture() {
+        byte[] picture = PICTURE.clone();
+        ByteBuffer.wrap(picture).putLong(uploads.incrementAndGet());
+        return picture;
+    }
+
+    private void finish(LoadReport report) {
+        report.print();
+        report.writeCsv(Path.of("target", "loadtest"));
+        assertEquals(0, report.totalErrors(), "requests failed under load");
+    }
+}
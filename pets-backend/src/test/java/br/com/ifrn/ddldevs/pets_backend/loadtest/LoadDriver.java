@@ -0,0 +1,161 @@
+package br.com.ifrn.ddldevs.pets_backend.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Closed-model load generator: each virtual user runs its scenario in a loop on its own
+// virtual thread until the deadline, and every call is timed under a logical endpoint name.
+public class LoadDriver {
+
+    @FunctionalInterface
+    public interface Scenario {
+
+        void iterate(int user, LoadDriver driver) throws Exception;
+    }
+
+    static class EndpointStats {
+
+        private final List<Long> latencies = new ArrayList<>();
+
+        private final AtomicInteger errors = new AtomicInteger();
+
+        synchronized void record(long nanos) {
+            latencies.add(nanos);
+        }
+
+        synchronized long[] latencies() {
+            return latencies.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        int errors() {
+            return errors.get();
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    private final String baseUrl;
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public LoadReport run(String name, int users, Duration duration, Scenario scenario)
+        throws InterruptedException {
+        stats.clear();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                int index = user;
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            scenario.iterate(index, this);
+                        } catch (Exception e) {
+                            stats(name + " iteration").errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        return new LoadReport(name, stats, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    public HttpResponse<String> send(String endpoint, HttpRequest.Builder request)
+        throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            stats(endpoint).errors.incrementAndGet();
+            throw e;
+        }
+        stats(endpoint).record(System.nanoTime() - start);
+        if (response.statusCode() >= 400) {
+            stats(endpoint).errors.incrementAndGet();
+        }
+        return response;
+    }
+
+    // for latencies that span several calls, e.g. an analysis from upload to COMPLETED
+    public void record(String endpoint, long startNanos, boolean ok) {
+        stats(endpoint).record(System.nanoTime() - startNanos);
+        if (!ok) {
+            stats(endpoint).errors.incrementAndGet();
+        }
+    }
+
+    public HttpRequest.Builder request(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(30))
+            .header("Authorization", "Bearer " + token);
+    }
+
+    public static HttpRequest.BodyPublisher json(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+
+    public static Multipart multipart() {
+        return new Multipart();
+    }
+
+    private EndpointStats stats(String endpoint) {
+        return stats.computeIfAbsent(endpoint, key -> new EndpointStats());
+    }
+
+    public static class Multipart {
+
+        private final String boundary = "----load-" + UUID.randomUUID();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        public Multipart field(String name, Object value) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n");
+            return this;
+        }
+
+        public Multipart file(String name, String filename, String contentType, byte[] content) {
+            write("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name
+                + "\"; filename=\"" + filename + "\"\r\nContent-Type: " + contentType + "\r\n\r\n");
+            body.writeBytes(content);
+            write("\r\n");
+            return this;
+        }
+
+        public HttpRequest.Builder applyTo(HttpRequest.Builder request, String method) {
+            write("--" + boundary + "--\r\n");
+            return request.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        }
+
+        private void write(String text) {
+            try {
+                body.write(text.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.ifrn.ddldevs.pets_backend.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-endpoint latency percentiles and throughput of one scenario run. Printed to stdout and
+// written as CSV to target/loadtest/<scenario>.csv so runs can be diffed.
+public class LoadReport {
+
+    public record EndpointSummary(String endpoint, int requests, int errors, double throughput,
+                                  double p50, double p90, double p99, double max) {
+    }
+
+    private final String scenario;
+
+    private final List<EndpointSummary> endpoints = new ArrayList<>();
+
+    LoadReport(String scenario, Map<String, LoadDriver.EndpointStats> stats, Duration elapsed) {
+        this.scenario = scenario;
+        double seconds = elapsed.toMillis() / 1000.0;
+        for (Map.Entry<String, LoadDriver.EndpointStats> entry : new TreeMap<>(stats).entrySet()) {
+            long[] latencies = entry.getValue().latencies();
+            Arrays.sort(latencies);
+            endpoints.add(new EndpointSummary(entry.getKey(), latencies.length,
+                entry.getValue().errors(), latencies.length / seconds, percentile(latencies, 0.50),
+                percentile(latencies, 0.90), percentile(latencies, 0.99), percentile(latencies, 1.0)));
+        }
+    }
+
+    public List<EndpointSummary> endpoints() {
+        return endpoints;
+    }
+
+    public int totalErrors() {
+        return endpoints.stream().mapToInt(EndpointSummary::errors).sum();
+    }
+
+    public void print() {
+        System.out.printf("%n== %s ==%n", scenario);
+        System.out.printf("%-40s %8s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors",
+            "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (EndpointSummary endpoint : endpoints) {
+            System.out.printf(Locale.ROOT, "%-40s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                endpoint.endpoint(), endpoint.requests(), endpoint.errors(), endpoint.throughput(),
+                endpoint.p50(), endpoint.p90(), endpoint.p99(), endpoint.max());
+        }
+    }
+
+    public void writeCsv(Path directory) {
+        StringBuilder csv = new StringBuilder("endpoint,requests,errors,throughput,p50_ms,p90_ms,p99_ms,max_ms\n");
+        for (EndpointSummary endpoint : endpoints) {
+            csv.append(String.format(Locale.ROOT, "\"%s\",%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                endpoint.endpoint(), endpoint.requests(), endpoint.errors(), endpoint.throughput(),
+                endpoint.p50(), endpoint.p90(), endpoint.p99(), endpoint.max()));
+        }
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(scenario + ".csv"), csv);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
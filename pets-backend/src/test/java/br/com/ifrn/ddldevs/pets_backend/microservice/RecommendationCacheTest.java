@@ -0,0 +1,119 @@
+package br.com.ifrn.ddldevs.pets_backend.microservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class RecommendationCacheTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private RecommendationCache cache(boolean databaseTierEnabled) {
+        return new RecommendationCache(new ObjectMapper(), jdbcTemplate, meterRegistry,
+            Duration.ofHours(1), 100, databaseTierEnabled);
+    }
+
+    private double count(String result, String tier) {
+        return meterRegistry.get("pets.recommendation.cache")
+            .tag("result", result).tag("tier", tier).counter().count();
+    }
+
+    @Test
+    void fingerprintIgnoresKeyOrderButNotValuesOrCategory() {
+        RecommendationCache cache = cache(false);
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("species", "DOG");
+        first.put("weight", 12.5);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("weight", 12.5);
+        second.put("species", "DOG");
+
+        String fingerprint = cache.fingerprint(RecommendationCategories.IMC, first);
+
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint, cache.fingerprint(RecommendationCategories.IMC, second));
+        assertNotEquals(fingerprint, cache.fingerprint(RecommendationCategories.TRAINING, first));
+        assertNotEquals(fingerprint, cache.fingerprint(RecommendationCategories.IMC,
+            Map.of("species", "DOG", "weight", 13.0)));
+    }
+
+    @Test
+    void memoryTierServesRepeatedRequests() {
+        RecommendationCache cache = cache(false);
+
+        assertTrue(cache.get("abc").isEmpty());
+        cache.put("abc", RecommendationCategories.IMC, "IMC adequado");
+
+        assertEquals(Optional.of("IMC adequado"), cache.get("abc"));
+        assertEquals(1.0, count("miss", "none"));
+        assertEquals(1.0, count("hit", "memory"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void databaseTierIsReadOnMemoryMissAndPromoted() {
+        RecommendationCache cache = cache(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("abc"), any()))
+            .thenReturn(List.of("Passeios diários"));
+
+        assertEquals(Optional.of("Passeios diários"), cache.get("abc"));
+        assertEquals(Optional.of("Passeios diários"), cache.get("abc"));
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(String.class), eq("abc"), any());
+        assertEquals(1.0, count("hit", "database"));
+        assertEquals(1.0, count("hit", "memory"));
+    }
+
+    @Test
+    void databaseTierFailureDegradesToMiss() {
+        RecommendationCache cache = cache(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any()))
+            .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        assertTrue(cache.get("abc").isEmpty());
+        assertEquals(1.0, count("miss", "none"));
+    }
+
+    @Test
+    void putWritesThroughToDatabaseOnlyWhenEnabled() {
+        cache(false).put("abc", RecommendationCategories.HEALTH, "ok");
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        cache(true).put("abc", RecommendationCategories.HEALTH, "ok");
+        verify(jdbcTemplate).update(anyString(), eq("abc"), eq("HEALTH"), eq("ok"), any());
+    }
+}
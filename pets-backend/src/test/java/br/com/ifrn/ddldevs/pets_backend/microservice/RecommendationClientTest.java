@@ -0,0 +1,112 @@
+package br.com.ifrn.ddldevs.pets_backend.microservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.exception.RecommendationClientException;
+import br.com.ifrn.ddldevs.pets_backend.resilience.AdaptiveTimeout;
+import br.com.ifrn.ddldevs.pets_backend.resilience.DependencyGuard;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer.StubResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class RecommendationClientTest {
+
+    private StubHttpServer server;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DependencyGuard guard;
+
+    private RecommendationClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = new StubHttpServer();
+        meterRegistry = new SimpleMeterRegistry();
+        // guard timeout above the client read timeout, so the client's own timeout is tested
+        guard = new DependencyGuard("recommendation", Bulkhead.ofDefaults("recommendation"),
+            CircuitBreaker.ofDefaults("recommendation"),
+            new AdaptiveTimeout(Duration.ofSeconds(5), Duration.ofSeconds(5)), error -> true);
+        client = new RecommendationClient(new ObjectMapper(), meterRegistry, guard,
+            server.baseUrl(), Duration.ofSeconds(1), Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.close();
+        server.close();
+    }
+
+    @Test
+    void postsJsonToCategoryPathAndReadsResponse() {
+        server.respond("/recommendations/imc",
+            StubResponse.ok("{\"response\":\"IMC adequado\",\"extra\":1}"));
+
+        String text = client.recommend(RecommendationCategories.IMC,
+            Map.of("species", "DOG", "weight", 12.5));
+
+        assertEquals("IMC adequado", text);
+        StubHttpServer.ReceivedRequest request = server.requests().get(0);
+        assertEquals("POST", request.method());
+        assertTrue(request.body().contains("\"species\":\"DOG\""));
+        assertEquals(1, meterRegistry.get("pets.recommendation.client")
+            .tag("category", "IMC").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void concurrentRequestsReuseConnections() {
+        server.respond("/recommendations/training", StubResponse.ok("{\"response\":\"ok\"}"));
+
+        // warm up one connection, then run sequential waves that should all reuse the pool
+        client.recommend(RecommendationCategories.TRAINING, Map.of());
+        for (int wave = 0; wave < 5; wave++) {
+            List<CompletableFuture<String>> futures = IntStream.range(0, 4)
+                .mapToObj(i -> client.recommendAsync(RecommendationCategories.TRAINING, Map.of()))
+                .toList();
+            futures.forEach(CompletableFuture::join);
+        }
+
+        assertEquals(21, server.requestCount());
+        assertTrue(server.connectionCount() <= 4,
+            "expected pooled connections, got " + server.connectionCount());
+    }
+
+    @Test
+    void non2xxIsReportedAsError() {
+        server.respond("/recommendations/health",
+            new StubResponse(500, "{\"detail\":\"boom\"}", Duration.ZERO));
+
+        assertThrows(RecommendationClientException.class,
+            () -> client.recommend(RecommendationCategories.HEALTH, Map.of()));
+        assertEquals(1, meterRegistry.get("pets.recommendation.client")
+            .tag("category", "HEALTH").tag("outcome", "error").timer().count());
+    }
+
+    @Test
+    void slowResponseHitsReadTimeout() {
+        server.respond("/recommendations/products",
+            new StubResponse(200, "{\"response\":\"tarde\"}", Duration.ofSeconds(2)));
+
+        RecommendationClientException exception = assertThrows(
+            RecommendationClientException.class,
+            () -> client.recommend(RecommendationCategories.PRODUCTS, Map.of()));
+        assertTrue(exception.getCause() instanceof HttpTimeoutException);
+    }
+}
@@ -0,0 +1,266 @@
+package br.com.ifrn.ddldevs.pets_backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
+import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
+import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
+import br.com.ifrn.ddldevs.pets_backend.specifications.AnalysisSpec;
+import br.com.ifrn.ddldevs.pets_backend.specifications.KeysetCursor;
+import br.com.ifrn.ddldevs.pets_backend.specifications.PetSpec;
+import br.com.ifrn.ddldevs.pets_backend.specifications.RecommendationSpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Runs the hot Specification filters and repository queries against a seeded Postgres,
+// records the SQL Hibernate sends and fails when its plan scans a whole table. The plans are
+// generic ones, the same kind Postgres picks for a statement the driver has prepared on the
+// server. Skipped without Docker.
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class QueryPlanTest {
+
+    private static final Set<String> GUARDED_TABLES = Set.of("pets", "pet_analisys",
+        "recommendations");
+
+    private static final Long PET_ID = 42L;
+    private static final Long USER_ID = 7L;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private PetAnalysisRepository petAnalysisRepository;
+
+    @Autowired
+    private RecommendationRepository recommendationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Hibernate builds the inspector from its class name, so what it sees goes to a static list
+    public static class RecordingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+            RecordingInspector.class::getName);
+    }
+
+    @BeforeAll
+    static void migrateAndSeed() throws Exception {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+            .load()
+            .migrate();
+
+        try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(),
+            postgres.getUsername(), postgres.getPassword());
+            Statement statement = connection.createStatement()) {
+            statement.execute("""
+                INSERT INTO users (keycloak_id, username, first_name, last_name, email)
+                SELECT 'kc-' || g, 'user' || g, 'First', 'Last', 'user' || g || '@email.com'
+                FROM generate_series(1, 5000) g
+                """);
+            statement.execute("""
+                INSERT INTO pets (name, breed, species, user_id)
+                SELECT 'pet' || g, 'breed' || g % 50, CASE WHEN g % 2 = 0 THEN 'DOG' ELSE 'CAT' END,
+                    g % 5000 + 1
+                FROM generate_series(1, 20000) g
+                """);
+            statement.execute("""
+                INSERT INTO pet_analisys (pet_id, picture, result, analysis_type, analysis_status, created_at)
+                SELECT g % 20000 + 1, 'https://bucket/' || g,
+                    CASE WHEN g % 2 = 0 THEN 'happy' ELSE 'golden retriever' END,
+                    CASE WHEN g % 2 = 0 THEN 'EMOTIONAL' ELSE 'BREED' END,
+                    CASE g % 3 WHEN 0 THEN 'COMPLETED' WHEN 1 THEN 'IN_ANALYSIS' ELSE 'FAILURE' END,
+                    now() - g * interval '1 minute'
+                FROM generate_series(1, 200000) g
+                """);
+            statement.execute("""
+                INSERT INTO recommendations (recommendation, category_recommendation, pet_id, created_at)
+                SELECT 'text', 'HEALTH', g % 20000 + 1, now() - g * interval '1 minute'
+                FROM generate_series(1, 100000) g
+                """);
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @Test
+    void analysisHistoryPageAndCount() {
+        // the second page of a small history makes Spring Data run the count query as well
+        assertNoFullScans(() -> petAnalysisRepository.findAll(
+            analysisHistory(LocalDate.now().minusDays(30), LocalDate.now(), null, null, null),
+            PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt"))));
+    }
+
+    @Test
+    void analysisStatusOnlyFilter() {
+        assertNoFullScans(() -> petAnalysisRepository.findAll(
+            analysisHistory(null, null, null, AnalysisStatus.COMPLETED, null),
+            PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void analysisTypeAndStatusFilter() {
+        assertNoFullScans(() -> petAnalysisRepository.findAll(
+            analysisHistory(null, null, AnalysisType.EMOTIONAL, AnalysisStatus.IN_ANALYSIS, null),
+            PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void analysisResultTextFilter() {
+        assertNoFullScans(() -> petAnalysisRepository.findAll(
+            analysisHistory(null, null, null, null, "retriever"),
+            PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void analysisKeysetPage() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.now().minusDays(1), 500L);
+        Specification<PetAnalysis> spec = analysisHistory(null, null, null, null, null)
+            .and(KeysetCursor.after(cursor));
+
+        assertNoFullScans(() -> petAnalysisRepository.findBy(spec,
+            query -> query.sortBy(KeysetCursor.ORDER).limit(21).all()));
+    }
+
+    @Test
+    void recentEmotionalAnalyses() {
+        assertNoFullScans(() -> petAnalysisRepository.findRecentEmotionalAnalyses(PET_ID,
+            LocalDateTime.now().minusMonths(1), PageRequest.of(0, 3)));
+    }
+
+    @Test
+    void recommendationHistoryPageAndKeysetPage() {
+        Specification<Recommendation> spec = Specification.where(RecommendationSpec.hasPetId(PET_ID))
+            .and(RecommendationSpec.hasCategory("health"))
+            .and(RecommendationSpec.hasStartDateAfter(LocalDate.now().minusDays(30)))
+            .and(RecommendationSpec.hasEndDateBefore(LocalDate.now()));
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.now().minusDays(1), 500L);
+
+        assertNoFullScans(() -> {
+            recommendationRepository.findAll(spec, PageRequest.of(1, 20));
+            recommendationRepository.findBy(spec.and(KeysetCursor.after(cursor)),
+                query -> query.sortBy(KeysetCursor.ORDER).limit(21).all());
+        });
+    }
+
+    @Test
+    void petsOfUserTextFilters() {
+        assertNoFullScans(() -> {
+            petRepository.findAll(PetSpec.petsOfUser(USER_ID, "pet", null, null, null,
+                SearchMode.CONTAINS), PageRequest.of(0, 20));
+            petRepository.findAll(PetSpec.petsOfUser(USER_ID, "pet", Species.DOG, "breed",
+                null, SearchMode.PREFIX), PageRequest.of(0, 20));
+        });
+    }
+
+    // same filters PetAnalysisService.historySpec builds for the history endpoints
+    private Specification<PetAnalysis> analysisHistory(LocalDate startDate, LocalDate endDate,
+        AnalysisType type, AnalysisStatus status, String result) {
+        return Specification.where(AnalysisSpec.hasPetId(PET_ID))
+            .and(AnalysisSpec.hasAnalysisType(type))
+            .and(AnalysisSpec.hasStartDateAfter(startDate))
+            .and(AnalysisSpec.hasEndDateBefore(endDate))
+            .and(AnalysisSpec.hasResultContaining(result))
+            .and(AnalysisSpec.hasAnalysisStatus(status));
+    }
+
+    private void assertNoFullScans(Runnable query) {
+        RecordingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> statements = List.copyOf(RecordingInspector.STATEMENTS);
+
+        assertFalse(statements.isEmpty(), "no SQL was recorded");
+        for (String sql : statements) {
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(explain(sql), seqScans);
+            assertTrue(seqScans.isEmpty(), "Seq Scan on " + seqScans + " for: " + sql);
+        }
+    }
+
+    private JsonNode explain(String sql) {
+        String plan = jdbcTemplate.queryForObject(
+            "EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numberPlaceholders(sql), String.class);
+        try {
+            return objectMapper.readTree(plan).get(0).get("Plan");
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable plan for: " + sql, e);
+        }
+    }
+
+    // EXPLAIN only takes the numbered $n parameters, not the JDBC ? markers
+    private static String numberPlaceholders(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private void collectSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())
+            && GUARDED_TABLES.contains(node.path("Relation Name").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.ifrn.ddldevs.pets_backend.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class AdaptiveTimeoutTest {
+
+    @Test
+    void startsAtMaximum() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(100), Duration.ofSeconds(5));
+
+        assertEquals(Duration.ofSeconds(5), timeout.current());
+    }
+
+    @Test
+    void stableLatencyConvergesToMinimum() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(100), Duration.ofSeconds(5));
+
+        for (int i = 0; i < 50; i++) {
+            timeout.record(Duration.ofMillis(20));
+        }
+
+        assertEquals(Duration.ofMillis(100), timeout.current());
+    }
+
+    @Test
+    void jitterWidensTimeoutWithinBounds() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(100), Duration.ofSeconds(5));
+
+        for (int i = 0; i < 50; i++) {
+            timeout.record(Duration.ofMillis(i % 2 == 0 ? 200 : 1200));
+        }
+
+        Duration current = timeout.current();
+        assertTrue(current.compareTo(Duration.ofMillis(1200)) > 0, current.toString());
+        assertTrue(current.compareTo(Duration.ofSeconds(5)) <= 0, current.toString());
+    }
+
+    @Test
+    void rejectsInvertedBounds() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new AdaptiveTimeout(Duration.ofSeconds(2), Duration.ofSeconds(1)));
+    }
+}
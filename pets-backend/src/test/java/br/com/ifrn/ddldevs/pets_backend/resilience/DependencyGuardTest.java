@@ -0,0 +1,180 @@
+package br.com.ifrn.ddldevs.pets_backend.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.exception.RecommendationClientException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ServiceUnavailableException;
+import br.com.ifrn.ddldevs.pets_backend.microservice.RecommendationClient;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer;
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer.StubResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+// Fault injection against a local stub server: slow answers, 5xx bursts and saturation
+// must fail fast with 503 instead of piling up blocked callers.
+@ActiveProfiles("test")
+class DependencyGuardTest {
+
+    private static final String PATH = "/recommendations/training";
+
+    private StubHttpServer server;
+
+    private CircuitBreaker circuitBreaker;
+
+    private DependencyGuard guard;
+
+    private RecommendationClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = new StubHttpServer();
+        circuitBreaker = CircuitBreaker.of("recommendation", CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMillis(300))
+            .permittedNumberOfCallsInHalfOpenState(1)
+            .build());
+        Bulkhead bulkhead = Bulkhead.of("recommendation", BulkheadConfig.custom()
+            .maxConcurrentCalls(2)
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+        guard = new DependencyGuard("recommendation", bulkhead, circuitBreaker,
+            new AdaptiveTimeout(Duration.ofMillis(200), Duration.ofMillis(400)),
+            error -> ResilienceConfig.isRecommendationFailure(error)
+                || error instanceof ResourceAccessException
+                || error instanceof HttpServerErrorException);
+        client = new RecommendationClient(new ObjectMapper(), new SimpleMeterRegistry(), guard,
+            server.baseUrl(), Duration.ofSeconds(1), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.close();
+        server.close();
+    }
+
+    private String recommend() {
+        return client.recommend(RecommendationCategories.TRAINING, Map.of("species", "DOG"));
+    }
+
+    @Test
+    void slowDependencyIsCutAtTheAdaptiveTimeout() {
+        server.respond(PATH, new StubResponse(200, "{\"response\":\"tarde\"}", Duration.ofSeconds(3)));
+
+        long start = System.nanoTime();
+        assertThrows(ServiceUnavailableException.class, this::recommend);
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(elapsedMs < 2000, "caller waited " + elapsedMs + " ms");
+    }
+
+    @Test
+    void timeoutFollowsObservedLatency() {
+        server.respond(PATH, new StubResponse(200, "{\"response\":\"ok\"}", Duration.ofMillis(20)));
+        assertEquals(Duration.ofMillis(400), guard.currentTimeout());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("ok", recommend());
+        }
+
+        assertTrue(guard.currentTimeout().compareTo(Duration.ofMillis(400)) < 0);
+    }
+
+    @Test
+    void failingDependencyOpensCircuitAndStopsCallingIt() {
+        server.respond(PATH, new StubResponse(500, "{\"detail\":\"boom\"}", Duration.ZERO));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RecommendationClientException.class, this::recommend);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+
+        assertThrows(ServiceUnavailableException.class, this::recommend);
+        assertEquals(4, server.requestCount());
+    }
+
+    @Test
+    void circuitClosesAgainWhenDependencyRecovers() throws InterruptedException {
+        server.respond(PATH, new StubResponse(500, "{\"detail\":\"boom\"}", Duration.ZERO));
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RecommendationClientException.class, this::recommend);
+        }
+
+        server.respond(PATH, StubResponse.ok("{\"response\":\"voltou\"}"));
+        Thread.sleep(400);
+
+        assertEquals("voltou", recommend());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void saturatedBulkheadRejectsWithoutCallingDependency() {
+        server.respond(PATH, new StubResponse(200, "{\"response\":\"ok\"}", Duration.ofMillis(300)));
+        var callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(this::recommend, callers);
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(this::recommend, callers);
+            long deadline = System.currentTimeMillis() + 2000;
+            while (server.requestCount() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            ServiceUnavailableException exception =
+                assertThrows(ServiceUnavailableException.class, this::recommend);
+            assertTrue(exception.getMessage().contains("sobrecarregado"));
+
+            assertEquals("ok", first.join());
+            assertEquals("ok", second.join());
+            assertEquals(2, server.requestCount());
+        } finally {
+            callers.close();
+        }
+    }
+
+    @Test
+    void badRequestsToTheMicroserviceDoNotOpenTheCircuit() {
+        server.respond(PATH, new StubResponse(422, "{\"detail\":\"invalido\"}", Duration.ZERO));
+
+        for (int i = 0; i < 6; i++) {
+            RecommendationClientException exception =
+                assertThrows(RecommendationClientException.class, this::recommend);
+            assertEquals(422, exception.getStatusCode().intValue());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+        assertEquals(6, server.requestCount());
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        server.respond("/token", new StubResponse(401, "{\"error\":\"invalid_grant\"}", Duration.ZERO));
+        RestTemplate restTemplate = new RestTemplate();
+
+        for (int i = 0; i < 6; i++) {
+            assertThrows(HttpClientErrorException.class, () -> guard.call(
+                () -> restTemplate.postForEntity(server.baseUrl() + "/token", null, String.class)));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+}
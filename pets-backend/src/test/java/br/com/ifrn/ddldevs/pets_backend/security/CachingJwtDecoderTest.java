@@ -0,0 +1,69 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class CachingJwtDecoderTest {
+
+    private final Instant now = Instant.parse("2025-01-10T12:00:00Z");
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100,
+        new SimpleMeterRegistry(), Clock.fixed(now, ZoneOffset.UTC));
+
+    private Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+            .header("alg", "RS256")
+            .subject("1abc23")
+            .issuedAt(now.minusSeconds(10))
+            .expiresAt(expiresAt)
+            .build();
+    }
+
+    @Test
+    void validatesTokenOnceUntilItExpires() {
+        Jwt jwt = jwt("token", now.plusSeconds(300));
+        when(delegate.decode("token")).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode("token"));
+        assertSame(jwt, decoder.decode("token"));
+
+        verify(delegate, times(1)).decode("token");
+    }
+
+    @Test
+    void revalidatesExpiredToken() {
+        when(delegate.decode("token")).thenReturn(jwt("token", now.minusSeconds(1)));
+
+        decoder.decode("token");
+        decoder.decode("token");
+
+        verify(delegate, times(2)).decode("token");
+    }
+
+    @Test
+    void neverCachesRejectedTokens() {
+        when(delegate.decode("forged")).thenThrow(new BadJwtException("Invalid signature"));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("forged"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("forged"));
+
+        verify(delegate, times(2)).decode("forged");
+    }
+}
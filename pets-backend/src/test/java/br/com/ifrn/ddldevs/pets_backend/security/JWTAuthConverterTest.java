@@ -0,0 +1,101 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class JWTAuthConverterTest {
+
+    private static final String CLIENT_ID = "pets-backend";
+
+    private final Instant now = Instant.parse("2025-01-10T12:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final JWTAuthConverter converter = new JWTAuthConverter(meterRegistry, CLIENT_ID,
+        100, Clock.fixed(now, ZoneOffset.UTC));
+
+    private Jwt jwt(String token, Instant expiresAt, Map<String, Object> claims) {
+        Jwt.Builder builder = Jwt.withTokenValue(token)
+            .header("alg", "RS256")
+            .subject("1abc23")
+            .claim("preferred_username", "alex")
+            .issuedAt(now.minusSeconds(10))
+            .expiresAt(expiresAt);
+        claims.forEach(builder::claim);
+        return builder.build();
+    }
+
+    private Set<String> authorities(AbstractAuthenticationToken token) {
+        return token.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .collect(Collectors.toSet());
+    }
+
+    @Test
+    void convertsRealmAndClientRoles() {
+        Jwt jwt = jwt("token", now.plusSeconds(300), Map.of(
+            "scope", "openid",
+            "realm_access", Map.of("roles", List.of("client")),
+            "resource_access", Map.of(
+                CLIENT_ID, Map.of("roles", List.of("admin")),
+                "account", Map.of("roles", List.of("view-profile")))));
+
+        AbstractAuthenticationToken token = converter.convert(jwt);
+
+        assertEquals(Set.of("SCOPE_openid", "ROLE_client", "ROLE_admin"), authorities(token));
+        AuthUserDetails principal = (AuthUserDetails) token.getPrincipal();
+        assertEquals("1abc23", principal.getKeycloakId());
+        assertEquals("alex", principal.getUsername());
+        assertTrue(token.isAuthenticated());
+    }
+
+    @Test
+    void toleratesMissingRoleClaims() {
+        Jwt jwt = jwt("token", now.plusSeconds(300), Map.of(
+            "resource_access", Map.of("account", Map.of("roles", List.of("view-profile"))),
+            "realm_access", Map.of()));
+
+        assertTrue(authorities(converter.convert(jwt)).isEmpty());
+    }
+
+    @Test
+    void reusesPrincipalForSameTokenButReturnsNewAuthentication() {
+        Jwt jwt = jwt("token", now.plusSeconds(300),
+            Map.of("realm_access", Map.of("roles", List.of("client"))));
+
+        AbstractAuthenticationToken first = converter.convert(jwt);
+        AbstractAuthenticationToken second = converter.convert(jwt);
+
+        assertNotSame(first, second);
+        assertSame(first.getPrincipal(), second.getPrincipal());
+        assertEquals(2, meterRegistry.get("pets.security.jwt.convert").timer().count());
+    }
+
+    @Test
+    void doesNotCacheExpiredTokens() {
+        Jwt jwt = jwt("token", now.minusSeconds(1),
+            Map.of("realm_access", Map.of("roles", List.of("client"))));
+
+        AbstractAuthenticationToken first = converter.convert(jwt);
+        AbstractAuthenticationToken second = converter.convert(jwt);
+
+        assertNotSame(first.getPrincipal(), second.getPrincipal());
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.ifrn.ddldevs.pets_backend.security;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
+import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class PetAccessGuardTest {
+
+    private final String owner = "1abc23";
+
+    @Mock
+    private PetRepository petRepository;
+
+    private PetAccessGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        guard = new PetAccessGuard(petRepository, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+        authenticateAs("ROLE_user");
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(owner));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticateAs(String role) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            "jhon", null, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    @Test
+    void ownerIsResolvedOnceAndCached() {
+        guard.checkPetAccess(1L, owner);
+        guard.checkPetAccess(1L, owner);
+        assertThrows(AccessDeniedException.class, () -> guard.checkPetAccess(1L, "NotOwner"));
+
+        verify(petRepository, times(1)).findOwnerKeycloakIdById(1L);
+    }
+
+    @Test
+    void loadedOwnerIsUsedWithoutQuery() {
+        User user = new User();
+        user.setKeycloakId(owner);
+        Pet pet = new Pet();
+        pet.setId(2L);
+        pet.setUser(user);
+
+        assertDoesNotThrow(() -> guard.checkAccess(pet, owner));
+        assertThrows(AccessDeniedException.class, () -> guard.checkAccess(pet, "NotOwner"));
+
+        verify(petRepository, never()).findOwnerKeycloakIdById(any());
+    }
+
+    @Test
+    void evictForgetsDeletedPet() {
+        guard.checkPetAccess(1L, owner);
+        guard.evict(1L);
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> guard.checkPetAccess(1L, owner));
+    }
+
+    @Test
+    void adminSkipsOwnershipButNotExistence() {
+        authenticateAs("ROLE_admin");
+
+        assertDoesNotThrow(() -> guard.checkPetAccess(1L, "someone-else"));
+        assertThrows(ResourceNotFoundException.class, () -> guard.checkPetAccess(99L, "someone-else"));
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.ifrn.ddldevs.pets_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadTicketDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.Upload.UploadTicketRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
+import br.com.ifrn.ddldevs.pets_backend.stubs.LocalS3Stub;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DirectUploadServiceTest {
+
+    private static final String BUCKET = "fake-bucket";
+
+    private LocalS3Stub s3Stub;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DirectUploadService directUploadService;
+
+    @BeforeEach
+    void setUp() {
+        s3Stub = new LocalS3Stub();
+        UploadImageService uploadImageService = new UploadImageService();
+        ReflectionTestUtils.setField(uploadImageService, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(uploadImageService, "s3Client", s3Stub);
+
+        meterRegistry = new SimpleMeterRegistry();
+        directUploadService = new DirectUploadService(uploadImageService, meterRegistry, 1024,
+            Duration.ofMinutes(10), "uploads/");
+    }
+
+    // what the client does with the ticket, bypassing the API
+    private void clientPut(String key, int size, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.setContentLength(size);
+        s3Stub.putObject(new PutObjectRequest(BUCKET, key,
+            new ByteArrayInputStream(new byte[size]), metadata));
+    }
+
+    @Test
+    void issuesUrlForKeyScopedToTheUser() {
+        UploadTicketDTO ticket = directUploadService.issue(
+            new UploadTicketRequestDTO("image/jpeg", 512L), "kc-user");
+
+        assertTrue(ticket.uploadKey().startsWith("uploads/kc-user/"));
+        assertTrue(ticket.uploadKey().endsWith(".jpg"));
+        assertTrue(ticket.uploadUrl().contains(ticket.uploadKey()));
+        assertTrue(ticket.uploadUrl().contains("method=PUT"));
+        assertEquals(512, ticket.size());
+        assertEquals(1, meterRegistry.get("pets.uploads.direct").tag("result", "issued")
+            .counter().count());
+    }
+
+    @Test
+    void rejectsUnsupportedTypeAndOversizedPicture() {
+        assertThrows(BusinessException.class, () -> directUploadService.issue(
+            new UploadTicketRequestDTO("application/pdf", 512L), "kc-user"));
+        assertThrows(BusinessException.class, () -> directUploadService.issue(
+            new UploadTicketRequestDTO("image/jpeg", 2048L), "kc-user"));
+    }
+
+    @Test
+    void claimReturnsUrlOfFinishedUpload() {
+        UploadTicketDTO ticket = directUploadService.issue(
+            new UploadTicketRequestDTO("image/png", 100L), "kc-user");
+        clientPut(ticket.uploadKey(), 100, "image/png");
+
+        String url = directUploadService.claim(ticket.uploadKey(), "kc-user");
+
+        assertEquals("http://localhost/" + BUCKET + "/" + ticket.uploadKey(), url);
+        assertEquals(1, meterRegistry.get("pets.uploads.direct").tag("result", "confirmed")
+            .counter().count());
+    }
+
+    @Test
+    void claimFailsWhenNothingWasUploaded() {
+        UploadTicketDTO ticket = directUploadService.issue(
+            new UploadTicketRequestDTO("image/png", 100L), "kc-user");
+
+        assertThrows(BusinessException.class,
+            () -> directUploadService.claim(ticket.uploadKey(), "kc-user"));
+    }
+
+    @Test
+    void claimRejectsUploadOfAnotherUser() {
+        UploadTicketDTO ticket = directUploadService.issue(
+            new UploadTicketRequestDTO("image/png", 100L), "kc-user");
+        clientPut(ticket.uploadKey(), 100, "image/png");
+
+        assertThrows(BusinessException.class,
+            () -> directUploadService.claim(ticket.uploadKey(), "kc-other"));
+        assertThrows(BusinessException.class,
+            () -> directUploadService.claim("uploads/kc-other/../kc-user/x.png", "kc-other"));
+    }
+
+    @Test
+    void claimDeletesObjectThatBreaksTheLimits() {
+        clientPut("uploads/kc-user/huge.jpg", 4096, "image/jpeg");
+        clientPut("uploads/kc-user/page.jpg", 100, "text/html");
+
+        assertThrows(BusinessException.class,
+            () -> directUploadService.claim("uploads/kc-user/huge.jpg", "kc-user"));
+        assertThrows(BusinessException.class,
+            () -> directUploadService.claim("uploads/kc-user/page.jpg", "kc-user"));
+
+        assertNull(s3Stub.getStored(BUCKET, "uploads/kc-user/huge.jpg"));
+        assertNull(s3Stub.getStored(BUCKET, "uploads/kc-user/page.jpg"));
+    }
+}
@@ -2,6 +2,9 @@ package br.com.ifrn.ddldevs.pets_backend.service;
 
 import br.com.ifrn.ddldevs.pets_backend.amazonSqs.AnalysisMessage;
 import br.com.ifrn.ddldevs.pets_backend.amazonSqs.SQSSenderService;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline.AnalysisJob;
+import br.com.ifrn.ddldevs.pets_backend.async.AnalysisPipeline.StagedImage;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.AnalysisType;
 
@@ -18,14 +21,23 @@ import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.PetAnalysis;
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
 import br.com.ifrn.ddldevs.pets_backend.domain.User;
+import br.com.ifrn.ddldevs.pets_backend.dto.CursorPageDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisBatchRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisResponseDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.PetAnalysis.PetAnalysisUploadDTO;
 import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
+import br.com.ifrn.ddldevs.pets_backend.exception.BusinessException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ServiceUnavailableException;
+import br.com.ifrn.ddldevs.pets_backend.image.ImageDedupIndex;
 import br.com.ifrn.ddldevs.pets_backend.mapper.PetAnalysisMapper;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisBatchRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetAnalysisRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
+import br.com.ifrn.ddldevs.pets_backend.specifications.KeysetCursor;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -39,6 +51,10 @@ import io.awspring.cloud.sqs.operations.SqsTemplate;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
+import br.com.ifrn.ddldevs.pets_backend.security.PetAccessGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -78,6 +94,8 @@ class PetAnalysisServiceTest {
     @InjectMocks
     private PetAnalysisService petAnalysisService;
 
+    private PetAccessGuard petAccessGuard;
+
     private final String loggedUserKeycloakId = "1abc23";
 
     private Validator validator;
@@ -96,6 +114,18 @@ class PetAnalysisServiceTest {
     @Mock
     private SQSSenderService sqsSenderService;
 
+    @Mock
+    private AnalysisPipeline analysisPipeline;
+
+    @Mock
+    private ImageDedupIndex imageDedupIndex;
+
+    @Mock
+    private DirectUploadService directUploadService;
+
+    @Mock
+    private PetAnalysisBatchRepository petAnalysisBatchRepository;
+
     public PetAnalysisServiceTest(){
         ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
         validator = factory.getValidator();
@@ -104,6 +134,9 @@ class PetAnalysisServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        petAccessGuard = new PetAccessGuard(petRepository, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(petAnalysisService, "petAccessGuard", petAccessGuard);
         SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
         Authentication authentication = new UsernamePasswordAuthenticationToken(
                 "jhon",
@@ -133,21 +166,22 @@ class PetAnalysisServiceTest {
 
         PetAnalysisRequestDTO requestDTO = new PetAnalysisRequestDTO(1L, mockImage, AnalysisType.BREED);
         PetAnalysis petAnalysis = new PetAnalysis();
+        petAnalysis.setAnalysisType(AnalysisType.BREED);
         PetAnalysisResponseDTO responseDTO = new PetAnalysisResponseDTO(1L, LocalDateTime.now(),  LocalDateTime.now(),"http://example.com/picture.jpg", "Healthy", 83.24,AnalysisType.BREED, AnalysisStatus.COMPLETED);
 
-        AnalysisMessage analysisMessage = new AnalysisMessage(1L, "http", "DOG_BREED");
-
         when(petAnalysisMapper.toEntity(requestDTO)).thenReturn(petAnalysis);
         when(petAnalysisRepository.save(petAnalysis)).thenReturn(petAnalysis);
         when(petAnalysisMapper.toResponse(petAnalysis)).thenReturn(responseDTO);
         when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
-        doNothing().when(sqsSenderService).sendMessage(analysisMessage);
+        StagedImage stagedImage = new StagedImage(Path.of("staged"), "key-image.jpg",
+            "http://example.com/picture.jpg", 7, "image/jpeg", "hash");
+        when(analysisPipeline.tryReserve()).thenReturn(true);
+        when(analysisPipeline.stage(mockImage)).thenReturn(stagedImage);
 
         PetAnalysisResponseDTO result = petAnalysisService.createPetAnalysis(requestDTO,
             loggedUserKeycloakId);
 
-        PetAnalysisService analysisSpy = spy(petAnalysisService);
-        assertDoesNotThrow(() -> petAnalysisService.validatePetOwnershipOrAdmin(pet, user.getKeycloakId()));
+        assertDoesNotThrow(() -> petAccessGuard.checkAccess(pet, user.getKeycloakId()));
         assertNotNull(result);
         assertEquals("http://example.com/picture.jpg", result.picture());
         assertEquals("Healthy", result.result());
@@ -155,6 +189,268 @@ class PetAnalysisServiceTest {
 
         verify(petRepository).findById(1L);
         verify(petAnalysisRepository).save(petAnalysis);
+        assertEquals(AnalysisStatus.IN_ANALYSIS, petAnalysis.getAnalysisStatus());
+        assertEquals("http://example.com/picture.jpg", petAnalysis.getPicture());
+        verify(sqsSenderService).holdMessage(
+            new AnalysisMessage(petAnalysis.getId(), "http://example.com/picture.jpg", "DOG_BREED"),
+            "pet-1");
+        verify(analysisPipeline).submitAfterCommit(
+            new AnalysisJob(petAnalysis.getId(), stagedImage));
+        verify(uploadImageService, never()).uploadImg(any());
+    }
+
+    @Test
+    void createPetAnalysisRejectedWhenPipelineIsFull() {
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        PetAnalysisRequestDTO requestDTO = new PetAnalysisRequestDTO(1L, mockImage, AnalysisType.BREED);
+
+        when(petAnalysisMapper.toEntity(requestDTO)).thenReturn(new PetAnalysis());
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(analysisPipeline.tryReserve()).thenReturn(false);
+
+        assertThrows(ServiceUnavailableException.class,
+            () -> petAnalysisService.createPetAnalysis(requestDTO, loggedUserKeycloakId));
+
+        verify(analysisPipeline, never()).stage(any());
+        verify(petAnalysisRepository, never()).save(any(PetAnalysis.class));
+    }
+
+    @Test
+    void createPetAnalysisReusesAnalysisOfSamePicture() {
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        PetAnalysisRequestDTO requestDTO = new PetAnalysisRequestDTO(1L, mockImage, AnalysisType.BREED);
+        PetAnalysis petAnalysis = new PetAnalysis();
+        petAnalysis.setAnalysisType(AnalysisType.BREED);
+        PetAnalysis previous = new PetAnalysis();
+        previous.setId(3L);
+        PetAnalysisResponseDTO responseDTO = new PetAnalysisResponseDTO(3L, LocalDateTime.now(),
+            LocalDateTime.now(), "http://example.com/picture.jpg", "Poodle", 91.0,
+            AnalysisType.BREED, AnalysisStatus.COMPLETED);
+        StagedImage stagedImage = new StagedImage(Path.of("staged"), "key-image.jpg",
+            "http://example.com/picture.jpg", 7, "image/jpeg", "hash");
+
+        when(petAnalysisMapper.toEntity(requestDTO)).thenReturn(petAnalysis);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(analysisPipeline.tryReserve()).thenReturn(true);
+        when(analysisPipeline.stage(mockImage)).thenReturn(stagedImage);
+        when(imageDedupIndex.findReusableAnalysis(1L, "hash", AnalysisType.BREED))
+            .thenReturn(Optional.of(previous));
+        when(petAnalysisMapper.toResponse(previous)).thenReturn(responseDTO);
+
+        PetAnalysisResponseDTO result = petAnalysisService.createPetAnalysis(requestDTO,
+            loggedUserKeycloakId);
+
+        assertEquals(3L, result.id());
+        verify(analysisPipeline).abandon(stagedImage);
+        verify(petAnalysisRepository, never()).save(any(PetAnalysis.class));
+        verify(sqsSenderService, never()).holdMessage(any(), any());
+        verify(analysisPipeline, never()).submitAfterCommit(any());
+    }
+
+    @Test
+    void createPetAnalysisSkipsUploadOfStoredPicture() {
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        PetAnalysisRequestDTO requestDTO = new PetAnalysisRequestDTO(1L, mockImage, AnalysisType.EMOTIONAL);
+        PetAnalysis petAnalysis = new PetAnalysis();
+        petAnalysis.setAnalysisType(AnalysisType.EMOTIONAL);
+        StagedImage stagedImage = new StagedImage(Path.of("staged"), "key-image.jpg",
+            "http://example.com/picture.jpg", 7, "image/jpeg", "hash");
+
+        when(petAnalysisMapper.toEntity(requestDTO)).thenReturn(petAnalysis);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(analysisPipeline.tryReserve()).thenReturn(true);
+        when(analysisPipeline.stage(mockImage)).thenReturn(stagedImage);
+        when(imageDedupIndex.findStoredUrl("hash"))
+            .thenReturn(Optional.of("http://example.com/stored.jpg"));
+
+        petAnalysisService.createPetAnalysis(requestDTO, loggedUserKeycloakId);
+
+        assertEquals("hash", petAnalysis.getContentHash());
+        assertEquals("http://example.com/stored.jpg", petAnalysis.getPicture());
+        verify(analysisPipeline).discard(stagedImage);
+        verify(analysisPipeline).submitAfterCommit(new AnalysisJob(petAnalysis.getId(), null));
+    }
+
+    @Test
+    void createPetAnalysesRejectsBatchOverTheLimit() {
+        ReflectionTestUtils.setField(petAnalysisService, "maxBatchSize", 2);
+        PetAnalysisBatchRequestDTO requestDTO = new PetAnalysisBatchRequestDTO(1L,
+            List.of(mockImage, mockImage, mockImage), AnalysisType.BREED);
+
+        assertThrows(BusinessException.class,
+            () -> petAnalysisService.createPetAnalyses(requestDTO, loggedUserKeycloakId));
+
+        verify(analysisPipeline, never()).tryReserve(anyInt());
+        verify(petRepository, never()).findById(any());
+    }
+
+    @Test
+    void createPetAnalysesRejectedWhenPipelineCannotTakeTheWholeBatch() {
+        ReflectionTestUtils.setField(petAnalysisService, "maxBatchSize", 20);
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(analysisPipeline.tryReserve(2)).thenReturn(false);
+
+        assertThrows(ServiceUnavailableException.class, () -> petAnalysisService.createPetAnalyses(
+            new PetAnalysisBatchRequestDTO(1L, List.of(mockImage, mockImage), AnalysisType.BREED),
+            loggedUserKeycloakId));
+
+        verify(analysisPipeline, never()).stage(any());
+        verify(petAnalysisBatchRepository, never()).insertAll(any());
+    }
+
+    @Test
+    void createPetAnalysesGivesBackEveryPermitWhenInsertFails() {
+        ReflectionTestUtils.setField(petAnalysisService, "maxBatchSize", 20);
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        StagedImage first = new StagedImage(Path.of("first"), "key-first.jpg",
+            "http://example.com/first.jpg", 7, "image/jpeg", "hash-1");
+        StagedImage copy = new StagedImage(Path.of("copy"), "key-first.jpg",
+            "http://example.com/first.jpg", 7, "image/jpeg", "hash-1");
+        StagedImage second = new StagedImage(Path.of("second"), "key-second.jpg",
+            "http://example.com/second.jpg", 7, "image/jpeg", "hash-2");
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(analysisPipeline.tryReserve(3)).thenReturn(true);
+        when(analysisPipeline.stage(mockImage)).thenReturn(first, copy, second);
+        doThrow(new IllegalStateException("db down"))
+            .when(petAnalysisBatchRepository).insertAll(any());
+
+        assertThrows(IllegalStateException.class, () -> petAnalysisService.createPetAnalyses(
+            new PetAnalysisBatchRequestDTO(1L, List.of(mockImage, mockImage, mockImage),
+                AnalysisType.BREED),
+            loggedUserKeycloakId));
+
+        verify(analysisPipeline).abandon(copy);
+        verify(analysisPipeline).abandon(first);
+        verify(analysisPipeline).abandon(second);
+        verify(sqsSenderService, never()).holdMessages(any(), any());
+        verify(analysisPipeline, never()).submitAllAfterCommit(any());
+    }
+
+    @Test
+    void confirmPetAnalysisOnlyEnqueuesUploadedPicture() {
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        PetAnalysisUploadDTO uploadDTO = new PetAnalysisUploadDTO(1L,
+            "uploads/1abc23/picture.jpg", AnalysisType.BREED);
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(directUploadService.claim("uploads/1abc23/picture.jpg", loggedUserKeycloakId))
+            .thenReturn("http://example.com/uploads/1abc23/picture.jpg");
+        when(analysisPipeline.tryReserve()).thenReturn(true);
+
+        petAnalysisService.confirmPetAnalysis(uploadDTO, loggedUserKeycloakId);
+
+        verify(petAnalysisRepository).save(argThat((PetAnalysis analysis) ->
+            analysis.getAnalysisStatus() == AnalysisStatus.IN_ANALYSIS
+                && analysis.getAnalysisType() == AnalysisType.BREED
+                && "http://example.com/uploads/1abc23/picture.jpg".equals(analysis.getPicture())));
+        verify(sqsSenderService).holdMessage(
+            new AnalysisMessage(null, "http://example.com/uploads/1abc23/picture.jpg", "DOG_BREED"),
+            "pet-1");
+        verify(analysisPipeline).submitAfterCommit(new AnalysisJob(null, null));
+        verify(analysisPipeline, never()).stage(any());
+    }
+
+    @Test
+    void confirmPetAnalysisRejectsMissingUploadBeforeReserving() {
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(directUploadService.claim(any(), any()))
+            .thenThrow(new BusinessException("Upload não encontrado, envie a imagem novamente"));
+
+        assertThrows(BusinessException.class, () -> petAnalysisService.confirmPetAnalysis(
+            new PetAnalysisUploadDTO(1L, "uploads/1abc23/missing.jpg", AnalysisType.BREED),
+            loggedUserKeycloakId));
+
+        verify(analysisPipeline, never()).tryReserve();
+        verify(petAnalysisRepository, never()).save(any(PetAnalysis.class));
+    }
+
+    @Test
+    void createPetAnalysisGivesBackReservationWhenSaveFails() {
+        User user = new User();
+        user.setId(1L);
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        PetAnalysisRequestDTO requestDTO = new PetAnalysisRequestDTO(1L, mockImage, AnalysisType.BREED);
+        PetAnalysis petAnalysis = new PetAnalysis();
+        StagedImage stagedImage = new StagedImage(Path.of("staged"), "key-image.jpg",
+            "http://example.com/picture.jpg", 7, "image/jpeg", "hash");
+
+        when(petAnalysisMapper.toEntity(requestDTO)).thenReturn(petAnalysis);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(analysisPipeline.tryReserve()).thenReturn(true);
+        when(analysisPipeline.stage(mockImage)).thenReturn(stagedImage);
+        when(petAnalysisRepository.save(petAnalysis)).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class,
+            () -> petAnalysisService.createPetAnalysis(requestDTO, loggedUserKeycloakId));
+
+        verify(analysisPipeline).abandon(stagedImage);
+        verify(sqsSenderService, never()).holdMessage(any(), any());
+        verify(analysisPipeline, never()).submitAfterCommit(any());
     }
 
     @Test
@@ -201,13 +497,11 @@ class PetAnalysisServiceTest {
         PetAnalysis petAnalysis = new PetAnalysis();
         PetAnalysisResponseDTO responseDTO = new PetAnalysisResponseDTO(1L, LocalDateTime.now(),  LocalDateTime.now(),"http://example.com/picture.jpg", "Healthy", 83.24,AnalysisType.BREED, AnalysisStatus.COMPLETED);
 
-        AnalysisMessage analysisMessage = new AnalysisMessage(1L, "http", "DOG_BREED");
-
         when(petAnalysisMapper.toEntity(requestDTO)).thenReturn(petAnalysis);
         when(petAnalysisRepository.save(petAnalysis)).thenReturn(petAnalysis);
         when(petAnalysisMapper.toResponse(petAnalysis)).thenReturn(responseDTO);
         when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
-        doNothing().when(sqsSenderService).sendMessage(analysisMessage);
+        when(analysisPipeline.tryReserve()).thenReturn(true);
 
         PetAnalysisResponseDTO result = petAnalysisService.createPetAnalysis(requestDTO,
                 loggedUserKeycloakId);
@@ -354,13 +648,47 @@ class PetAnalysisServiceTest {
 
         when(petAnalysisRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(petAnalysisPage);
         when(petAnalysisMapper.toResponseList(analyses)).thenReturn(new ArrayList<>());
-        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(loggedUserKeycloakId));
 
         Page<PetAnalysisResponseDTO> response = petAnalysisService.getAllByPetId(1L,
             loggedUserKeycloakId, null, null, null, null, null, pageable);
 
         assertNotNull(response);
         verify(petAnalysisRepository).findAll(any(Specification.class), any(Pageable.class));
+        verify(petRepository, never()).findById(any());
+    }
+
+    @Test
+    void getPetAnalysesByPetIdAfterCursorSkipsCount() {
+        List<PetAnalysis> analyses = new ArrayList<>();
+        for (long i = 3; i >= 1; i--) {
+            PetAnalysis analysis = new PetAnalysis();
+            analysis.setId(i);
+            analysis.setCreatedAt(LocalDateTime.of(2024, 12, 5, 14, 30).plusMinutes(i));
+            analyses.add(analysis);
+        }
+
+        when(petAnalysisRepository.findBy(any(Specification.class), any())).thenReturn(analyses);
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(loggedUserKeycloakId));
+
+        CursorPageDTO<PetAnalysisResponseDTO> response = petAnalysisService.getAllByPetIdAfter(1L,
+            loggedUserKeycloakId, null, null, null, null, null, null, 2);
+
+        assertEquals(2, response.content().size());
+        assertTrue(response.hasNext());
+        assertEquals(new KeysetCursor(LocalDateTime.of(2024, 12, 5, 14, 32), 2L),
+            KeysetCursor.decode(response.nextCursor()));
+        verify(petAnalysisRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void getPetAnalysesByPetIdAfterCursorRejectsInvalidInput() {
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(loggedUserKeycloakId));
+
+        assertThrows(BusinessException.class, () -> petAnalysisService.getAllByPetIdAfter(1L,
+            loggedUserKeycloakId, null, null, null, null, null, null, 0));
+        assertThrows(BusinessException.class, () -> petAnalysisService.getAllByPetIdAfter(1L,
+            loggedUserKeycloakId, null, null, null, null, null, "%%%", 10));
     }
 
     @Test
@@ -398,7 +726,7 @@ class PetAnalysisServiceTest {
         pet.setWeight(BigDecimal.valueOf(10.0));
         pet.setUser(user);
         Pageable pageable = PageRequest.of(0, 10);
-        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(loggedUserKeycloakId));
 
         assertThrows(
                 AccessDeniedException.class,
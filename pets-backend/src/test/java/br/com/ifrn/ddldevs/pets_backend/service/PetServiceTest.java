@@ -16,6 +16,7 @@ import br.com.ifrn.ddldevs.pets_backend.domain.User;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.Pet.PetUpdateRequestDTO;
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserSummaryDTO;
 import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
 import br.com.ifrn.ddldevs.pets_backend.mapper.PetMapper;
@@ -36,11 +37,16 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import br.com.ifrn.ddldevs.pets_backend.security.PetAccessGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -72,6 +78,8 @@ class PetServiceTest {
     @InjectMocks
     private PetService petService;
 
+    private PetAccessGuard petAccessGuard;
+
     private Validator validator;
 
     private final MultipartFile mockImage = new MockMultipartFile(
@@ -92,6 +100,12 @@ class PetServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        petAccessGuard = new PetAccessGuard(petRepository, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(petService, "petAccessGuard", petAccessGuard);
+        ReflectionTestUtils.setField(petService, "userLookup", new UserLookup(
+            userRepository, mock(ObjectProvider.class), new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1)));
         SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
         Authentication authentication = new UsernamePasswordAuthenticationToken(
                 "jhon",
@@ -112,7 +126,9 @@ class PetServiceTest {
         user.setKeycloakId(loggedUserKeycloakId);
         user.setPets(new ArrayList<>());
 
-        when(userRepository.findByKeycloakId(loggedUserKeycloakId)).thenReturn(Optional.of(user));
+        when(userRepository.findSummaryByKeycloakId(loggedUserKeycloakId)).thenReturn(
+            Optional.of(new UserSummaryDTO(1L, loggedUserKeycloakId, "jhon")));
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
 
         PetRequestDTO dto = new PetRequestDTO();
         dto.setName("Apolo");
@@ -161,7 +177,9 @@ class PetServiceTest {
         assertEquals(30, response.height());
         assertEquals(BigDecimal.valueOf(10.0), response.weight());
 
-        verify(userRepository).findByKeycloakId(loggedUserKeycloakId);
+        verify(userRepository).findSummaryByKeycloakId(loggedUserKeycloakId);
+        verify(userRepository).getReferenceById(1L);
+        verify(userRepository, never()).findByKeycloakId(any());
         verify(petMapper).toEntity(dto);
         verify(petRepository).save(any(Pet.class));
         verify(petMapper).toPetResponseDTO(pet);
@@ -295,9 +313,8 @@ class PetServiceTest {
 
         PetResponseDTO response = petService.updatePet(petId, updatedDTO, loggedUserKeycloakId);
 
-        PetService spyService = spy(petService);
         assertNotNull(response);
-        assertDoesNotThrow(() -> spyService.validatePetOwnershipOrAdmin(existingPet, user.getKeycloakId()));
+        assertDoesNotThrow(() -> petAccessGuard.checkAccess(existingPet, user.getKeycloakId()));
         assertEquals(expectedResponse.id(), response.id());
         assertEquals(expectedResponse.name(), response.name());
         assertEquals(expectedResponse.species(), response.species());
@@ -526,8 +543,8 @@ class PetServiceTest {
         pet.setWeight(BigDecimal.valueOf(10.0));
         pet.setUser(user);
 
-        when(petRepository.findById(validId)).thenReturn(Optional.of(pet));
-        when(petRepository.existsById(validId)).thenReturn(true);
+        when(petRepository.findOwnerKeycloakIdById(validId))
+            .thenReturn(Optional.of(loggedUserKeycloakId));
 
         assertDoesNotThrow(() -> petService.deletePet(validId, loggedUserKeycloakId));
 
@@ -566,12 +583,14 @@ class PetServiceTest {
         pet.setWeight(BigDecimal.valueOf(10));
         pet.setUser(user);
 
-        when(petRepository.findById(any())).thenReturn(Optional.of(pet));
+        when(petRepository.findOwnerKeycloakIdById(1L))
+            .thenReturn(Optional.of(loggedUserKeycloakId));
 
         assertThrows(
                 AccessDeniedException.class,
                 () -> petService.deletePet(1L, "NotOwner")
         );
+        verify(petRepository, never()).deleteById(any());
 
     }
 
@@ -3,7 +3,10 @@ package br.com.ifrn.ddldevs.pets_backend.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import br.com.ifrn.ddldevs.pets_backend.async.RecommendationPipeline;
+import br.com.ifrn.ddldevs.pets_backend.async.RecommendationUpdates;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationCategories;
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.RecommendationStatus;
 import br.com.ifrn.ddldevs.pets_backend.domain.Enums.Species;
 import br.com.ifrn.ddldevs.pets_backend.domain.Pet;
 import br.com.ifrn.ddldevs.pets_backend.domain.Recommendation;
@@ -13,8 +16,8 @@ import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationRequest
 import br.com.ifrn.ddldevs.pets_backend.dto.Recommendation.RecommendationResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.exception.AccessDeniedException;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.exception.ServiceUnavailableException;
 import br.com.ifrn.ddldevs.pets_backend.mapper.RecommendationMapper;
-import br.com.ifrn.ddldevs.pets_backend.microservice.RecommendationRequestsService;
 import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.RecommendationRepository;
 import java.math.BigDecimal;
@@ -27,6 +30,10 @@ import java.util.Optional;
 import br.com.ifrn.ddldevs.pets_backend.specifications.RecommendationSpec;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import br.com.ifrn.ddldevs.pets_backend.security.PetAccessGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -44,6 +51,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @ActiveProfiles("test")
 class RecommendationsServiceTest {
@@ -55,7 +63,10 @@ class RecommendationsServiceTest {
     private PetRepository petRepository;
 
     @Mock
-    private RecommendationRequestsService recommendationRequestsService;
+    private RecommendationPipeline recommendationPipeline;
+
+    @Mock
+    private RecommendationUpdates recommendationUpdates;
 
     @Mock
     private RecommendationMapper recommendationMapper;
@@ -68,6 +79,8 @@ class RecommendationsServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(recommendationService, "petAccessGuard", new PetAccessGuard(
+            petRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)));
         SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
         Authentication authentication = new UsernamePasswordAuthenticationToken(
                 "jhon",
@@ -100,8 +113,8 @@ class RecommendationsServiceTest {
             RecommendationCategories.HEALTH
         );
         Recommendation recommendation = new Recommendation();
+        recommendation.setId(1L);
         recommendation.setCategoryRecommendation(RecommendationCategories.HEALTH);
-        recommendation.setRecommendation("Feed your pet twice daily");
         recommendation.setPet(pet);
 
 
@@ -109,11 +122,12 @@ class RecommendationsServiceTest {
             1L,
             LocalDateTime.now(),
             LocalDateTime.now(),
-            "Feed your pet twice daily",
-            RecommendationCategories.HEALTH
+            null,
+            RecommendationCategories.HEALTH,
+            RecommendationStatus.PENDING
         );
 
-        doNothing().when(recommendationRequestsService).updateRecommendation(recommendation);
+        when(recommendationPipeline.tryReserve()).thenReturn(true);
         when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
         when(recommendationMapper.toEntity(requestDTO)).thenReturn(recommendation);
         when(recommendationRepository.save(recommendation)).thenReturn(recommendation);
@@ -124,11 +138,106 @@ class RecommendationsServiceTest {
             loggedUserKeycloakId);
 
         assertNotNull(result);
-        assertEquals("Feed your pet twice daily", result.recommendation());
+        assertNull(result.recommendation());
+        assertEquals(RecommendationStatus.PENDING, result.status());
         assertEquals(RecommendationCategories.HEALTH, result.categoryRecommendation());
+        assertEquals(RecommendationStatus.PENDING, recommendation.getStatus());
 
         verify(petRepository).findById(1L);
         verify(recommendationRepository).save(recommendation);
+        verify(recommendationPipeline).submitAfterCommit(1L);
+    }
+
+    @Test
+    void createRecommendationRejectedWhenPipelineIsFull() {
+        User user = new User();
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        RecommendationRequestDTO requestDTO = new RecommendationRequestDTO(
+            1L,
+            RecommendationCategories.TRAINING
+        );
+        Recommendation recommendation = new Recommendation();
+        recommendation.setCategoryRecommendation(RecommendationCategories.TRAINING);
+
+        when(recommendationPipeline.tryReserve()).thenReturn(false);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(recommendationMapper.toEntity(requestDTO)).thenReturn(recommendation);
+
+        assertThrows(ServiceUnavailableException.class,
+            () -> recommendationService.createRecommendation(requestDTO, loggedUserKeycloakId));
+
+        verify(recommendationRepository, never()).save(any(Recommendation.class));
+        verify(recommendationPipeline, never()).submitAfterCommit(any());
+    }
+
+    @Test
+    void createRecommendationGivesReservationBackWhenSaveFails() {
+        User user = new User();
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setSpecies(Species.DOG);
+        pet.setUser(user);
+
+        RecommendationRequestDTO requestDTO = new RecommendationRequestDTO(
+            1L,
+            RecommendationCategories.TRAINING
+        );
+        Recommendation recommendation = new Recommendation();
+        recommendation.setCategoryRecommendation(RecommendationCategories.TRAINING);
+
+        when(recommendationPipeline.tryReserve()).thenReturn(true);
+        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(recommendationMapper.toEntity(requestDTO)).thenReturn(recommendation);
+        when(recommendationRepository.save(recommendation))
+            .thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class,
+            () -> recommendationService.createRecommendation(requestDTO, loggedUserKeycloakId));
+
+        verify(recommendationPipeline).abandon();
+        verify(recommendationPipeline, never()).submitAfterCommit(any());
+    }
+
+    @Test
+    void streamRecommendationPublishesFinishedStateRightAway() {
+        User user = new User();
+        user.setKeycloakId(loggedUserKeycloakId);
+
+        Pet pet = new Pet();
+        pet.setId(1L);
+        pet.setUser(user);
+
+        Recommendation recommendation = new Recommendation();
+        recommendation.setId(1L);
+        recommendation.setPet(pet);
+        recommendation.setStatus(RecommendationStatus.COMPLETED);
+
+        RecommendationResponseDTO responseDTO = new RecommendationResponseDTO(
+            1L,
+            LocalDateTime.now(),
+            LocalDateTime.now(),
+            "Passeios diários",
+            RecommendationCategories.ACTIVITIES,
+            RecommendationStatus.COMPLETED
+        );
+        SseEmitter emitter = new SseEmitter();
+
+        when(recommendationRepository.findById(1L)).thenReturn(Optional.of(recommendation));
+        when(recommendationMapper.toRecommendationResponseDTO(recommendation)).thenReturn(
+            responseDTO);
+        when(recommendationUpdates.subscribe(1L)).thenReturn(emitter);
+
+        assertSame(emitter, recommendationService.streamRecommendation(1L, loggedUserKeycloakId));
+
+        verify(recommendationUpdates).publish(responseDTO);
     }
 
     @Test
@@ -211,10 +320,11 @@ class RecommendationsServiceTest {
                 LocalDateTime.now(),
                 LocalDateTime.now(),
                 "Feed your pet twice daily",
-                RecommendationCategories.HEALTH
+                RecommendationCategories.HEALTH,
+                RecommendationStatus.COMPLETED
         );
 
-        doNothing().when(recommendationRequestsService).updateRecommendation(recommendation);
+        when(recommendationPipeline.tryReserve()).thenReturn(true);
         when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
         when(recommendationMapper.toEntity(requestDTO)).thenReturn(recommendation);
         when(recommendationRepository.save(recommendation)).thenReturn(recommendation);
@@ -367,7 +477,7 @@ class RecommendationsServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
         Page<Recommendation> recommendationPage = new PageImpl<>(recommendations, pageable, recommendations.size());
 
-        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(loggedUserKeycloakId));
         when(recommendationRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(recommendationPage);
 
         Page<RecommendationResponseDTO> response = recommendationService.getAllByPetId(1L, loggedUserKeycloakId, pageable, "HEALTH"
@@ -421,7 +531,7 @@ class RecommendationsServiceTest {
         pet.setWeight(BigDecimal.valueOf(10.0));
         pet.setUser(user);
 
-        when(petRepository.findById(1L)).thenReturn(Optional.of(pet));
+        when(petRepository.findOwnerKeycloakIdById(1L)).thenReturn(Optional.of(loggedUserKeycloakId));
 
         assertThrows(
                 AccessDeniedException.class,
@@ -461,7 +571,8 @@ class RecommendationsServiceTest {
             LocalDateTime.now(),
             LocalDateTime.now(),
             "Feed your pet twice daily",
-            RecommendationCategories.HEALTH
+            RecommendationCategories.HEALTH,
+            RecommendationStatus.COMPLETED
         );
 
         when(recommendationRepository.findById(1L)).thenReturn(Optional.of(recommendation));
@@ -0,0 +1,254 @@
+package br.com.ifrn.ddldevs.pets_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.stubs.LocalS3Stub;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+@ActiveProfiles("test")
+class UploadImageServiceTest {
+
+    private static final String BUCKET = "fake-bucket";
+    private static final int MIB = 1024 * 1024;
+
+    private LocalS3Stub s3Stub;
+
+    private UploadImageService uploadImageService;
+
+    @BeforeEach
+    void setUp() {
+        s3Stub = new LocalS3Stub();
+        uploadImageService = newService(s3Stub);
+    }
+
+    private UploadImageService newService(LocalS3Stub stub) {
+        UploadImageService service = new UploadImageService();
+        ReflectionTestUtils.setField(service, "bucketName", BUCKET);
+        ReflectionTestUtils.setField(service, "s3Client", stub);
+        ReflectionTestUtils.setField(service, "multipartThreshold", 5L * MIB);
+        ReflectionTestUtils.setField(service, "partSize", 5L * MIB);
+        return service;
+    }
+
+    @Test
+    void smallImageIsStreamedWithSinglePut() {
+        GeneratedMultipartFile image = new GeneratedMultipartFile("small-image.jpg", 64 * 1024);
+
+        String url = uploadImageService.uploadImg(image);
+
+        LocalS3Stub.StoredObject stored = s3Stub.getStored(BUCKET, keyOf(url));
+        assertNotNull(stored);
+        assertEquals(image.getSize(), stored.size());
+        assertEquals(image.expectedCrc(), stored.crc32());
+        assertEquals(image.getSize(), stored.metadata().getContentLength());
+        assertEquals("image/jpeg", stored.metadata().getContentType());
+        assertEquals(1, s3Stub.getPutCount());
+        assertEquals(0, s3Stub.getPartCount());
+        assertTrue(url.endsWith("-small-image.jpg"));
+    }
+
+    @Test
+    void largeImageUsesMultipartUpload() {
+        long size = 12L * MIB + 123;
+        GeneratedMultipartFile image = new GeneratedMultipartFile("large-image.jpg", size);
+
+        String url = uploadImageService.uploadImg(image);
+
+        LocalS3Stub.StoredObject stored = s3Stub.getStored(BUCKET, keyOf(url));
+        assertNotNull(stored);
+        assertEquals(size, stored.size());
+        assertEquals(image.expectedCrc(), stored.crc32());
+        assertEquals(3, stored.parts());
+        assertEquals("image/jpeg", stored.metadata().getContentType());
+        assertEquals(0, s3Stub.getPutCount());
+        assertEquals(0, s3Stub.getPendingUploads());
+    }
+
+    @Test
+    void uploadNeverBuffersNorWritesTempFiles() throws IOException {
+        GeneratedMultipartFile image = new GeneratedMultipartFile("no-temp-file.jpg", 6L * MIB);
+        Path workingDir = Path.of(System.getProperty("user.dir"));
+        long filesBefore;
+        try (var files = Files.list(workingDir)) {
+            filesBefore = files.count();
+        }
+
+        uploadImageService.uploadImg(image);
+
+        assertFalse(new File(image.getOriginalFilename()).exists());
+        try (var files = Files.list(workingDir)) {
+            assertEquals(filesBefore, files.count());
+        }
+        assertEquals(0, image.bufferedCalls);
+        assertEquals(1, image.streamsOpened);
+        assertEquals(image.getSize(), s3Stub.getBytesReceived());
+    }
+
+    @Test
+    void failedPartAbortsMultipartUpload() {
+        LocalS3Stub failingStub = new LocalS3Stub() {
+            @Override
+            public UploadPartResult uploadPart(UploadPartRequest request) {
+                if (request.getPartNumber() == 2) {
+                    throw new IllegalStateException("connection reset");
+                }
+                return super.uploadPart(request);
+            }
+        };
+        UploadImageService service = newService(failingStub);
+
+        String url = service.uploadImg(new GeneratedMultipartFile("broken.jpg", 11L * MIB));
+
+        assertEquals("null", url);
+        assertEquals(1, failingStub.getAbortCount());
+        assertEquals(0, failingStub.getPendingUploads());
+    }
+
+    @Test
+    void presignedPutSignsContentTypeAndLength() {
+        AmazonS3 s3Client = AmazonS3ClientBuilder.standard()
+            .withCredentials(new AWSStaticCredentialsProvider(
+                new BasicAWSCredentials("fake-access-key", "fake-secret-key")))
+            .withRegion("us-east-1")
+            .build();
+        ReflectionTestUtils.setField(uploadImageService, "s3Client", s3Client);
+
+        // signing is local, no request reaches AWS
+        String url = uploadImageService.presignPut("uploads/user/picture.jpg", "image/jpeg",
+            2048, new Date(System.currentTimeMillis() + 60_000)).toString();
+
+        assertTrue(url.contains("uploads/user/picture.jpg"));
+        String signedHeaders = URLDecoder.decode(
+            url.substring(url.indexOf("X-Amz-SignedHeaders=")), StandardCharsets.UTF_8);
+        assertTrue(signedHeaders.contains("content-length"));
+        assertTrue(signedHeaders.contains("content-type"));
+    }
+
+    @Test
+    void findObjectIsEmptyForMissingKey() {
+        assertTrue(uploadImageService.findObject("uploads/missing.jpg").isEmpty());
+
+        uploadImageService.uploadStream("uploads/present.jpg",
+            new ByteArrayInputStream(new byte[16]), 16, "image/png");
+
+        ObjectMetadata metadata = uploadImageService.findObject("uploads/present.jpg").orElseThrow();
+        assertEquals(16, metadata.getContentLength());
+        assertEquals("image/png", metadata.getContentType());
+    }
+
+    private static String keyOf(String url) {
+        return url.substring(url.indexOf(BUCKET + "/") + BUCKET.length() + 1);
+    }
+
+    // produces its content on the fly and records any attempt to load it fully into memory
+    private static class GeneratedMultipartFile implements MultipartFile {
+
+        private final String filename;
+        private final long size;
+        private int bufferedCalls;
+        private int streamsOpened;
+
+        GeneratedMultipartFile(String filename, long size) {
+            this.filename = filename;
+            this.size = size;
+        }
+
+        private static int byteAt(long position) {
+            return (int) ((position * 31 + 7) & 0xFF);
+        }
+
+        long expectedCrc() {
+            CRC32 crc = new CRC32();
+            for (long i = 0; i < size; i++) {
+                crc.update(byteAt(i));
+            }
+            return crc.getValue();
+        }
+
+        @Override
+        public String getName() {
+            return "picture";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getContentType() {
+            return "image/jpeg";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            bufferedCalls++;
+            throw new UnsupportedOperationException("upload must not buffer the whole file");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            streamsOpened++;
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() {
+                    return position < size ? byteAt(position++) : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (position >= size) {
+                        return -1;
+                    }
+                    int n = (int) Math.min(len, size - position);
+                    for (int i = 0; i < n; i++) {
+                        b[off + i] = (byte) byteAt(position++);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            bufferedCalls++;
+            throw new UnsupportedOperationException("upload must not write temp files");
+        }
+    }
+}
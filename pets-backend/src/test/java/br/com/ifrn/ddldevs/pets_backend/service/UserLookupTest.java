@@ -0,0 +1,138 @@
+package br.com.ifrn.ddldevs.pets_backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.dto.User.UserSummaryDTO;
+import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.notification.PgNotificationBus;
+import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ActiveProfiles("test")
+class UserLookupTest {
+
+    private final UserSummaryDTO alex = new UserSummaryDTO(7L, "1abc23", "alex");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PgNotificationBus notificationBus;
+
+    @Mock
+    private ObjectProvider<PgNotificationBus> notificationBusProvider;
+
+    private UserLookup userLookup;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(notificationBusProvider.getIfAvailable()).thenReturn(notificationBus);
+        userLookup = new UserLookup(userRepository, notificationBusProvider,
+            new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+        when(userRepository.findSummaryByKeycloakId("1abc23")).thenReturn(Optional.of(alex));
+    }
+
+    @Test
+    void subscribesToEvictionChannel() {
+        verify(notificationBus).subscribe(UserLookup.CHANNEL, userLookup);
+    }
+
+    @Test
+    void repeatedLookupsHitDatabaseOnce() {
+        assertEquals(7L, userLookup.requireId("1abc23"));
+        assertEquals(alex, userLookup.require("1abc23"));
+
+        verify(userRepository, times(1)).findSummaryByKeycloakId("1abc23");
+    }
+
+    @Test
+    void unknownUserIsNotFoundAndNotCached() {
+        when(userRepository.findSummaryByKeycloakId("unknown")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userLookup.require("unknown"));
+        assertThrows(ResourceNotFoundException.class, () -> userLookup.require("unknown"));
+
+        verify(userRepository, times(2)).findSummaryByKeycloakId("unknown");
+    }
+
+    @Test
+    void evictReloadsLocallyAndNotifiesOtherInstances() {
+        userLookup.require("1abc23");
+
+        userLookup.evict("1abc23");
+        userLookup.require("1abc23");
+
+        verify(notificationBus).publish(UserLookup.CHANNEL, "1abc23");
+        verify(userRepository, times(2)).findSummaryByKeycloakId("1abc23");
+    }
+
+    @Test
+    void evictInsideTransactionWaitsForCommit() {
+        userLookup.require("1abc23");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userLookup.evict("1abc23");
+            // a concurrent request before the commit still sees the cached entry
+            userLookup.require("1abc23");
+            verify(userRepository, times(1)).findSummaryByKeycloakId("1abc23");
+
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        userLookup.require("1abc23");
+
+        verify(notificationBus).publish(UserLookup.CHANNEL, "1abc23");
+        verify(userRepository, times(2)).findSummaryByKeycloakId("1abc23");
+    }
+
+    @Test
+    void notificationFromAnotherInstanceEvicts() {
+        userLookup.require("1abc23");
+
+        userLookup.onNotification("1abc23");
+        userLookup.require("1abc23");
+
+        verify(userRepository, times(2)).findSummaryByKeycloakId("1abc23");
+    }
+
+    @Test
+    void resyncDropsEverything() {
+        userLookup.require("1abc23");
+
+        userLookup.onResync();
+        userLookup.require("1abc23");
+
+        verify(userRepository, times(2)).findSummaryByKeycloakId("1abc23");
+    }
+
+    @Test
+    void worksWithoutNotificationBus() {
+        ObjectProvider<PgNotificationBus> none = mock(ObjectProvider.class);
+        UserLookup local = new UserLookup(userRepository, none, new SimpleMeterRegistry(), 100,
+            Duration.ofMinutes(1));
+
+        local.require("1abc23");
+        local.evict("1abc23");
+
+        assertEquals(7L, local.requireId("1abc23"));
+    }
+}
@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,14 +22,19 @@ import br.com.ifrn.ddldevs.pets_backend.dto.User.UserResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.User.UserUpdateRequestDTO;
 import br.com.ifrn.ddldevs.pets_backend.dto.keycloak.KcUserResponseDTO;
 import br.com.ifrn.ddldevs.pets_backend.exception.ResourceNotFoundException;
+import br.com.ifrn.ddldevs.pets_backend.export.StreamingExporter;
 import br.com.ifrn.ddldevs.pets_backend.keycloak.KeycloakServiceImpl;
 import br.com.ifrn.ddldevs.pets_backend.mapper.PetMapper;
 import br.com.ifrn.ddldevs.pets_backend.mapper.UserMapper;
+import br.com.ifrn.ddldevs.pets_backend.repository.PetRepository;
 import br.com.ifrn.ddldevs.pets_backend.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -42,6 +49,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.multipart.MultipartFile;
 
 @ActiveProfiles("test")
@@ -62,6 +71,14 @@ public class UserServiceTest {
     @Mock
     private UploadImageService uploadImageService;
 
+    @Mock
+    private UserLookup userLookup;
+
+    @Mock
+    private PetRepository petRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     private Validator validator;
 
     private final String loggedUserKeycloakId = "1abc23";
@@ -79,6 +96,8 @@ public class UserServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userService, "streamingExporter", new StreamingExporter(
+            objectMapper, mock(PlatformTransactionManager.class), 500));
 
         ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
         validator = factory.getValidator();
@@ -268,6 +287,7 @@ public class UserServiceTest {
 
         verify(userRepository, times(1)).findById(1L);
         verify(userRepository, times(1)).deleteById(1L);
+        verify(userLookup, times(1)).evict("1abc23");
     }
 
     @Test
@@ -355,7 +375,8 @@ public class UserServiceTest {
 
     @Test
     void getPetsUserNotFound() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userLookup.requireId("123")).thenThrow(
+            new ResourceNotFoundException("Usuário não encontrado"));
 
         assertThrows(ResourceNotFoundException.class,
             () -> userService.getPets("123"),
@@ -363,7 +384,7 @@ public class UserServiceTest {
     }
 
     @Test
-    void succesfullyGetPets() {
+    void succesfullyGetPets() throws Exception {
         User user = new User(
             "1abc23",
             "john",
@@ -391,8 +412,6 @@ public class UserServiceTest {
         user.getPets().add(pet);
         user.getPets().add(pet2);
 
-        when(userRepository.findByKeycloakId(any())).thenReturn(Optional.of(user));
-
         PetResponseDTO petResponse1 = new PetResponseDTO(
             pet.getId(),
             pet.getCreatedAt(),
@@ -425,12 +444,16 @@ public class UserServiceTest {
         petResponses.add(petResponse1);
         petResponses.add(petResponse2);
 
-        when(petMapper.toDTOList(user.getPets())).thenReturn(petResponses);
-        when(userRepository.findByKeycloakId(any())).thenReturn(Optional.of(user));
-        List<PetResponseDTO> response = userService.getPets("1abc23");
+        when(userLookup.requireId("1abc23")).thenReturn(1L);
+        when(petRepository.streamByUserId(1L)).thenReturn(petResponses.stream());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        userService.getPets("1abc23").writeTo(body);
+        List<PetResponseDTO> response = objectMapper.readValue(body.toByteArray(),
+            new TypeReference<List<PetResponseDTO>>() {
+            });
 
-        verify(userRepository, times(1)).findByKeycloakId(any());
-        verify(petMapper, times(1)).toDTOList(user.getPets());
+        verify(petRepository, times(1)).streamByUserId(1L);
+        verify(userRepository, never()).findByKeycloakId(any());
 
         assertEquals(petResponses.getFirst().id(), response.getFirst().id());
         assertEquals(petResponses.getFirst().name(), response.getFirst().name());
@@ -520,6 +543,7 @@ public class UserServiceTest {
         verify(userMapper, times(1)).
             updateEntityFromDTO(userRequestDTO, user);
         verify(userRepository, times(1)).save(user);
+        verify(userLookup, times(1)).evict(user.getKeycloakId());
         verify(userMapper, times(1)).toResponseDTO(user);
 
         // Validação dos Dados Atualizados
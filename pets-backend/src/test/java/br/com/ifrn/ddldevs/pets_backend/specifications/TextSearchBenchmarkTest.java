@@ -0,0 +1,110 @@
+package br.com.ifrn.ddldevs.pets_backend.specifications;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Compares the trigram/prefix indexed search with the plain LIKE scan it replaced on 1M pets.
+// Slow, so it only runs with -Dbenchmarks=true (and Docker available).
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@Testcontainers(disabledWithoutDocker = true)
+class TextSearchBenchmarkTest {
+
+    private static final int ROWS = 1_000_000;
+
+    private static final int RUNS = 15;
+
+    private static final String SEARCH = "SELECT id, name FROM pets WHERE lower(name) LIKE ? ESCAPE '\\'";
+
+    private static final String USER_SEARCH = SEARCH + " AND user_id = ?";
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @BeforeAll
+    static void migrateAndSeed() throws Exception {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .locations("classpath:db/migration", "classpath:db/vendor/postgresql")
+            .load()
+            .migrate();
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("""
+                INSERT INTO users (keycloak_id, username, first_name, last_name, email)
+                SELECT 'kc-' || g, 'user' || g, 'First', 'Last', 'user' || g || '@email.com'
+                FROM generate_series(1, 50000) g
+                """);
+            statement.execute("""
+                INSERT INTO pets (name, breed, species, user_id)
+                SELECT 'Pet ' || md5(g::text), 'Breed ' || g % 500, 'DOG', g % 50000 + 1
+                FROM generate_series(1, %d) g
+                """.formatted(ROWS));
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static Connection connect() throws Exception {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+            postgres.getPassword());
+    }
+
+    @Test
+    void indexedSearchBeatsLikeScan() throws Exception {
+        String contains = TextSearch.pattern("c4ca42", SearchMode.CONTAINS);
+        String prefix = TextSearch.pattern("pet c4", SearchMode.PREFIX);
+
+        long indexedContains = medianNanos(SEARCH, contains, null);
+        long indexedPrefix = medianNanos(USER_SEARCH, prefix, 7L);
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX idx_pets_name_trgm");
+            statement.execute("DROP INDEX idx_pets_user_name_prefix");
+        }
+
+        long likeContains = medianNanos(SEARCH, contains, null);
+        long likePrefix = medianNanos(USER_SEARCH, prefix, 7L);
+
+        System.out.printf("contains: trigram %.2f ms vs LIKE %.2f ms%n", indexedContains / 1e6,
+            likeContains / 1e6);
+        System.out.printf("prefix:   btree %.2f ms vs LIKE %.2f ms%n", indexedPrefix / 1e6,
+            likePrefix / 1e6);
+
+        assertTrue(indexedContains < likeContains, "trigram search should beat the LIKE scan");
+    }
+
+    private long medianNanos(String sql, String pattern, Long userId) throws Exception {
+        long[] samples = new long[RUNS];
+        try (Connection connection = connect();
+            PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < RUNS; i++) {
+                statement.setString(1, pattern);
+                if (userId != null) {
+                    statement.setLong(2, userId);
+                }
+                long start = System.nanoTime();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getLong(1);
+                    }
+                }
+                samples[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+}
@@ -0,0 +1,26 @@
+package br.com.ifrn.ddldevs.pets_backend.specifications;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import br.com.ifrn.ddldevs.pets_backend.domain.Enums.SearchMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+class TextSearchTest {
+
+    @Test
+    void containsWrapsLowercasedTerm() {
+        assertEquals("%apolo%", TextSearch.pattern("Apolo", SearchMode.CONTAINS));
+    }
+
+    @Test
+    void prefixOnlyAnchorsTheEnd() {
+        assertEquals("labr%", TextSearch.pattern("Labr", SearchMode.PREFIX));
+    }
+
+    @Test
+    void wildcardsInInputAreMatchedLiterally() {
+        assertEquals("%100\\%\\_ok\\\\%", TextSearch.pattern("100%_ok\\", SearchMode.CONTAINS));
+    }
+}
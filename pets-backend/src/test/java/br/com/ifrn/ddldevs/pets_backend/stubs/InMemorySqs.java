@@ -0,0 +1,79 @@
+package br.com.ifrn.ddldevs.pets_backend.stubs;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import br.com.ifrn.ddldevs.pets_backend.amazonSqs.AnalysisResponseMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.awspring.cloud.sqs.operations.SendResult;
+import io.awspring.cloud.sqs.operations.SqsTemplate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.springframework.messaging.Message;
+
+// SQS stand-in for the analysis round trip: accepts what the outbox relay sends and, after
+// a configurable processing delay, answers each analysis with a successful response the way
+// the analysis worker would, delivered to the same consumer the SQS listener feeds.
+public class InMemorySqs implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private final Duration processingDelay;
+
+    private volatile Consumer<List<AnalysisResponseMessage>> responses = messages -> { };
+
+    public InMemorySqs(Duration processingDelay) {
+        this.processingDelay = processingDelay;
+    }
+
+    public void onResponses(Consumer<List<AnalysisResponseMessage>> responses) {
+        this.responses = responses;
+    }
+
+    public int sentCount() {
+        return sent.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public SqsTemplate template() {
+        SqsTemplate template = mock(SqsTemplate.class);
+        when(template.sendMany(anyString(), any(Collection.class))).thenAnswer(invocation -> {
+            String queue = invocation.getArgument(0);
+            Collection<Message<String>> messages = invocation.getArgument(1);
+            List<SendResult<String>> successful = new ArrayList<>(messages.size());
+            List<AnalysisResponseMessage> answers = new ArrayList<>(messages.size());
+            for (Message<String> message : messages) {
+                successful.add(new SendResult<>(UUID.randomUUID(), queue, message, Map.of()));
+                JsonNode analysis = objectMapper.readTree(message.getPayload());
+                answers.add(new AnalysisResponseMessage(analysis.path("analysisId").asLong(),
+                    "happy", "200", analysis.path("analysisType").asText(), 0.93));
+            }
+            sent.addAndGet(messages.size());
+            worker.schedule(() -> responses.accept(answers), processingDelay.toMillis(),
+                TimeUnit.MILLISECONDS);
+            return new SendResult.Batch<>(successful, List.of());
+        });
+        return template;
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+}
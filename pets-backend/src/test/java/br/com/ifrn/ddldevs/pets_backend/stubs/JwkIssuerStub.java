@@ -0,0 +1,88 @@
+package br.com.ifrn.ddldevs.pets_backend.stubs;
+
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer.StubResponse;
+import io.jsonwebtoken.Jwts;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Keycloak stand-in for the resource server: serves a JWK set over HTTP and signs RS256
+// access tokens with the realm_access layout JWTAuthConverter reads, so requests go through
+// the real JwtDecoder instead of a mocked one.
+public class JwkIssuerStub implements AutoCloseable {
+
+    public static final String REALM = "pets-backend";
+
+    private static final String CERTS_PATH = "/realms/" + REALM + "/protocol/openid-connect/certs";
+
+    private final StubHttpServer server = new StubHttpServer();
+
+    private final KeyPair keyPair;
+
+    private final String keyId = UUID.randomUUID().toString();
+
+    public JwkIssuerStub() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            keyPair = generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        server.respond(CERTS_PATH, StubResponse.ok("""
+            {"keys":[{"kty":"RSA","use":"sig","alg":"RS256","kid":"%s","n":"%s","e":"%s"}]}
+            """.formatted(keyId, base64Url(publicKey.getModulus()),
+            base64Url(publicKey.getPublicExponent()))));
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    public String jwkSetUri() {
+        return server.baseUrl() + CERTS_PATH;
+    }
+
+    public int jwkSetRequests() {
+        return server.requestCount();
+    }
+
+    public String issue(String keycloakId, String username, List<String> roles, Duration ttl) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+            .header().keyId(keyId).and()
+            .issuer(server.baseUrl() + "/realms/" + REALM)
+            .subject(keycloakId)
+            .issuedAt(new Date(now))
+            .expiration(new Date(now + ttl.toMillis()))
+            .claim("preferred_username", username)
+            .claim("email", username + "@email.com")
+            .claim("realm_access", Map.of("roles", roles))
+            .signWith(keyPair.getPrivate(), Jwts.SIG.RS256)
+            .compact();
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.ifrn.ddldevs.pets_backend.stubs;
+
+import br.com.ifrn.ddldevs.pets_backend.stubs.StubHttpServer.StubResponse;
+import java.time.Duration;
+
+// Keycloak stand-in for the OpenID Connect token and logout endpoints of one realm, with a
+// fixed response latency so concurrent callers overlap.
+public class KeycloakStub implements AutoCloseable {
+
+    public static final String REALM = "pets-backend";
+
+    public static final String TOKEN_RESPONSE = """
+        {"access_token":"access","expires_in":300,"refresh_token":"refresh","token_type":"Bearer"}
+        """;
+
+    private static final String ENDPOINTS = "/realms/" + REALM + "/protocol/openid-connect/";
+
+    private final StubHttpServer server = new StubHttpServer();
+
+    public KeycloakStub(Duration latency) {
+        tokenResponds(new StubResponse(200, TOKEN_RESPONSE, latency));
+        server.respond(ENDPOINTS + "logout", new StubResponse(204, "", latency));
+    }
+
+    public KeycloakStub tokenResponds(StubResponse response) {
+        server.respond(ENDPOINTS + "token", response);
+        return this;
+    }
+
+    public String baseUrl() {
+        return server.baseUrl();
+    }
+
+    public StubHttpServer server() {
+        return server;
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+}
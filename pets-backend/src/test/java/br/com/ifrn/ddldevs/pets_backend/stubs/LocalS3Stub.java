@@ -0,0 +1,212 @@
+package br.com.ifrn.ddldevs.pets_backend.stubs;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+// in-memory S3 stand-in: drains uploaded streams in small chunks and only keeps
+// size/checksum per object, so it adds no heap pressure of its own to measurements
+public class LocalS3Stub extends AbstractAmazonS3 {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    public record StoredObject(long size, long crc32, ObjectMetadata metadata, int parts) {
+    }
+
+    private record PendingUpload(String key, ObjectMetadata metadata, CRC32 crc,
+                                 AtomicLong size, AtomicInteger parts) {
+    }
+
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, PendingUpload> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicInteger putCount = new AtomicInteger();
+    private final AtomicInteger partCount = new AtomicInteger();
+    private final AtomicInteger abortCount = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        CRC32 crc = new CRC32();
+        long size = drain(request.getInputStream(), crc);
+        objects.put(path(request.getBucketName(), request.getKey()),
+            new StoredObject(size, crc.getValue(), request.getMetadata(), 0));
+        putCount.incrementAndGet();
+
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(Long.toHexString(crc.getValue()));
+        return result;
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(
+        InitiateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new PendingUpload(path(request.getBucketName(), request.getKey()),
+            request.getObjectMetadata(), new CRC32(), new AtomicLong(), new AtomicInteger()));
+
+        InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(uploadId);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        PendingUpload upload = uploads.get(request.getUploadId());
+        if (upload == null) {
+            throw new IllegalStateException("Unknown upload id " + request.getUploadId());
+        }
+
+        long size = drain(request.getInputStream(), upload.crc());
+        if (size != request.getPartSize()) {
+            throw new IllegalStateException(
+                "Part " + request.getPartNumber() + " expected " + request.getPartSize()
+                    + " bytes but got " + size);
+        }
+        upload.size().addAndGet(size);
+        upload.parts().incrementAndGet();
+        partCount.incrementAndGet();
+
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(request.getUploadId() + "-" + request.getPartNumber());
+        return result;
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(
+        CompleteMultipartUploadRequest request) {
+        PendingUpload upload = uploads.remove(request.getUploadId());
+        if (upload == null) {
+            throw new IllegalStateException("Unknown upload id " + request.getUploadId());
+        }
+        for (int i = 0; i < request.getPartETags().size(); i++) {
+            PartETag tag = request.getPartETags().get(i);
+            if (tag.getPartNumber() != i + 1) {
+                throw new IllegalStateException("Parts out of order: " + tag.getPartNumber());
+            }
+        }
+
+        objects.put(upload.key(), new StoredObject(upload.size().get(), upload.crc().getValue(),
+            upload.metadata(), upload.parts().get()));
+
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.getUploadId());
+        abortCount.incrementAndGet();
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        try {
+            return URI.create("http://localhost/" + bucketName + "/" + key).toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        StoredObject stored = objects.get(path(bucketName, key));
+        if (stored == null) {
+            AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+            notFound.setStatusCode(404);
+            throw notFound;
+        }
+        ObjectMetadata metadata = stored.metadata().clone();
+        metadata.setContentLength(stored.size());
+        return metadata;
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        objects.remove(path(bucketName, key));
+    }
+
+    // not a real signature: enough to tell which key, method and expiry a URL was issued for
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        try {
+            return URI.create("http://localhost/" + request.getBucketName() + "/"
+                + request.getKey() + "?method=" + request.getMethod()
+                + "&expires=" + request.getExpiration().getTime()).toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public StoredObject getStored(String bucketName, String key) {
+        return objects.get(path(bucketName, key));
+    }
+
+    public int getPutCount() {
+        return putCount.get();
+    }
+
+    public int getPartCount() {
+        return partCount.get();
+    }
+
+    public int getAbortCount() {
+        return abortCount.get();
+    }
+
+    public int getPendingUploads() {
+        return uploads.size();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    private long drain(InputStream in, CRC32 crc) {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long total = 0;
+        try {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, n);
+                total += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytesReceived.addAndGet(total);
+        return total;
+    }
+
+    private static String path(String bucketName, String key) {
+        return bucketName + "/" + key;
+    }
+}
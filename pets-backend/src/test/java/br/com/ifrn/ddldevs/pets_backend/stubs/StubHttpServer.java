@@ -0,0 +1,106 @@
+package br.com.ifrn.ddldevs.pets_backend.stubs;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Minimal local HTTP server for client tests: canned responses per path, optional latency,
+// and bookkeeping of received bodies and client connections (remote ports).
+public class StubHttpServer implements AutoCloseable {
+
+    public record StubResponse(int status, String body, Duration delay) {
+
+        public static StubResponse ok(String body) {
+            return new StubResponse(200, body, Duration.ZERO);
+        }
+    }
+
+    public record ReceivedRequest(String method, String path, String body) {
+    }
+
+    private final HttpServer server;
+
+    private final Map<String, StubResponse> responses = new ConcurrentHashMap<>();
+
+    private final List<ReceivedRequest> requests = new CopyOnWriteArrayList<>();
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    public StubHttpServer() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public StubHttpServer respond(String path, StubResponse response) {
+        responses.put(path, response);
+        return this;
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    public List<ReceivedRequest> requests() {
+        return requests;
+    }
+
+    // number of distinct TCP connections the clients opened
+    public int connectionCount() {
+        return clientPorts.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+        requests.add(new ReceivedRequest(exchange.getRequestMethod(), path, body));
+
+        StubResponse response = responses.getOrDefault(path,
+            new StubResponse(404, "{\"detail\":\"not found\"}", Duration.ZERO));
+        if (!response.delay().isZero()) {
+            try {
+                Thread.sleep(response.delay());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}